@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point for benchmarks.jar.  Same as JMH's own Main, except that results are written as JSON (to
+ * jmh-result.json, unless -rff says otherwise) so that they can be tracked over time.  Pass '-rf' to get some other
+ * format.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        Main.main(withDefaults(args));
+    }
+
+    /**
+     * @return the given JMH arguments, plus the ones needed to get JSON results if no result format was specified.
+     */
+    static String[] withDefaults(final String[] args) {
+        final List<String> argList = new ArrayList<>(Arrays.asList(args));
+        if (!argList.contains("-rf")) {
+            argList.add(0, "-rf");
+            argList.add(1, "json");
+        }
+        return argList.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.config.MavenHelper;
+import com.salesforce.trellis.config.ParserListener;
+import com.salesforce.trellis.rules.Coordinates;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Plumbing shared by the benchmarks that load yaml config.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class BenchmarkSupport {
+
+    // ===================================================================
+    // Constructor
+
+    private BenchmarkSupport() {
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @return a MavenHelper that doesn't interpolate anything and finds no dependencies in poms.
+     */
+    static MavenHelper noopMavenHelper() {
+        return NoopMavenHelper.INSTANCE;
+    }
+
+    /**
+     * @return a ParserListener that fails the benchmark on any config error.
+     */
+    static ParserListener failingParserListener() {
+        return FailingParserListener.INSTANCE;
+    }
+
+    static void write(final Path path, final String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    private static final class NoopMavenHelper implements MavenHelper {
+
+        private static final MavenHelper INSTANCE = new NoopMavenHelper();
+
+        @Override
+        public Set<Coordinates> getDependenciesFromPom(final Path pathToPom) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Function<String, String> getInterpolator() {
+            return Function.identity();
+        }
+
+        @Override
+        public Function<String, String> createInterpolator(final Properties additionalProperties) {
+            return Function.identity();
+        }
+    }
+
+    private static final class FailingParserListener implements ParserListener {
+
+        private static final ParserListener INSTANCE = new FailingParserListener();
+
+        @Override
+        public void notify(final ParserEvent event) {
+            if (event.getType() == ParserEventType.ERROR) throw new IllegalStateException(event.getMessage());
+        }
+    }
+}
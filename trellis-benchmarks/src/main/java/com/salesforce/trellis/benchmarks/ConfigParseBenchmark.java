@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.config.ConfigException;
+import com.salesforce.trellis.config.FileAdapter;
+import com.salesforce.trellis.config.YamlConfigBuilder;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import com.salesforce.trellis.rules.builder.RuleSetBuilder;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.salesforce.trellis.benchmarks.BenchmarkSupport.failingParserListener;
+import static com.salesforce.trellis.benchmarks.BenchmarkSupport.noopMavenHelper;
+import static com.salesforce.trellis.benchmarks.BenchmarkSupport.write;
+
+/**
+ * Measures loading a rules file with a big, generated-style whitelist (a few megabytes at the larger size) into a
+ * RuleSetBuilder.  This is mostly the cost of reading and parsing the yaml.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigParseBenchmark {
+
+    // ===================================================================
+    // Parameters
+
+    @Param({"2000", "20000"})
+    public int whitelistRules;
+
+    // ===================================================================
+    // Fields
+
+    private Path dir;
+    private Path rulesFile;
+
+    // ===================================================================
+    // Setup
+
+    @Setup
+    public void setup() throws IOException {
+        this.dir = Files.createTempDirectory("ConfigParseBenchmark");
+        this.rulesFile = this.dir.resolve("rules.yaml");
+        write(this.rulesFile, "rules:\n- action: DENY\n  from: ['sfdc.*:*']\n  to: ['org.*:*']\n" +
+            "  reason: Third-party libraries must be approved.\n  whitelist: whitelist.yaml\n");
+        final Random random = new Random(42);
+        final StringBuilder sb = new StringBuilder();
+        sb.append("#\n# Generated whitelist\n#\nrules:\n");
+        for (int i = 0; i < this.whitelistRules; i++) {
+            sb.append("\n- action: WARN\n  from:\n");
+            final int fromCount = 1 + random.nextInt(5);
+            for (int j = 0; j < fromCount; j++) {
+                sb.append("  - sfdc.area").append(random.nextInt(50)).append(":module").append(random.nextInt(1000))
+                    .append('\n');
+            }
+            sb.append("  to:\n  - org.lib").append(i).append(":lib").append(i).append('\n');
+            sb.append("  reason: Third-party libraries must be approved.\n  scope: compile\n");
+        }
+        write(this.dir.resolve("whitelist.yaml"), sb.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+    // ===================================================================
+    // Benchmarks
+
+    @Benchmark
+    public RuleSet parse() throws ConfigException, RuleBuildingException {
+        final RuleSetBuilder rsb = RuleSetBuilder.create();
+        YamlConfigBuilder.create().addFile(FileAdapter.forPath(this.rulesFile)).mavenHelper(noopMavenHelper())
+            .build().applyTo(rsb, failingParserListener());
+        return rsb.build();
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures RuleSet.getRulesFor() and PerModuleRules.checkDependency() over every module of a SyntheticReactor,
+ * which is roughly what an enforcer run over the whole reactor does.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleSetBenchmark {
+
+    // ===================================================================
+    // Parameters
+
+    @Param({"500"})
+    public int moduleCount;
+
+    @Param({"100", "1000"})
+    public int ruleCount;
+
+    @Param({"5000"})
+    public int whitelistCount;
+
+    @Param({"0.1", "0.5"})
+    public double wildcardDensity;
+
+    // ===================================================================
+    // Fields
+
+    private SyntheticReactor reactor;
+    private RuleSet.PerModuleRules[] moduleRules;
+    private List<OutboundDependency>[] moduleDependencies;
+
+    // ===================================================================
+    // Setup
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws RuleBuildingException {
+        this.reactor = SyntheticReactor.generate(this.moduleCount, this.ruleCount, this.whitelistCount,
+            this.wildcardDensity, 42);
+        final List<Coordinates> modules = this.reactor.getModules();
+        this.moduleRules = new RuleSet.PerModuleRules[modules.size()];
+        this.moduleDependencies = new List[modules.size()];
+        for (int i = 0; i < modules.size(); i++) {
+            this.moduleRules[i] = this.reactor.getRules().getRulesFor(modules.get(i));
+            this.moduleDependencies[i] = this.reactor.getDependencies(modules.get(i));
+        }
+    }
+
+    // ===================================================================
+    // Benchmarks
+
+    @Benchmark
+    public void getRulesFor(final Blackhole bh) {
+        for (final Coordinates module : this.reactor.getModules()) {
+            bh.consume(this.reactor.getRules().getRulesFor(module));
+        }
+    }
+
+    @Benchmark
+    public void getWhitelistRulesFor(final Blackhole bh) {
+        for (final Coordinates module : this.reactor.getModules()) {
+            bh.consume(this.reactor.getWhitelist().getRulesFor(module));
+        }
+    }
+
+    @Benchmark
+    public void checkDependency(final Blackhole bh) {
+        for (int i = 0; i < this.moduleRules.length; i++) {
+            final RuleSet.PerModuleRules rules = this.moduleRules[i];
+            if (rules == null) continue;
+            for (final OutboundDependency dep : this.moduleDependencies[i]) {
+                bh.consume(rules.checkDependency(dep));
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.DependencyScope;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.GroupSetBuilder;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import com.salesforce.trellis.rules.builder.RuleSetBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.salesforce.trellis.rules.builder.RuleAction.ALLOW;
+import static com.salesforce.trellis.rules.builder.RuleAction.DENY;
+
+/**
+ * Measures building a RuleSet and then checking a handful of dependencies against it, using the same rules as the
+ * gold-file scenarios in the trellis-rules tests (RulesBuilderTest).  These are small, but they're shaped like real
+ * configurations.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScenarioBenchmark {
+
+    // ===================================================================
+    // Constants
+
+    private static final String[] MODULES = {
+        "sfdc.core:foo-impl", "sfdc.core:bar", "sfdc.ui:ui-foo", "myapp:special-impl", "myapp:other", "junit:junit"
+    };
+
+    private static final String[] TARGETS = {
+        "sfdc.core:foo-api", "sfdc.core:bing", "sfdc.ui:ui-bar", "myapp:special-api", "verboten:thing",
+        "verboten:allowed", "org.junit.jupiter:junit-jupiter-api"
+    };
+
+    // ===================================================================
+    // Parameters
+
+    @Param({"simpleRule", "exceptFrom", "exceptTo", "complexGroups", "groupWithException"})
+    public String scenario;
+
+    // ===================================================================
+    // Fields
+
+    private final List<Coordinates> modules = new ArrayList<>();
+    private final List<OutboundDependency> dependencies = new ArrayList<>();
+
+    // ===================================================================
+    // Setup
+
+    @Setup
+    public void setup() {
+        final DependencyScope compile = DependencyScope.parse("compile");
+        for (final String module : MODULES) this.modules.add(Coordinates.parse(module));
+        for (final String target : TARGETS) {
+            this.dependencies.add(OutboundDependency.create(Coordinates.parse(target), compile, true, false));
+        }
+    }
+
+    // ===================================================================
+    // Benchmarks
+
+    @Benchmark
+    public void buildAndCheck(final Blackhole bh) throws RuleBuildingException {
+        final RuleSet rules = buildRules(this.scenario);
+        for (final Coordinates module : this.modules) {
+            final RuleSet.PerModuleRules m = rules.getRulesFor(module);
+            if (m == null) continue;
+            for (final OutboundDependency dep : this.dependencies) {
+                bh.consume(m.checkDependency(dep));
+            }
+        }
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private static RuleSet buildRules(final String scenario) throws RuleBuildingException {
+        final RuleSetBuilder b = RuleSetBuilder.create();
+        switch (scenario) {
+            case "simpleRule":
+                b.rule().action(ALLOW).from("sfdc.core:*-impl").to("sfdc.core:*-api").build();
+                b.rule().action(DENY).from("*").to("*").build();
+                break;
+            case "exceptFrom":
+                b.rule().action(DENY).exceptFrom("myapp:special-impl").to("myapp:special-api")
+                    .reason("Only special-impl can depend on special-api").build();
+                break;
+            case "exceptTo":
+                b.rule().action(DENY).from("*:*").to("verboten:*").exceptTo("verboten:allowed")
+                    .reason("No one can depend on anything in verboten except for verboten:allowed").build();
+                break;
+            case "complexGroups": {
+                final GroupSetBuilder g = GroupSetBuilder.create();
+                g.group().name("FOO").include("junit:*").include("sfdc.core:*").build();
+                g.group().name("BAR").include("FOO").include("sfdc.ui:*").build();
+                g.group().name("BAZ").include("FOO").include("BAR").build();
+                g.group().name("BOP").include("BAR").include("sfdc.core:bar").build();
+                b.groups(g.build());
+                b.rule().action(DENY).from("BOP").to("sfdc.core:bing").reason("BOP").build();
+                b.rule().action(DENY).from("BAZ").to("sfdc.core:bing").reason("BAZ").build();
+                b.rule().action(ALLOW).from("sfdc.ui:*").to("*").build();
+                break;
+            }
+            case "groupWithException": {
+                final GroupSetBuilder g = GroupSetBuilder.create();
+                g.group().name("FOO").include("verboten:*").except("verboten:allowed").build();
+                b.groups(g.build());
+                b.rule().action(DENY).from("*:*").to("FOO")
+                    .reason("No one can depend on anything in verboten except for verboten:allowed").build();
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown scenario " + scenario);
+        }
+        return b.build();
+    }
+}
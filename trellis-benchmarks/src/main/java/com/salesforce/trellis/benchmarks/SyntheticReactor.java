@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.DependencyScope;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.GroupBuilder;
+import com.salesforce.trellis.rules.builder.GroupSetBuilder;
+import com.salesforce.trellis.rules.builder.RuleAction;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import com.salesforce.trellis.rules.builder.RuleSetBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates a repeatable, made-up reactor to benchmark against: a bunch of modules, their dependencies on each other
+ * and on third-party libraries, a set of rules about them and a generated-style whitelist of the violations.
+ * <p>
+ * Module coordinates look like 'sfdc.area3:module42' and third-party libraries like 'org.lib7:lib7'.  Rules are a
+ * mix of exact coordinates and wildcard expressions (how much of each is controlled by wildcardDensity), plus a
+ * pomDependencies-style group listing every third-party library.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public final class SyntheticReactor {
+
+    // ===================================================================
+    // Constants
+
+    private static final int DEPENDENCIES_PER_MODULE = 30;
+    private static final int MODULES_PER_AREA = 20;
+    private static final int LIBRARY_COUNT = 400;
+    private static final DependencyScope[] SCOPES = {
+        DependencyScope.parse("compile"), DependencyScope.parse("compile"), DependencyScope.parse("compile"),
+        DependencyScope.parse("runtime"), DependencyScope.parse("provided"), DependencyScope.parse("test")
+    };
+
+    // ===================================================================
+    // Fields
+
+    private final List<Coordinates> modules;
+    private final Map<Coordinates, List<OutboundDependency>> dependencies;
+    private final RuleSet rules;
+    private final RuleSet whitelist;
+
+    // ===================================================================
+    // Factory
+
+    /**
+     * @param moduleCount number of modules in the reactor.
+     * @param ruleCount number of rules, not counting the whitelist.
+     * @param whitelistCount number of whitelist entries.
+     * @param wildcardDensity between 0 and 1; the fraction of rule expressions that are wildcards rather than exact
+     * coordinates.
+     * @param seed for the random number generator; the same arguments always produce the same reactor.
+     */
+    public static SyntheticReactor generate(final int moduleCount,
+                                            final int ruleCount,
+                                            final int whitelistCount,
+                                            final double wildcardDensity,
+                                            final long seed) throws RuleBuildingException {
+        if (moduleCount < 1) throw new IllegalArgumentException("need at least one module");
+        if (wildcardDensity < 0 || wildcardDensity > 1) throw new IllegalArgumentException("bad wildcardDensity");
+        final Random random = new Random(seed);
+        final int areaCount = (moduleCount + MODULES_PER_AREA - 1) / MODULES_PER_AREA;
+        final List<Coordinates> modules = new ArrayList<>(moduleCount);
+        for (int i = 0; i < moduleCount; i++) {
+            modules.add(Coordinates.of("sfdc.area" + i / MODULES_PER_AREA, "module" + i));
+        }
+        final List<Coordinates> libraries = new ArrayList<>(LIBRARY_COUNT);
+        for (int i = 0; i < LIBRARY_COUNT; i++) {
+            libraries.add(Coordinates.of("org.lib" + i % 50, "lib" + i));
+        }
+
+        // dependencies: mostly on other modules, some on libraries, a few transitive or optional
+        final Map<Coordinates, List<OutboundDependency>> dependencies = new LinkedHashMap<>();
+        for (final Coordinates module : modules) {
+            final Set<Coordinates> tos = new LinkedHashSet<>();
+            final int count = Math.min(DEPENDENCIES_PER_MODULE, moduleCount - 1 + LIBRARY_COUNT);
+            while (tos.size() < count) {
+                final Coordinates to = random.nextInt(3) == 0 ? libraries.get(random.nextInt(LIBRARY_COUNT)) :
+                    modules.get(random.nextInt(moduleCount));
+                if (!to.equals(module)) tos.add(to);
+            }
+            final List<OutboundDependency> deps = new ArrayList<>(tos.size());
+            for (final Coordinates to : tos) {
+                deps.add(OutboundDependency.create(to, SCOPES[random.nextInt(SCOPES.length)],
+                    random.nextInt(4) != 0, random.nextInt(20) == 0));
+            }
+            dependencies.put(module, Collections.unmodifiableList(deps));
+        }
+
+        // a pomDependencies-style group of all of the libraries
+        final GroupSetBuilder gsb = GroupSetBuilder.create();
+        final GroupBuilder thirdParty = gsb.group().name("THIRD_PARTY");
+        for (final Coordinates library : libraries) thirdParty.include(library.getCanonicalString());
+        thirdParty.build();
+
+        final RuleSetBuilder rsb = RuleSetBuilder.create().groups(gsb.build());
+        rsb.rule().action(RuleAction.DENY).from("sfdc.area0:*").to("THIRD_PARTY").reason("no libraries").build();
+        for (int i = 0; i < ruleCount; i++) {
+            final RuleAction action = random.nextInt(4) == 0 ? RuleAction.ALLOW : RuleAction.DENY;
+            rsb.rule().action(action)
+                .from(expression(random, modules, areaCount, wildcardDensity))
+                .to(expression(random, modules, areaCount, wildcardDensity))
+                .reason("rule " + i).build();
+        }
+        final RuleSet rules = rsb.build();
+
+        // a whitelist looks like what gets generated: exact module-to-dependency ALLOWs
+        final RuleSetBuilder wsb = RuleSetBuilder.create();
+        for (int i = 0; i < whitelistCount; i++) {
+            final Coordinates from = modules.get(random.nextInt(moduleCount));
+            final List<OutboundDependency> deps = dependencies.get(from);
+            final OutboundDependency dep = deps.get(random.nextInt(deps.size()));
+            wsb.rule().action(RuleAction.ALLOW).from(from.getCanonicalString())
+                .to(dep.getTo().getCanonicalString()).scope(dep.getScope()).build();
+        }
+        final RuleSet whitelist = wsb.build();
+        return new SyntheticReactor(modules, dependencies, rules, whitelist);
+    }
+
+    // ===================================================================
+    // Constructor
+
+    private SyntheticReactor(final List<Coordinates> modules,
+                             final Map<Coordinates, List<OutboundDependency>> dependencies,
+                             final RuleSet rules,
+                             final RuleSet whitelist) {
+        this.modules = Collections.unmodifiableList(requireNonNull(modules));
+        this.dependencies = Collections.unmodifiableMap(requireNonNull(dependencies));
+        this.rules = requireNonNull(rules);
+        this.whitelist = requireNonNull(whitelist);
+    }
+
+    // ===================================================================
+    // Public methods
+
+    public List<Coordinates> getModules() {
+        return this.modules;
+    }
+
+    /**
+     * @return the dependencies of the given module.
+     */
+    public List<OutboundDependency> getDependencies(final Coordinates module) {
+        return this.dependencies.get(requireNonNull(module));
+    }
+
+    public RuleSet getRules() {
+        return this.rules;
+    }
+
+    public RuleSet getWhitelist() {
+        return this.whitelist;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private static String expression(final Random random,
+                                     final List<Coordinates> modules,
+                                     final int areaCount,
+                                     final double wildcardDensity) {
+        if (random.nextDouble() >= wildcardDensity) {
+            return modules.get(random.nextInt(modules.size())).getCanonicalString();
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                return "sfdc.area" + random.nextInt(areaCount) + ":*";
+            case 1:
+                return "sfdc.area" + random.nextInt(areaCount) + "*:module1*";
+            case 2:
+                return "*:module*" + random.nextInt(10);
+            default:
+                return "sfdc.*:*";
+        }
+    }
+}
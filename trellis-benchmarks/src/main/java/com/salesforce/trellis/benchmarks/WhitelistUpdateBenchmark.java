@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.config.ConfigException;
+import com.salesforce.trellis.config.FileAdapter;
+import com.salesforce.trellis.config.YamlConfigBuilder;
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.DependencyScope;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import com.salesforce.trellis.whitelist.Whitelister;
+import com.salesforce.trellis.whitelist.Whitelister.PerModuleWhitelister;
+import com.salesforce.trellis.whitelist.builder.WhitelisterBuilder;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.salesforce.trellis.benchmarks.BenchmarkSupport.failingParserListener;
+import static com.salesforce.trellis.benchmarks.BenchmarkSupport.noopMavenHelper;
+import static com.salesforce.trellis.benchmarks.BenchmarkSupport.write;
+
+/**
+ * Measures updating a big whitelist file for a single module, which update-whitelists does for every module in the
+ * reactor.  That's reading the file, stripping and appending the module's rules, consolidating and canonicalizing
+ * them, and writing the file back out.
+ * <p>
+ * The generated whitelist is unconsolidated (one rule per whitelisted dependency, the way they're first appended),
+ * and the number of distinct reasons controls how many groups consolidation has to sort the rules into.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhitelistUpdateBenchmark {
+
+    // ===================================================================
+    // Constants
+
+    private static final DependencyScope COMPILE_SCOPE = DependencyScope.parse("compile");
+
+    // ===================================================================
+    // Parameters
+
+    @Param({"50000"})
+    public int whitelistRules;
+
+    @Param({"1", "5000"})
+    public int distinctReasons;
+
+    // ===================================================================
+    // Fields
+
+    private Path dir;
+    private Whitelister whitelister;
+    private int moduleNumber;
+
+    // ===================================================================
+    // Setup
+
+    @Setup
+    public void setup() throws IOException, ConfigException, RuleBuildingException {
+        this.dir = Files.createTempDirectory("WhitelistUpdateBenchmark");
+        final Path rulesFile = this.dir.resolve("rules.yaml");
+        write(rulesFile, "rules:\n- action: DENY\n  from: ['sfdc.*:*']\n  to: ['org.*:*']\n" +
+            "  whitelist: whitelist.yaml\n");
+        final Random random = new Random(42);
+        final StringBuilder sb = new StringBuilder();
+        sb.append("rules:\n");
+        for (int i = 0; i < this.whitelistRules; i++) {
+            sb.append("\n- action: WARN\n  from:\n  - sfdc.area").append(random.nextInt(50)).append(":module")
+                .append(random.nextInt(1000)).append("\n  to:\n  - org.lib").append(random.nextInt(5000))
+                .append(":lib\n  reason: Reason number ").append(random.nextInt(this.distinctReasons))
+                .append("\n  scope: compile\n");
+        }
+        write(this.dir.resolve("whitelist.yaml"), sb.toString());
+        final WhitelisterBuilder wb = WhitelisterBuilder.create();
+        YamlConfigBuilder.create().addFile(FileAdapter.forPath(rulesFile)).mavenHelper(noopMavenHelper())
+            .build().applyTo(wb, failingParserListener());
+        this.whitelister = wb.build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+    // ===================================================================
+    // Benchmarks
+
+    @Benchmark
+    public void updateModule() {
+        // each module can only be processed once per whitelister, so every invocation uses a new one
+        final PerModuleWhitelister wl =
+            this.whitelister.getWhitelister(Coordinates.parse("sfdc.bench:module" + this.moduleNumber++));
+        wl.notifyDependency(OutboundDependency.create(Coordinates.parse("org.lib0:lib"), COMPILE_SCOPE, true, false));
+        wl.notifyDone();
+    }
+}
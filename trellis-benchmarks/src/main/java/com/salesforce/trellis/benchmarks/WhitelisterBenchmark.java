@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import com.salesforce.trellis.whitelist.Whitelister;
+import com.salesforce.trellis.whitelist.builder.WhitelistListener;
+import com.salesforce.trellis.whitelist.builder.WhitelistedDependency;
+import com.salesforce.trellis.whitelist.builder.WhitelisterBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures PerModuleWhitelister.notifyDependency() over every dependency of a SyntheticReactor, which is what the
+ * whitelist updater does.  The listener just counts, so this is the cost of the checks alone.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhitelisterBenchmark {
+
+    // ===================================================================
+    // Parameters
+
+    @Param({"500"})
+    public int moduleCount;
+
+    @Param({"1000"})
+    public int ruleCount;
+
+    @Param({"0.1", "0.5"})
+    public double wildcardDensity;
+
+    // ===================================================================
+    // Fields
+
+    private SyntheticReactor reactor;
+    private Whitelister whitelister;
+    private long whitelisted;
+
+    // ===================================================================
+    // Setup
+
+    @Setup
+    public void setup() throws RuleBuildingException {
+        this.reactor = SyntheticReactor.generate(this.moduleCount, this.ruleCount, 0, this.wildcardDensity, 42);
+        this.whitelister = WhitelisterBuilder.create().add(this.reactor.getRules(), new WhitelistListener() {
+            @Override
+            public void notifyWhitelisted(final WhitelistedDependency dependency) {
+                whitelisted++;
+            }
+
+            @Override
+            public void notifyModuleProcessed(final Coordinates fromModule) {
+            }
+        }).build();
+    }
+
+    // ===================================================================
+    // Benchmarks
+
+    @Benchmark
+    public long notifyDependency() {
+        for (final Coordinates module : this.reactor.getModules()) {
+            final Whitelister.PerModuleWhitelister pmw = this.whitelister.getWhitelister(module);
+            if (pmw == null) continue;
+            for (final OutboundDependency dep : this.reactor.getDependencies(module)) {
+                pmw.notifyDependency(dep);
+            }
+            pmw.notifyDone();
+        }
+        return this.whitelisted;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.builder.RuleAction;
+import com.salesforce.trellis.rules.builder.RuleDistance;
+import com.salesforce.trellis.rules.builder.RuleOptionality;
+import com.salesforce.trellis.rules.impl.DependencyScopeFactory.MavenDependencyScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sorting a module's worth of rules, which is what PerModuleRulesImpl does when it's created.  The rules
+ * look like what a big generated whitelist produces: lots of SimpleMatcher rules with a handful of wildcards and
+ * exceptions mixed in.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleSortBenchmark {
+
+    // ===================================================================
+    // Parameters
+
+    @Param({"10000"})
+    public int ruleCount;
+
+    // ===================================================================
+    // Fields
+
+    private List<Rule> rules;
+
+    // ===================================================================
+    // Setup
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final MavenDependencyScope[] scopes = MavenDependencyScope.values();
+        final RuleAction[] actions = RuleAction.values();
+        this.rules = new ArrayList<>(this.ruleCount);
+        for (int i = 0; i < this.ruleCount; i++) {
+            final Matcher from = new SimpleMatcher(Coordinates.of("sfdc.module" + random.nextInt(50), "impl"));
+            final Matcher to;
+            switch (random.nextInt(10)) {
+                case 0:
+                    to = new WildcardMatcher("sfdc.group" + random.nextInt(20) + ":*");
+                    break;
+                case 1:
+                    to = AndMatcher.get(new WildcardMatcher("*:*-api"),
+                        NotMatcher.get(new SimpleMatcher(Coordinates.of("sfdc.x" + random.nextInt(20), "x-api"))));
+                    break;
+                default:
+                    to = new SimpleMatcher(Coordinates.of("sfdc.lib" + random.nextInt(500), "lib" + i));
+            }
+            final Set<MavenDependencyScope> ruleScopes = random.nextBoolean() ?
+                EnumSet.copyOf(MavenDependencyScope.ANY) :
+                EnumSet.of(scopes[random.nextInt(scopes.length)], scopes[random.nextInt(scopes.length)]);
+            this.rules.add(new Rule(from, to,
+                PermissibilityImpl.create(actions[random.nextInt(actions.length)],
+                    random.nextBoolean() ? null : "reason" + random.nextInt(5)),
+                ruleScopes, RuleDistance.ANY, RuleOptionality.ANY));
+        }
+        Collections.shuffle(this.rules, random);
+    }
+
+    // ===================================================================
+    // Benchmarks
+
+    @Benchmark
+    public List<Rule> sort() {
+        final List<Rule> sorted = new ArrayList<>(this.rules);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.salesforce.trellis.rules.Coordinates;
+import org.apache.commons.io.FilenameUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled WildcardMatcher against calling FilenameUtils.wildcardMatch on the canonical string, which
+ * is what WildcardMatcher used to do.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WildcardMatcherBenchmark {
+
+    // ===================================================================
+    // Parameters
+
+    @Param({"*:*", "sfdc.core:*", "*:*-api", "sfdc.*:*-impl", "*core*:foo*api", "s?dc.*.ui*"})
+    public String expression;
+
+    // ===================================================================
+    // Fields
+
+    private WildcardMatcher matcher;
+    private Coordinates[] coordinates;
+
+    // ===================================================================
+    // Setup
+
+    @Setup
+    public void setup() {
+        this.matcher = new WildcardMatcher(this.expression);
+        final String[] groups = {"sfdc.core", "sfdc.ui", "sfdc.platform.core", "org.apache.commons", "com.google"};
+        final String[] artifacts = {"foo-api", "foo-impl", "bar-api-test", "core-utils", "ui-components"};
+        this.coordinates = new Coordinates[groups.length * artifacts.length];
+        int i = 0;
+        for (final String g : groups) {
+            for (final String a : artifacts) {
+                this.coordinates[i++] = Coordinates.of(g, a);
+            }
+        }
+    }
+
+    // ===================================================================
+    // Benchmarks
+
+    @Benchmark
+    public void compiled(final Blackhole bh) {
+        for (final Coordinates c : this.coordinates) {
+            bh.consume(this.matcher.matches(c));
+        }
+    }
+
+    @Benchmark
+    public void filenameUtils(final Blackhole bh) {
+        for (final Coordinates c : this.coordinates) {
+            bh.consume(FilenameUtils.wildcardMatch(c.getCanonicalString(), this.expression));
+        }
+    }
+}
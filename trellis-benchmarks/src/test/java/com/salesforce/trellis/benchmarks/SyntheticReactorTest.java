@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.benchmarks;
+
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.DependencyScope;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.RuleSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Tests of the benchmark plumbing.  The benchmarks are only comparable from run to run if the reactor they run
+ * against is the same every time.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public class SyntheticReactorTest {
+
+    @Test
+    public void testRepeatable() throws Exception {
+        final SyntheticReactor a = SyntheticReactor.generate(100, 50, 200, 0.5, 42);
+        final SyntheticReactor b = SyntheticReactor.generate(100, 50, 200, 0.5, 42);
+        assertEquals(100, a.getModules().size());
+        assertEquals(a.getModules(), b.getModules());
+        assertEquals(describe(a), describe(b));
+        assertNotEquals(describe(a), describe(SyntheticReactor.generate(100, 50, 200, 0.5, 43)));
+    }
+
+    @Test
+    public void testDependencies() throws Exception {
+        final SyntheticReactor reactor = SyntheticReactor.generate(100, 50, 200, 0.5, 42);
+        for (final Coordinates module : reactor.getModules()) {
+            final List<OutboundDependency> deps = reactor.getDependencies(module);
+            assertEquals(30, deps.size());
+            for (final OutboundDependency dep : deps) assertNotEquals(module, dep.getTo());
+        }
+        // area0 isn't allowed to use third-party libraries unless a generated rule or the whitelist says otherwise
+        final RuleSet.PerModuleRules rules = reactor.getRules().getRulesFor(Coordinates.of("sfdc.area0", "module0"));
+        assertNotNull(rules);
+        assertFalse(rules.checkDependency(OutboundDependency.create(Coordinates.of("org.lib0", "lib0"),
+            DependencyScope.parse("compile"), true, false)).isPermissible());
+    }
+
+    @Test
+    public void testBadArguments() throws Exception {
+        try {
+            SyntheticReactor.generate(0, 50, 200, 0.5, 42);
+            fail("did not get expected exception");
+        } catch (IllegalArgumentException expected) {}
+        try {
+            SyntheticReactor.generate(100, 50, 200, 1.5, 42);
+            fail("did not get expected exception");
+        } catch (IllegalArgumentException expected) {}
+    }
+
+    @Test
+    public void testBenchmarkMainDefaults() {
+        assertArrayEquals(new String[]{"-rf", "json", "RuleSetBenchmark"},
+            BenchmarkMain.withDefaults(new String[]{"RuleSetBenchmark"}));
+        final String[] csv = {"-rf", "csv", "RuleSetBenchmark"};
+        assertArrayEquals(csv, BenchmarkMain.withDefaults(csv));
+        assertArrayEquals(new String[]{"-rf", "json"}, BenchmarkMain.withDefaults(new String[0]));
+    }
+
+    private static List<String> describe(final SyntheticReactor reactor) {
+        final List<String> out = new ArrayList<>();
+        for (final Coordinates module : reactor.getModules()) {
+            final RuleSet.PerModuleRules rules = reactor.getRules().getRulesFor(module);
+            for (final OutboundDependency dep : reactor.getDependencies(module)) {
+                out.add(module + " -> " + dep.getTo() + " " + dep.getScope() + " " + dep.isDirect() + " " +
+                    dep.isOptional() + " " + (rules == null ? "none" : rules.checkDependency(dep).getReason()));
+            }
+        }
+        return out;
+    }
+}
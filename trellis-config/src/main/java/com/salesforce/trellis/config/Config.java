@@ -22,6 +22,13 @@ public interface Config {
      */
     void applyTo(RuleSetBuilder rulesBuilder, ParserListener listenerOrNull) throws ConfigException;
 
+    /**
+     * @return the files that went into the rules from the most recent call to applyTo(RuleSetBuilder, ...), as they
+     * were when they were read.  Empty if the rules haven't been successfully applied, or if the config wasn't built
+     * to record them; see YamlConfigBuilder.recordRuleInputs().
+     */
+    RuleInputs getRuleInputs();
+
     /**
      * Applies this configuration to the given whitelister builder.
      */
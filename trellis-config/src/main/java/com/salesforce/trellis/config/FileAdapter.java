@@ -6,11 +6,15 @@
  */
 package com.salesforce.trellis.config;
 
+import com.google.common.io.CharStreams;
 import com.salesforce.trellis.config.impl.PathFileAdapter;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
@@ -42,7 +46,17 @@ public interface FileAdapter {
     Reader getReader() throws IOException;
 
     /**
-     * @return a writer on the file contents.  The file must exist.
+     * @return the raw bytes of the file contents, which are expected to be UTF-8.  The file must exist.  This is the
+     * faster way to read a file; the default implementation just re-encodes whatever getReader() returns.
+     */
+    default InputStream getInputStream() throws IOException {
+        try (final Reader reader = getReader()) {
+            return new ByteArrayInputStream(CharStreams.toString(reader).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return a buffered writer on the file contents, which will be encoded as UTF-8.  The file must exist.
      */
     Writer getWriter() throws IOException;
 
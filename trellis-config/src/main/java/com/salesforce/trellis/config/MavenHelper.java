@@ -39,4 +39,12 @@ public interface MavenHelper {
      * values.  The given Properties take precedence in the case of conflicts.
      */
     Function<String, String> createInterpolator(final Properties additionalProperties);
+
+    /**
+     * @return all of the property values that getInterpolator() substitutes, or null if they can't be listed.  Compiled
+     * rules are only cached when this is non-null, since they have to be thrown away whenever a property changes.
+     */
+    default Properties getProperties() {
+        return null;
+    }
 }
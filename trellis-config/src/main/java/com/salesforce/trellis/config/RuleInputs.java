@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.config;
+
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * The files and properties that a set of compiled rules was built from, as they were when they were read.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public interface RuleInputs {
+
+    /**
+     * @return the locations of all of the files: the config files, their imports and whitelists, and any poms named
+     * in pomDependencies.  Files that were referenced but didn't exist are included.
+     */
+    Collection<String> getLocations();
+
+    /**
+     * Checks whether the rules need to be compiled again: whether any of the files have been created, modified or
+     * deleted since they were read, or any of the properties that the config refers to have a different value in the
+     * given properties.  File contents are compared with what was read, except for files whose size and timestamp
+     * haven't changed since the last time that was done.  Properties the config doesn't refer to don't matter.
+     * <p>
+     * Rules that were compiled with warnings always need to be compiled again, so that the warnings are repeated.
+     *
+     * @param properties the properties that the rules would be compiled with now.
+     * @return true if the rules need to be compiled again.  Files that can't be read count as changed.
+     */
+    boolean isChanged(Properties properties);
+}
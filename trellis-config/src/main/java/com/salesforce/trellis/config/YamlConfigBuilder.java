@@ -9,6 +9,8 @@ package com.salesforce.trellis.config;
 import com.salesforce.trellis.config.impl.YamlConfigBuilderImpl;
 import org.slf4j.Logger;
 
+import java.nio.file.Path;
+
 /**
  * Use this to set up the config for a set coordinates config to be parsed into a single set coordinates rules.
  *
@@ -34,6 +36,35 @@ public interface YamlConfigBuilder {
      */
     YamlConfigBuilder addFile(final FileAdapter file);
 
+    /**
+     * Specify a directory in which compiled rules can be cached between builds.  Caching only happens if the
+     * MavenHelper can supply its properties.  Optional; by default, nothing is cached.
+     *
+     * @param version the version of trellis that is running (e.g., the plugin version).  Rules cached by any other
+     * version are not used.
+     */
+    YamlConfigBuilder cacheDirectory(final Path directory, final String version);
+
+    /**
+     * Specify whether Config.getRuleInputs() should report the files and properties that went into the rules, so that
+     * callers can tell whether they've changed.  That means hashing every file that is read, so it's off unless asked
+     * for (or a cache directory is set, which needs the same information).  Optional; defaults to false.
+     */
+    YamlConfigBuilder recordRuleInputs(final boolean record);
+
+    /**
+     * Specify how many threads may be used to read and parse files concurrently.  The results are the same
+     * regardless.  Optional; defaults to 1.
+     */
+    YamlConfigBuilder parseThreads(final int threads);
+
+    /**
+     * Specify whether whitelist files should only be written when Whitelister.flush() is called, rather than
+     * after each module is processed.  Deferring is much faster when many modules share a whitelist, but the caller
+     * must be sure to flush.  Optional; defaults to false.
+     */
+    YamlConfigBuilder deferWhitelistWrites(final boolean deferWrites);
+
     /**
      * Specify a logger to use.
      */
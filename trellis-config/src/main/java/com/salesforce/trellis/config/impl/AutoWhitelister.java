@@ -19,21 +19,30 @@ import org.slf4j.Logger;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Listens for whitelisting events and updates the yaml config files as appropriate.  This is the core of the
  * implementation for whitelists that specify a 'file' property.
+ * <p>
+ * By default, the file is rewritten as soon as each module has been processed.  If writes are deferred, the results
+ * for each module are instead collected in memory and the file is rewritten just once, when flush() is called.  The
+ * file comes out the same either way; consolidating and canonicalizing the rules makes the output independent of the
+ * order in which modules were processed.
  *
  * @author pcal
  * @since 0.0.1
@@ -49,6 +58,8 @@ class AutoWhitelister implements WhitelistListener {
     private final String headerCommentOrNull;
     private final Logger logger;
     private final RuleAction action;
+    private final boolean deferWrites;
+    private final ConcurrentMap<Coordinates, Set<WhitelistedDependency>> pendingUpdates = new ConcurrentHashMap<>();
 
     // ===================================================================
     // Constructor
@@ -57,6 +68,15 @@ class AutoWhitelister implements WhitelistListener {
                     final RuleAction action,
                     final String headerCommentOrNull,
                     final Logger logger) {
+        this(whitelistFile, action, headerCommentOrNull, false, logger);
+    }
+
+    AutoWhitelister(final FileAdapter whitelistFile,
+                    final RuleAction action,
+                    final String headerCommentOrNull,
+                    final boolean deferWrites,
+                    final Logger logger) {
+        this.deferWrites = deferWrites;
         this.whitelistFile = requireNonNull(whitelistFile);
         this.action = requireNonNull(action);
         this.headerCommentOrNull = headerCommentOrNull;
@@ -83,16 +103,42 @@ class AutoWhitelister implements WhitelistListener {
         if (deps == null || deps.size() == 0) {
             logger.debug("no whitelists notifications received for " + fromModule);
         }
+        if (this.deferWrites) {
+            this.pendingUpdates.put(fromModule, deps);
+            return;
+        }
         try {
             // FIXME synchronize on specific config instead
             synchronized (AutoWhitelister.class) {
-                updateFile(fromModule, deps);
+                updateFile(Collections.singleton(fromModule), deps);
             }
         } catch (IOException e) {
             Throwables.propagate(e); //FIXME
         }
     }
 
+    @Override
+    public void flush() throws IOException {
+        final Map<Coordinates, Set<WhitelistedDependency>> updates = new HashMap<>();
+        for (final Coordinates module : new ArrayList<>(this.pendingUpdates.keySet())) {
+            final Set<WhitelistedDependency> deps = this.pendingUpdates.remove(module);
+            if (deps != null) updates.put(module, deps);
+        }
+        if (updates.isEmpty()) return;
+        final Set<WhitelistedDependency> allDeps = new HashSet<>();
+        updates.values().forEach(allDeps::addAll);
+        logger.debug("updating " + this.whitelistFile + " for " + updates.size() + " modules");
+        try {
+            synchronized (AutoWhitelister.class) {
+                updateFile(updates.keySet(), allDeps);
+            }
+        } catch (IOException | RuntimeException e) {
+            // put them back so that a later flush can try again
+            updates.forEach(this.pendingUpdates::putIfAbsent);
+            throw e;
+        }
+    }
+
     // ===================================================================
     // Exposed for unit testing
 
@@ -114,6 +160,11 @@ class AutoWhitelister implements WhitelistListener {
 
     void stripRulesFrom(final Coordinates fromModule, final YamlModel whitelistModel) {
         requireNonNull(fromModule, "null fromModule");
+        stripRulesFrom(Collections.singleton(fromModule), whitelistModel);
+    }
+
+    void stripRulesFrom(final Set<Coordinates> fromModules, final YamlModel whitelistModel) {
+        requireNonNull(fromModules, "null fromModules");
         requireNonNull(whitelistModel, "null whitelistModel");
         if (whitelistModel.getRules() == null) return;
         final List<RuleModel> rulesCopy = new ArrayList<>(whitelistModel.getRules());
@@ -123,7 +174,7 @@ class AutoWhitelister implements WhitelistListener {
             final List<SourceLocatableString> from = new ArrayList<>(rule.getFrom());
             for (final Iterator<SourceLocatableString> f = from.iterator(); f.hasNext(); ) {
                 final Coordinates existing = Coordinates.parse(f.next().toString());
-                if (fromModule.equals(existing)) f.remove();
+                if (fromModules.contains(existing)) f.remove();
             }
             if (from.isEmpty()) {
                 i.remove();
@@ -137,9 +188,9 @@ class AutoWhitelister implements WhitelistListener {
     // ===================================================================
     // Private methods
 
-    private void updateFile(final Coordinates fromModule, final Set<WhitelistedDependency> whitelistedDeps)
+    private void updateFile(final Set<Coordinates> fromModules, final Set<WhitelistedDependency> whitelistedDeps)
         throws IOException {
-        requireNonNull(fromModule);
+        requireNonNull(fromModules);
         requireNonNull(whitelistedDeps);
         try {
             // test for the file existence before we enter the execute block, because opening the FileChannel will
@@ -148,9 +199,9 @@ class AutoWhitelister implements WhitelistListener {
             this.whitelistFile.executeExclusiveWrite(() -> {
                 YamlModel whitelistModel;
                 if (whitelistFileExists) {
-                    try (final Reader fr = this.whitelistFile.getReader()) {
-                        whitelistModel = new YamlParser(this.whitelistFile).readValue(fr, YamlModel.class);
-                        stripRulesFrom(fromModule, whitelistModel);
+                    try (final InputStream in = this.whitelistFile.getInputStream()) {
+                        whitelistModel = new YamlParser(this.whitelistFile).readValue(in, YamlModel.class);
+                        stripRulesFrom(fromModules, whitelistModel);
                     }
                 } else {
                     whitelistModel = new YamlModel();
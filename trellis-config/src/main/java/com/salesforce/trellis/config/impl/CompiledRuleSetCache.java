@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.config.impl;
+
+import com.salesforce.trellis.config.FileAdapter;
+import com.salesforce.trellis.config.MavenHelper;
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.RuleSetSerializer;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps compiled RuleSets on disk so that we don't have to re-parse all of the yaml files on every build.
+ * <p>
+ * There is one cache file for each distinct set of root config files and version of trellis.  Each one records every
+ * file that went into the RuleSet (the root files, their imports and whitelists, and any poms named in
+ * pomDependencies) along with a hash of its contents as it was when parsed, plus a hash of the value of every property
+ * that the config refers to.  An entry is only used if all of those still match, so changing any input simply causes
+ * the RuleSet to be rebuilt and the entry to be replaced.  Properties that the config doesn't refer to (which is
+ * usually most of them, e.g., the ones that come from the environment) don't matter.
+ * <p>
+ * Any problem reading an entry is treated as a miss, and problems writing one are logged and otherwise ignored; the
+ * cache should never be the reason a build fails.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+class CompiledRuleSetCache {
+
+    // ===================================================================
+    // Constants
+
+    private static final int MAGIC = 0x7E11151;
+
+    /**
+     * Must be changed whenever the layout of the cache files changes.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String PROPERTY_MARKER = "${";
+
+    // ===================================================================
+    // Fields
+
+    private final Path directory;
+    private final String version;
+    private final Logger logger;
+
+    // ===================================================================
+    // Constructor
+
+    /**
+     * @param version the version of trellis that is doing the caching.  Rules cached by any other version are
+     * ignored, since they might not mean the same thing to this one.
+     */
+    CompiledRuleSetCache(final Path directory, final String version, final Logger logger) {
+        this.directory = requireNonNull(directory);
+        this.version = requireNonNull(version);
+        this.logger = requireNonNull(logger);
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @param inputsOut if the RuleSet is found, the locations of all of the files that went into it are added to this,
+     * mapped to the hashes of their contents.
+     * @param propertyHashesOut if the RuleSet is found, the names of the properties that the config refers to are
+     * added to this, mapped to the hashes of their values.
+     * @return the cached RuleSet for the given root files and properties, or null if there isn't one or if any of its
+     * inputs have changed.
+     */
+    RuleSet load(final List<FileAdapter> roots,
+                 final Properties properties,
+                 final Map<String, String> inputsOut,
+                 final Map<String, String> propertyHashesOut) {
+        final Path cacheFile = getCacheFile(roots);
+        if (!Files.exists(cacheFile)) return null;
+        try (final InputStream in = Files.newInputStream(cacheFile)) {
+            final DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+            if (dis.readInt() != MAGIC) return null;
+            final int propertyCount = dis.readInt();
+            final Map<String, String> propertyHashes = new LinkedHashMap<>();
+            for (int i = 0; i < propertyCount; i++) {
+                final String name = dis.readUTF();
+                final String expectedHash = dis.readUTF();
+                propertyHashes.put(name, expectedHash);
+                if (!expectedHash.equals(ContentHashes.hash(properties.getProperty(name)))) {
+                    logger.debug("property " + name + " has changed, not using " + cacheFile);
+                    return null;
+                }
+            }
+            final int inputCount = dis.readInt();
+            final Map<String, String> inputs = new LinkedHashMap<>();
+            for (int i = 0; i < inputCount; i++) {
+                final String location = dis.readUTF();
+                final String expectedHash = dis.readUTF();
+                inputs.put(location, expectedHash);
+                if (!expectedHash.equals(ContentHashes.hash(FileAdapter.forPath(Paths.get(location))))) {
+                    logger.debug(location + " has changed, not using " + cacheFile);
+                    return null;
+                }
+            }
+            final RuleSet out = RuleSetSerializer.create().read(dis);
+            inputsOut.putAll(inputs);
+            propertyHashesOut.putAll(propertyHashes);
+            logger.debug("using compiled rules from " + cacheFile);
+            return out;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("ignoring unreadable " + cacheFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the given RuleSet for the given root files and properties.
+     *
+     * @param propertyNames the names of all of the properties that the config refers to.
+     * @param inputs the locations of all of the files that went into the RuleSet, mapped to the hashes of their
+     *               contents (or to ContentHashes.ABSENT).
+     */
+    void store(final List<FileAdapter> roots,
+               final Properties properties,
+               final Collection<String> propertyNames,
+               final Map<String, String> inputs,
+               final RuleSet rules) {
+        final Path cacheFile = getCacheFile(roots);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(this.directory);
+            tempFile = Files.createTempFile(this.directory, cacheFile.getFileName().toString(), ".tmp");
+            try (final OutputStream out = Files.newOutputStream(tempFile)) {
+                final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+                dos.writeInt(MAGIC);
+                final List<String> names = new ArrayList<>(propertyNames);
+                Collections.sort(names);
+                dos.writeInt(names.size());
+                for (final String name : names) {
+                    dos.writeUTF(name);
+                    // only the hash is saved, since the value might be something that shouldn't be left lying around
+                    dos.writeUTF(ContentHashes.hash(properties.getProperty(name)));
+                }
+                dos.writeInt(inputs.size());
+                for (final Map.Entry<String, String> input : inputs.entrySet()) {
+                    dos.writeUTF(input.getKey());
+                    dos.writeUTF(input.getValue());
+                }
+                RuleSetSerializer.create().write(rules, dos);
+                dos.flush();
+            }
+            // other modules in a parallel build may be doing the same thing, so never expose a partial file
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("saved compiled rules to " + cacheFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("failed to save compiled rules to " + cacheFile + ": " + e.getMessage());
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @param inputs the hash of every pom that getDependenciesFromPom() reads is recorded here.
+     * @param propertyNamesOut the name of every property referred to by strings that are interpolated, or by the
+     * values of those properties, is added to this.  Interpolation happens on the parser threads, so this must be
+     * thread-safe.
+     * @return a MavenHelper that delegates to the given one, but also records everything it is asked for that
+     * could affect the RuleSet.
+     */
+    static MavenHelper recordInputs(final MavenHelper delegate,
+                                    final Map<String, String> inputs,
+                                    final Set<String> propertyNamesOut) {
+        requireNonNull(delegate);
+        requireNonNull(inputs);
+        requireNonNull(propertyNamesOut);
+        return new MavenHelper() {
+            @Override
+            public Set<Coordinates> getDependenciesFromPom(final Path pathToPom) throws IOException {
+                final Path pom = pathToPom.toAbsolutePath();
+                inputs.put(pom.toString(), ContentHashes.hash(FileAdapter.forPath(pom)));
+                return delegate.getDependenciesFromPom(pathToPom);
+            }
+
+            @Override
+            public Function<String, String> getInterpolator() {
+                final Function<String, String> interpolator = delegate.getInterpolator();
+                return s -> {
+                    recordReferences(s, null, delegate.getProperties(), propertyNamesOut, new HashSet<>());
+                    return interpolator.apply(s);
+                };
+            }
+
+            @Override
+            public Function<String, String> createInterpolator(final Properties additionalProperties) {
+                final Function<String, String> interpolator = delegate.createInterpolator(additionalProperties);
+                return s -> {
+                    recordReferences(s, additionalProperties, delegate.getProperties(), propertyNamesOut,
+                        new HashSet<>());
+                    return interpolator.apply(s);
+                };
+            }
+
+            @Override
+            public Properties getProperties() {
+                return delegate.getProperties();
+            }
+        };
+    }
+
+    // ===================================================================
+    // Private methods
+
+    /**
+     * Adds the names of the properties referred to in the given string to the given set, along with those referred
+     * to by their values, which get interpolated in turn.
+     */
+    private static void recordReferences(final String s,
+                                         final Properties additionalPropertiesOrNull,
+                                         final Properties propertiesOrNull,
+                                         final Set<String> propertyNamesOut,
+                                         final Set<String> visited) {
+        for (int start = s.indexOf(PROPERTY_MARKER); start >= 0; start = s.indexOf(PROPERTY_MARKER, start + 1)) {
+            final int end = s.indexOf('}', start);
+            if (end < 0) return;
+            final String name = s.substring(start + PROPERTY_MARKER.length(), end);
+            propertyNamesOut.add(name);
+            if (!visited.add(name)) continue;
+            String value = additionalPropertiesOrNull == null ? null : additionalPropertiesOrNull.getProperty(name);
+            if (value == null && propertiesOrNull != null) value = propertiesOrNull.getProperty(name);
+            if (value != null) {
+                recordReferences(value, additionalPropertiesOrNull, propertiesOrNull, propertyNamesOut, visited);
+            }
+        }
+    }
+
+    private Path getCacheFile(final List<FileAdapter> roots) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(FORMAT_VERSION).append('\n');
+        sb.append(RuleSetSerializer.FORMAT_VERSION).append('\n');
+        sb.append(this.version).append('\n');
+        for (final FileAdapter root : roots) sb.append(root.getLocation()).append('\n');
+        final String key = ContentHashes.hash(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return this.directory.resolve("rules-" + key.substring(0, 16) + ".bin");
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.config.impl;
+
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.salesforce.trellis.config.FileAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The hashes we use to tell whether the inputs to a RuleSet have changed.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+class ContentHashes {
+
+    /**
+     * Recorded as the hash for inputs that were referenced but didn't exist.
+     */
+    static final String ABSENT = "-";
+
+    private ContentHashes() {
+    }
+
+    /**
+     * @return the full contents of the given file, read while holding the file's read lock.
+     */
+    static byte[] readContent(final FileAdapter file) throws IOException {
+        try {
+            return file.executeExclusiveRead(() -> {
+                try (final InputStream in = file.getInputStream()) {
+                    return ByteStreams.toByteArray(in);
+                }
+            });
+        } catch (Exception e) {
+            Throwables.propagateIfPossible(e, IOException.class);
+            throw new RuntimeException("unexpected exception type", e);
+        }
+    }
+
+    /**
+     * @return the hash we use to detect changes in file contents.
+     */
+    static String hash(final byte[] content) {
+        return Hashing.sha256().hashBytes(content).toString();
+    }
+
+    /**
+     * @return the hash of the given file's contents, or ABSENT if it doesn't exist.
+     */
+    static String hash(final FileAdapter file) throws IOException {
+        return file.exists() ? hash(readContent(file)) : ABSENT;
+    }
+
+    /**
+     * @return the hash of the given property value, or ABSENT if it isn't set.
+     */
+    static String hash(final String propertyValueOrNull) {
+        return propertyValueOrNull == null ? ABSENT : hash(propertyValueOrNull.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.config.impl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Per-file locks that are shared by every copy of trellis in the JVM.
+ * <p>
+ * In a parallel build in a multi-module project, maven can decide to create new instances of plugins in new
+ * classloaders, seemingly at random.  So a static map of locks isn't good enough; each classloader would get its own.
+ * Instead, the maps are stashed in the system properties, and they only contain JDK classes, which all of the
+ * classloaders share.
+ * <p>
+ * Each file gets a ReadWriteLock (keyed by canonical path) so that readers of the same file don't block each other
+ * and unrelated files never contend at all.  On top of that, we hold an OS-level FileLock so that other processes
+ * stay out.  The JVM won't let two channels hold overlapping FileLocks on the same file, even shared ones, so
+ * concurrent readers share a single FileLock, which is released by the last reader out.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class FileLockRegistry {
+
+    // ===================================================================
+    // Constants
+
+    private static final String LOCKS_PROPERTY = "com.salesforce.trellis.fileLocks";
+    private static final String SHARED_OS_LOCKS_PROPERTY = "com.salesforce.trellis.sharedOsFileLocks";
+
+    /**
+     * The ReadWriteLock for each file.  The lock object is also the monitor that guards the file's entry in
+     * SHARED_OS_LOCKS.
+     */
+    private static final ConcurrentMap<String, ReentrantReadWriteLock> LOCKS = getSharedMap(LOCKS_PROPERTY);
+
+    /**
+     * The OS-level FileLock currently held on behalf of all of a file's readers, if any.
+     */
+    private static final ConcurrentMap<String, FileLock> SHARED_OS_LOCKS = getSharedMap(SHARED_OS_LOCKS_PROPERTY);
+
+    // ===================================================================
+    // Constructor
+
+    private FileLockRegistry() {
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * Calls the given callable while holding non-exclusive locks on the given file, which must exist.
+     */
+    static <T> T executeShared(final Path path, final Callable<T> callable) throws Exception {
+        requireNonNull(callable);
+        final String key = getKey(path);
+        final ReentrantReadWriteLock lock = LOCKS.computeIfAbsent(key, k -> new ReentrantReadWriteLock());
+        lock.readLock().lock();
+        try {
+            acquireSharedOsLock(key, path, lock);
+            try {
+                return callable.call();
+            } finally {
+                releaseSharedOsLock(key, lock);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Calls the given callable while holding exclusive locks on the given file, creating it if necessary.
+     */
+    static <T> T executeExclusive(final Path path, final Callable<T> callable) throws Exception {
+        requireNonNull(callable);
+        final ReentrantReadWriteLock lock = LOCKS.computeIfAbsent(getKey(path), k -> new ReentrantReadWriteLock());
+        lock.writeLock().lock();
+        try (final FileChannel fileChannel = FileChannel.open(path, READ, WRITE, CREATE);
+             final FileLock osLock = fileChannel.lock(0L, Long.MAX_VALUE, false)) {
+            return callable.call();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private static void acquireSharedOsLock(final String key,
+                                            final Path path,
+                                            final ReentrantReadWriteLock lock) throws IOException {
+        synchronized (lock) {
+            if (SHARED_OS_LOCKS.containsKey(key)) return;
+            final FileChannel fileChannel = FileChannel.open(path, READ);
+            try {
+                SHARED_OS_LOCKS.put(key, fileChannel.lock(0L, Long.MAX_VALUE, true));
+            } catch (IOException | RuntimeException e) {
+                fileChannel.close();
+                throw e;
+            }
+        }
+    }
+
+    private static void releaseSharedOsLock(final String key, final ReentrantReadWriteLock lock) throws IOException {
+        synchronized (lock) {
+            // we still hold our read lock, so anyone else holding one is still using the FileLock
+            if (lock.getReadLockCount() > 1) return;
+            final FileLock osLock = SHARED_OS_LOCKS.remove(key);
+            if (osLock != null) osLock.channel().close(); // this also releases the lock
+        }
+    }
+
+    private static String getKey(final Path path) {
+        try {
+            return path.toFile().getCanonicalPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize().toString();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> ConcurrentMap<String, V> getSharedMap(final String propertyName) {
+        final Properties properties = System.getProperties();
+        properties.putIfAbsent(propertyName, new ConcurrentHashMap<String, V>());
+        return (ConcurrentMap<String, V>) properties.get(propertyName);
+    }
+}
@@ -6,12 +6,10 @@
  */
 package com.salesforce.trellis.config.impl;
 
-import com.google.common.base.Throwables;
 import com.salesforce.trellis.config.FileAdapter;
 import com.salesforce.trellis.config.MavenHelper;
 
 import java.io.IOException;
-import java.util.concurrent.Callable;
 
 import static java.util.Objects.requireNonNull;
 
@@ -25,29 +23,33 @@ class ParsedYamlFile {
 
     /**
      * Parses the given rules file, substitutes properties and returns a struct containing the result.
+     *
+     * @param hashContent whether to compute getContentHash().  Hashing isn't free, so it's only done if something is
+     * going to check whether the file has changed.
      */
-    static ParsedYamlFile parse(final FileAdapter file, final MavenHelper mavenHelper) throws IOException {
-        final YamlModel rawModel;
-        try {
-            rawModel =
-                file.executeExclusiveRead(() -> new YamlParser(file).readValue(file.getReader(), YamlModel.class));
-        } catch (Exception e) {
-            Throwables.propagateIfPossible(e, IOException.class);
-            throw new RuntimeException("unexpected exception type", e);
-        }
+    static ParsedYamlFile parse(final FileAdapter file, final MavenHelper mavenHelper, final boolean hashContent)
+        throws IOException {
+        final byte[] content = ContentHashes.readContent(file);
+        final YamlModel rawModel = new YamlParser(file).readValue(content, YamlModel.class);
         final YamlModelInterpolator interpolator = new YamlModelInterpolator(mavenHelper, rawModel.getProperties());
-        final YamlModel model = interpolator.interpolate(rawModel);
-        return new ParsedYamlFile(file, model, interpolator);
+        // generated whitelists usually don't need interpolating at all
+        final YamlModel model = interpolator.isNoop(content) ? rawModel : interpolator.interpolate(rawModel);
+        return new ParsedYamlFile(file, model, interpolator, hashContent ? ContentHashes.hash(content) : null);
     }
 
     private final FileAdapter file;
     private final YamlModel model;
     private final YamlModelInterpolator interpolator;
+    private final String contentHashOrNull;
 
-    private ParsedYamlFile(FileAdapter file, YamlModel model, YamlModelInterpolator interpolator) {
+    private ParsedYamlFile(FileAdapter file,
+                           YamlModel model,
+                           YamlModelInterpolator interpolator,
+                           String contentHashOrNull) {
         this.file = requireNonNull(file);
         this.model = requireNonNull(model);
         this.interpolator = requireNonNull(interpolator);
+        this.contentHashOrNull = contentHashOrNull;
     }
 
     FileAdapter getFile() {
@@ -62,6 +64,13 @@ class ParsedYamlFile {
         return interpolator;
     }
 
+    /**
+     * @return a hash of the raw contents of the file, as of when it was parsed, or null if it wasn't asked for.
+     */
+    String getContentHash() {
+        return contentHashOrNull;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof ParsedYamlFile)) return false;
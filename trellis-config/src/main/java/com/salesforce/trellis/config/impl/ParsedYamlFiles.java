@@ -7,7 +7,11 @@
 package com.salesforce.trellis.config.impl;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.salesforce.trellis.config.FileAdapter;
 import com.salesforce.trellis.config.MavenHelper;
 import com.salesforce.trellis.config.impl.YamlModel.WhitelistModel;
@@ -17,10 +21,21 @@ import org.slf4j.Logger;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.util.Objects.requireNonNull;
 
@@ -39,7 +54,11 @@ class ParsedYamlFiles {
     private final MavenHelper mavenHelper;
     private final LinkedHashMap<FileAdapter, ParsedYamlFile> parsedFiles;
     private final Stack<ParsedYamlFile> cycleGuard;
+    private final Set<FileAdapter> missingFiles;
+    private final Map<FileAdapter, Future<ParsedYamlFile>> prefetched;
     private final boolean tolerateMissingWhitelists;
+    private final boolean hashContents;
+    private final int parseThreads;
     private final Logger logger;
 
     // ===================================================================
@@ -48,13 +67,20 @@ class ParsedYamlFiles {
     ParsedYamlFiles(final MavenHelper mavenHelper,
                     final ConfigErrorReporter errorLog,
                     boolean tolerateMissingWhitelists,
+                    final boolean hashContents,
+                    final int parseThreads,
                     final Logger logger) {
         this.parsedFiles = new LinkedHashMap<>();
         this.mavenHelper = requireNonNull(mavenHelper);
         this.errorLog = requireNonNull(errorLog);
         this.tolerateMissingWhitelists = tolerateMissingWhitelists;
+        this.hashContents = hashContents;
+        if (parseThreads < 1) throw new IllegalArgumentException("parseThreads must be positive: " + parseThreads);
+        this.parseThreads = parseThreads;
+        this.prefetched = new HashMap<>();
         this.logger = requireNonNull(logger);
         this.cycleGuard = new Stack<>();
+        this.missingFiles = new LinkedHashSet<>();
     }
 
     // ===================================================================
@@ -64,16 +90,21 @@ class ParsedYamlFiles {
      * Parses the given files and all of their imports and whitelists, recursively.  When this method returns, we will
      * contain the transitive closure of the referenced configuation rooted in the given files.
      * <p/>
-     * Any errors encountered will be repor        <dependency>
-     * <groupId>org.apache.commons</groupId>
-     * <artifactId>commons-lang3</artifactId>
-     * </dependency>
-     * ted to the provided ConfigErrorReporter; this method never throws.
+     * If we have more than one parse thread, all of the files are first read and parsed concurrently.  The results
+     * are then walked on the calling thread exactly as they would have been without the threads, so the ordering,
+     * cycle detection and error reporting are the same either way.
+     * <p/>
+     * Any errors encountered will be reported to the provided ConfigErrorReporter; this method never throws.
      */
     void parseAll(Collection<FileAdapter> files) {
         cycleGuard.clear();
         final Stopwatch sw = Stopwatch.createStarted();
-        files.forEach(f -> add(f));
+        if (this.parseThreads > 1) prefetch(files);
+        try {
+            files.forEach(f -> add(f));
+        } finally {
+            this.prefetched.clear();
+        }
         logger.info("Parsed " + files.size() + " trellis config file(s) in " + sw);
     }
 
@@ -85,6 +116,13 @@ class ParsedYamlFiles {
         return ImmutableList.copyOf(parsedFiles.values()); //they're already topo-sorted
     }
 
+    /**
+     * @return whitelist files that were referenced but didn't exist.  Creating one of them changes the configuration.
+     */
+    Set<FileAdapter> getMissingFiles() {
+        return ImmutableSet.copyOf(this.missingFiles);
+    }
+
     // ===================================================================
     // Private methods
 
@@ -107,9 +145,7 @@ class ParsedYamlFiles {
         logger.debug("processing " + file);
         final ParsedYamlFile pyf;
         try {
-            final Stopwatch sw = Stopwatch.createStarted();
-            pyf = ParsedYamlFile.parse(file, mavenHelper);
-            logger.debug("parsed and interpolated " + file + " in " + sw);
+            pyf = parse(file);
         } catch (IOException e) {
             errorLog.error(file, e);
             return null;
@@ -144,17 +180,11 @@ class ParsedYamlFiles {
 
     private void checkAndAddFile(final FileAdapter base, final SourceLocatableString file) {
         this.logger.debug("processing file " + file);
-        final Path wlPath = Paths.get(file.toString());
-        final FileAdapter wlFile;
-        if (!wlPath.isAbsolute()) {
-            wlFile = base.getRelativeFile(wlPath);
-        } else {
-            wlFile = FileAdapter.forPath(wlPath);
-        }
-
+        final FileAdapter wlFile = resolve(base, file);
         if (wlFile.exists()) {
             add(wlFile);
         } else {
+            this.missingFiles.add(wlFile);
             if (!this.tolerateMissingWhitelists) {
                 this.errorLog.error(file.getLocation(), "whitelist file does not exist: " + wlFile.getLocation());
             } else {
@@ -163,4 +193,95 @@ class ParsedYamlFiles {
             }
         }
     }
+
+    /**
+     * Reads and parses the given files and everything they reference using a pool of parseThreads threads, so that
+     * add() can just pick up the results.  Files are submitted as soon as we find a reference to them, so we never
+     * wait for one file before starting on the next.  Errors are left in the futures for add() to report.
+     */
+    private void prefetch(final Collection<FileAdapter> roots) {
+        final ExecutorService executor = Executors.newFixedThreadPool(this.parseThreads,
+            new ThreadFactoryBuilder().setNameFormat("trellis-parser-%d").setDaemon(true).build());
+        try {
+            final CompletionService<ParsedYamlFile> completion = new ExecutorCompletionService<>(executor);
+            int pending = 0;
+            for (final FileAdapter root : roots) {
+                if (!this.prefetched.containsKey(root)) {
+                    this.prefetched.put(root, completion.submit(() -> parseAndLog(root)));
+                    pending++;
+                }
+            }
+            for (; pending > 0; pending--) {
+                final ParsedYamlFile pyf;
+                try {
+                    pyf = Uninterruptibles.getUninterruptibly(completion.take());
+                } catch (ExecutionException e) {
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (final SourceLocatableString ref : getReferencedFiles(pyf.getModel())) {
+                    final FileAdapter file;
+                    try {
+                        file = resolve(pyf.getFile(), ref);
+                    } catch (RuntimeException e) {
+                        continue; // add() will report it
+                    }
+                    if (!this.prefetched.containsKey(file) && file.exists()) {
+                        this.prefetched.put(file, completion.submit(() -> parseAndLog(file)));
+                        pending++;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            // only matters if we were interrupted; add() will just parse anything that didn't finish
+            this.prefetched.values().removeIf(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * @return the parsed file, from prefetch() if it got it, otherwise parsed right now.
+     */
+    private ParsedYamlFile parse(final FileAdapter file) throws IOException {
+        final Future<ParsedYamlFile> future = this.prefetched.get(file);
+        if (future == null) return parseAndLog(file);
+        try {
+            return Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new RuntimeException("unexpected exception type", e.getCause());
+        }
+    }
+
+    private ParsedYamlFile parseAndLog(final FileAdapter file) throws IOException {
+        final Stopwatch sw = Stopwatch.createStarted();
+        final ParsedYamlFile out = ParsedYamlFile.parse(file, mavenHelper, hashContents);
+        logger.debug("parsed and interpolated " + file + " in " + sw);
+        return out;
+    }
+
+    /**
+     * @return all of the files referenced by whitelist configurations and rules in the given model.
+     */
+    private static List<SourceLocatableString> getReferencedFiles(final YamlModel model) {
+        final List<SourceLocatableString> out = new ArrayList<>();
+        if (model.getWhitelists() != null) {
+            for (final WhitelistModel whitelist : model.getWhitelists()) {
+                if (whitelist.getFile() != null) out.add(whitelist.getFile());
+            }
+        }
+        if (model.getRules() != null) {
+            for (final RuleModel rule : model.getRules()) {
+                if (rule.getWhitelist() != null) out.add(rule.getWhitelist());
+            }
+        }
+        return out;
+    }
+
+    private static FileAdapter resolve(final FileAdapter base, final SourceLocatableString file) {
+        final Path path = Paths.get(file.toString());
+        return path.isAbsolute() ? FileAdapter.forPath(path) : base.getRelativeFile(path);
+    }
 }
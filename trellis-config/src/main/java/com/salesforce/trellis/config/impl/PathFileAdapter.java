@@ -8,22 +8,15 @@ package com.salesforce.trellis.config.impl;
 
 import com.salesforce.trellis.config.FileAdapter;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.util.concurrent.Callable;
 
-import static java.nio.file.StandardOpenOption.CREATE;
-import static java.nio.file.StandardOpenOption.READ;
-import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -51,13 +44,17 @@ public final class PathFileAdapter implements FileAdapter {
 
     @Override
     public Reader getReader() throws IOException {
-        return new FileReader(path.toFile());
+        return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
     }
 
     @Override
     public Writer getWriter() throws IOException {
-        final File f = path.toFile();
-        return new FileWriter(path.toFile());
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8);
     }
 
     @Override
@@ -73,56 +70,22 @@ public final class PathFileAdapter implements FileAdapter {
         return this.path.toFile().exists();
     }
 
+    /**
+     * There are two things going on here: os-level locking and thread-level locking.  The os-level locking is arguably
+     * overkill; it's pretty unlikely that other processes are going to be messing with the rules files.
+     * <p/>
+     * The thread-level locking, however, is absolutely essential.  Trellis needs to maintain the rules files that are
+     * shared by all of the modules in the reactor, and in a parallel build, plugin instances in different classloaders
+     * may be reading and updating them at the same time.  FileLockRegistry takes care of both kinds of locking.
+     */
     @Override
     public <T> T executeExclusiveRead(final Callable<T> callable) throws Exception {
-        return executeExclusive(callable, this.path, true, READ);
+        return FileLockRegistry.executeShared(this.path, callable);
     }
 
     @Override
     public <T> T executeExclusiveWrite(final Callable<T> callable) throws Exception {
-        return executeExclusive(callable, this.path, false, READ, WRITE, CREATE);
-    }
-
-    /**
-     * Utility method for performing tasks with exclusive locks on files.
-     * <p/>
-     * There are two things going on here: os-level locking and thread-level locking.  The os-level locking is arguably
-     * overkill; it's pretty unlikely that other processes are going to be messing with the rules files.
-     * <p/>
-     * The thread-level locking, however, is absolutely essential.  In a parallel build in a multi-module project,
-     * maven can decide to create new instances of plugins in new classloaders, seemingly at random.  It's possible
-     * that it's a bug in maven.  But because plugins aren't supposed to touch resources outside of the module being
-     * built, it isn't supposed to be a problem.
-     * <p/>
-     * Trellis, however, needs to maintain the rules files that are shared by the reactor all modules.  And in the case
-     * of updating whitelists, we need to ensure that access to the files is synchronized.  Ideally, we'd just keep a
-     * map of ReadWriteLocks for each file path.  But unfortunately, because of the classloader behavior mentioned
-     * above, there's not an obvious place for us to stash that map.
-     * <p/>
-     * So, instead, we opt to simply synchronize all file access on an arbitrary class in a shared classloader.  This
-     * is
-     * not ideal but practically speaking it's not a big deal.  We're not doing that much I/O, and in the normal
-     * enforcement case, all of the I/O is happening once (per plugin instance) in a single thread to load up all of
-     * the rules.  And for updating whitelists, there will may end up being a very small bit of contention, but this is
-     * a maintenance task that is not part of a normal build (and really the perf hit just can't be that high in real
-     * terms).
-     */
-    private <T> T executeExclusive(final Callable<T> callable,
-                                   final Path path,
-                                   final boolean shared,
-                                   final OpenOption... soo) throws Exception {
-        requireNonNull(callable);
-        requireNonNull(path);
-        // an arbitrarily-chosen object for us to lock on.  the only requrement is that it has to have come from a
-        // parent of all plugin classloaders.  and ideally it shouldn't be something that other clients are likely to be
-        // locking on.
-        final Object javaLock = Files.class;
-        synchronized (javaLock) {
-            try (final FileChannel fileChannel = FileChannel.open(path, soo);
-                final FileLock osLock = fileChannel.lock(0L, Long.MAX_VALUE, shared)) {
-                return callable.call();
-            }
-        }
+        return FileLockRegistry.executeExclusive(this.path, callable);
     }
 
     @Override
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.config.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.trellis.config.FileAdapter;
+import com.salesforce.trellis.config.RuleInputs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * RuleInputs that remembers the hash of each file's contents and of each referenced property's value, as computed by
+ * ContentHashes.
+ * <p>
+ * Hashing every file on every check would mean reading megabytes of whitelists, so once a file's contents have been
+ * found to match, its size and timestamp are remembered and the next check only looks at those.  That isn't done for
+ * a file that was modified just before it was checked, since on some filesystems, another change within the same
+ * timestamp tick wouldn't show up in the timestamp.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class RuleInputsImpl implements RuleInputs {
+
+    // ===================================================================
+    // Constants
+
+    static final RuleInputs EMPTY = new RuleInputsImpl(ImmutableMap.of(), ImmutableMap.of(), false);
+
+    /**
+     * Files modified this soon before they were checked might change again without their timestamp changing.
+     */
+    private static final long TIMESTAMP_RESOLUTION_MILLIS = 2000;
+
+    // ===================================================================
+    // Fields
+
+    private final ImmutableMap<String, String> hashes;
+    private final ImmutableMap<String, String> propertyHashes;
+    private final boolean reusable;
+    private final Map<String, Stat> verifiedStats = new HashMap<>();
+
+    // ===================================================================
+    // Constructor
+
+    /**
+     * @param hashes the locations of the files mapped to the hashes of their contents (or to ABSENT).
+     * @param propertyHashes the names of the properties the config refers to, mapped to the hashes of their values
+     * (or to ABSENT).
+     * @param reusable false if the rules were compiled with warnings, in which case they always count as changed.
+     */
+    RuleInputsImpl(final Map<String, String> hashes,
+                   final Map<String, String> propertyHashes,
+                   final boolean reusable) {
+        this.hashes = ImmutableMap.copyOf(requireNonNull(hashes));
+        this.propertyHashes = ImmutableMap.copyOf(requireNonNull(propertyHashes));
+        this.reusable = reusable;
+    }
+
+    // ===================================================================
+    // RuleInputs impl
+
+    @Override
+    public Collection<String> getLocations() {
+        return this.hashes.keySet();
+    }
+
+    @Override
+    public synchronized boolean isChanged(final Properties properties) {
+        requireNonNull(properties);
+        if (!this.reusable) return true;
+        for (final Map.Entry<String, String> property : this.propertyHashes.entrySet()) {
+            if (!property.getValue().equals(ContentHashes.hash(properties.getProperty(property.getKey())))) {
+                return true;
+            }
+        }
+        for (final Map.Entry<String, String> input : this.hashes.entrySet()) {
+            final String location = input.getKey();
+            final Path path = Paths.get(location);
+            try {
+                final long checkTime = System.currentTimeMillis();
+                final Stat stat = Stat.of(path);
+                final boolean wasAbsent = input.getValue().equals(ContentHashes.ABSENT);
+                if (stat == null || wasAbsent) {
+                    if ((stat == null) != wasAbsent) return true;
+                    continue;
+                }
+                if (stat.equals(this.verifiedStats.get(location))) continue;
+                if (!input.getValue().equals(ContentHashes.hash(FileAdapter.forPath(path)))) return true;
+                // only trust the timestamp next time if another change would have to show up in it
+                if (stat.lastModified < checkTime - TIMESTAMP_RESOLUTION_MILLIS) {
+                    this.verifiedStats.put(location, stat);
+                }
+            } catch (IOException | RuntimeException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    private static final class Stat {
+
+        private final long size;
+        private final long lastModified;
+
+        /**
+         * @return the size and timestamp of the given file, or null if it doesn't exist.
+         */
+        static Stat of(final Path path) throws IOException {
+            final BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            return new Stat(attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+
+        private Stat(final long size, final long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Stat)) return false;
+            final Stat that = (Stat) o;
+            return this.size == that.size && this.lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.size) * 31 + Long.hashCode(this.lastModified);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.salesforce.trellis.rules.builder.RuleSetBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,6 +35,11 @@ public class YamlConfigBuilderImpl implements YamlConfigBuilder {
     private final List<FileAdapter> files = new ArrayList<>();
     private AutoWhitelisterFactory listenerFactory;
     private MavenHelper helper;
+    private Path cacheDirectory;
+    private String cacheVersion;
+    private boolean recordRuleInputs = false;
+    private int parseThreads = 1;
+    private boolean deferWhitelistWrites = false;
     private Logger logger;
     private boolean isUsed = false;
 
@@ -59,6 +65,36 @@ public class YamlConfigBuilderImpl implements YamlConfigBuilder {
         return this;
     }
 
+    @Override
+    public YamlConfigBuilder cacheDirectory(Path directory, String version) {
+        checkState();
+        this.cacheDirectory = requireNonNull(directory);
+        this.cacheVersion = requireNonNull(version);
+        return this;
+    }
+
+    @Override
+    public YamlConfigBuilder recordRuleInputs(boolean record) {
+        checkState();
+        this.recordRuleInputs = record;
+        return this;
+    }
+
+    @Override
+    public YamlConfigBuilder parseThreads(int threads) {
+        checkState();
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.parseThreads = threads;
+        return this;
+    }
+
+    @Override
+    public YamlConfigBuilder deferWhitelistWrites(boolean deferWrites) {
+        checkState();
+        this.deferWhitelistWrites = deferWrites;
+        return this;
+    }
+
     @Override
     public YamlConfigBuilder logger(Logger logger) {
         checkState();
@@ -77,11 +113,14 @@ public class YamlConfigBuilderImpl implements YamlConfigBuilder {
             logger = LoggerFactory.getLogger(getClass());
         }
         if (listenerFactory == null) {
-            listenerFactory =
-                (file, rule, headerTextOrNull) -> new AutoWhitelister(file, rule, headerTextOrNull, this.logger);
+            final boolean deferWrites = this.deferWhitelistWrites;
+            listenerFactory = (file, rule, headerTextOrNull) ->
+                new AutoWhitelister(file, rule, headerTextOrNull, deferWrites, this.logger);
         }
+        final CompiledRuleSetCache cache =
+            cacheDirectory == null ? null : new CompiledRuleSetCache(cacheDirectory, cacheVersion, this.logger);
         return new YamlConfigImpl(this.files, helper, listenerFactory, () -> RuleSetBuilder.create(),
-            () -> GroupSetBuilder.create(), this.logger);
+            () -> GroupSetBuilder.create(), cache, this.recordRuleInputs, this.parseThreads, this.logger);
     }
 
     // ===================================================================
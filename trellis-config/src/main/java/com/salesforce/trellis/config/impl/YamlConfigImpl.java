@@ -13,6 +13,7 @@ import com.salesforce.trellis.config.ConfigException;
 import com.salesforce.trellis.config.FileAdapter;
 import com.salesforce.trellis.config.MavenHelper;
 import com.salesforce.trellis.config.ParserListener;
+import com.salesforce.trellis.config.RuleInputs;
 import com.salesforce.trellis.config.impl.YamlModel.RuleModel;
 import com.salesforce.trellis.config.impl.YamlModel.WhitelistModel;
 import com.salesforce.trellis.rules.RuleSet;
@@ -29,9 +30,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import static com.salesforce.trellis.config.impl.SourceLocatableString.unwrap;
@@ -62,6 +66,12 @@ public class YamlConfigImpl implements Config {
     private final Logger logger;
     private final Supplier<RuleSetBuilder> rsbSupplier;
     private final Supplier<GroupSetBuilder> gsbSupplier;
+    private final CompiledRuleSetCache cacheOrNull;
+    private final boolean recordRuleInputs;
+    private final int parseThreads;
+
+    // The files that went into the rules the last time they were applied.
+    private volatile RuleInputs ruleInputs = RuleInputsImpl.EMPTY;
 
     // ===================================================================
     // Constructors
@@ -71,12 +81,18 @@ public class YamlConfigImpl implements Config {
                    final AutoWhitelisterFactory listenerFactory,
                    final Supplier<RuleSetBuilder> rsbSupplier,
                    final Supplier<GroupSetBuilder> gsbSupplier,
+                   final CompiledRuleSetCache cacheOrNull,
+                   final boolean recordRuleInputs,
+                   final int parseThreads,
                    final Logger logger) {
         this.files = requireNonNull(files);
         this.mavenHelper = requireNonNull(mavenHelper);
         this.rsbSupplier = requireNonNull(rsbSupplier);
         this.gsbSupplier = requireNonNull(gsbSupplier);
         this.listenerFactory = requireNonNull(listenerFactory);
+        this.cacheOrNull = cacheOrNull;
+        this.recordRuleInputs = recordRuleInputs;
+        this.parseThreads = parseThreads;
         this.logger = requireNonNull(logger);
     }
 
@@ -86,16 +102,40 @@ public class YamlConfigImpl implements Config {
     @Override
     public void applyTo(final RuleSetBuilder rulesBuilder, final ParserListener listenerOrNull) throws ConfigException {
         requireNonNull(rulesBuilder, "rulesBuilder may not be null");
+        //
+        // If we can, use the rules that were compiled last time, as long as none of the inputs have changed.
+        //
+        final Properties properties = this.cacheOrNull == null ? null : this.mavenHelper.getProperties();
+        if (properties != null) {
+            final Map<String, String> cachedInputs = new LinkedHashMap<>();
+            final Map<String, String> cachedPropertyHashes = new LinkedHashMap<>();
+            final RuleSet cached = this.cacheOrNull.load(this.files, properties, cachedInputs, cachedPropertyHashes);
+            if (cached != null) {
+                rulesBuilder.addRules(cached);
+                this.ruleInputs = new RuleInputsImpl(cachedInputs, cachedPropertyHashes, true);
+                return;
+            }
+        }
+        //
+        // Otherwise, parse everything, noting every file that goes into it if anyone is going to check them for
+        // changes.  If we're caching, collect the rules in a separate RuleSet that we can save.
+        //
+        final boolean trackInputs = this.cacheOrNull != null || this.recordRuleInputs;
+        final Map<String, String> inputs = new LinkedHashMap<>();
+        final Set<String> propertyNames = ConcurrentHashMap.newKeySet();
+        final MavenHelper helper = trackInputs ?
+            CompiledRuleSetCache.recordInputs(this.mavenHelper, inputs, propertyNames) : this.mavenHelper;
+        final RuleSetBuilder compiledBuilder = properties == null ? rulesBuilder : rsbSupplier.get();
         final ConfigErrorReporter errorReporter = new ConfigErrorReporter(listenerOrNull);
-        final List<ParsedYamlFile> parsed = parseFiles(errorReporter, true);
-        for (final ParsedYamlFile yamlFile : parsed) {
+        final ParsedYamlFiles parsed = parseAll(helper, errorReporter, true, trackInputs);
+        for (final ParsedYamlFile yamlFile : parsed.getFiles()) {
             final GroupSetBuilder gsb = gsbSupplier.get();
             final YamlModel model = requireNonNull(yamlFile.getModel());
-            new YamlGroupsApplier(gsb, mavenHelper, errorReporter).apply(model.getGroups());
+            new YamlGroupsApplier(gsb, helper, errorReporter).apply(model.getGroups());
             final RuleSetBuilder rsb = rsbSupplier.get().groups(gsb.build());
             new YamlRulesApplier(rsb, errorReporter).apply(model.getRules());
             try {
-                rulesBuilder.addRules(rsb.build());
+                compiledBuilder.addRules(rsb.build());
             } catch (RuleBuildingException e) {
                 errorReporter.error(e);
                 continue;
@@ -105,6 +145,53 @@ public class YamlConfigImpl implements Config {
             throw new ConfigException(
                 "Fatal errors were encountered building the configuration.  See log for details.");
         }
+        if (trackInputs) {
+            for (final ParsedYamlFile yamlFile : parsed.getFiles()) {
+                inputs.put(yamlFile.getFile().getLocation(), yamlFile.getContentHash());
+            }
+            for (final FileAdapter missing : parsed.getMissingFiles()) {
+                inputs.put(missing.getLocation(), ContentHashes.ABSENT);
+            }
+        }
+        //
+        // Errors would have stopped us above, but missing whitelists are only warned about.  Rules that came with
+        // warnings aren't reused, since reusing them would skip the warnings.
+        //
+        final boolean reusable = parsed.getMissingFiles().isEmpty();
+        if (properties != null) {
+            final RuleSet compiled;
+            try {
+                compiled = compiledBuilder.build();
+            } catch (RuleBuildingException e) {
+                errorReporter.error(e);
+                throw new ConfigException(
+                    "Fatal errors were encountered building the configuration.  See log for details.");
+            }
+            rulesBuilder.addRules(compiled);
+            if (reusable) {
+                this.cacheOrNull.store(this.files, properties, propertyNames, inputs, compiled);
+            } else {
+                logger.debug("not caching rules because of missing whitelists");
+            }
+        }
+        if (!trackInputs) {
+            this.ruleInputs = RuleInputsImpl.EMPTY;
+            return;
+        }
+        final Properties currentProperties = this.mavenHelper.getProperties();
+        final Map<String, String> propertyHashes = new LinkedHashMap<>();
+        for (final String name : propertyNames) {
+            propertyHashes.put(name, ContentHashes.hash(
+                currentProperties == null ? null : currentProperties.getProperty(name)));
+        }
+        // if the properties can't be listed, there's no telling whether they've changed
+        this.ruleInputs = new RuleInputsImpl(inputs, propertyHashes,
+            reusable && (currentProperties != null || propertyNames.isEmpty()));
+    }
+
+    @Override
+    public RuleInputs getRuleInputs() {
+        return this.ruleInputs;
     }
 
     @Override
@@ -252,9 +339,16 @@ public class YamlConfigImpl implements Config {
      */
     private List<ParsedYamlFile> parseFiles(final ConfigErrorReporter errorReporter,
                                             final boolean tolerateMisingWhitelists) {
+        return parseAll(this.mavenHelper, errorReporter, tolerateMisingWhitelists, false).getFiles();
+    }
+
+    private ParsedYamlFiles parseAll(final MavenHelper helper,
+                                     final ConfigErrorReporter errorReporter,
+                                     final boolean tolerateMisingWhitelists,
+                                     final boolean hashContents) {
         final ParsedYamlFiles files =
-            new ParsedYamlFiles(this.mavenHelper, errorReporter, tolerateMisingWhitelists, logger);
+            new ParsedYamlFiles(helper, errorReporter, tolerateMisingWhitelists, hashContents, parseThreads, logger);
         files.parseAll(this.files);
-        return files.getFiles();
+        return files;
     }
 }
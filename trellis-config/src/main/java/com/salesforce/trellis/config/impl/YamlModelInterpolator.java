@@ -21,6 +21,10 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Helper class that substitutes environmental and declared property values into the parsed model.
+ * <p>
+ * Most values (and all of a generated whitelist) contain no property references, so this is done lazily: strings
+ * without a '${' are never passed to the interpolator, and any part of the model that comes through unchanged is
+ * shared with the output rather than copied.  The input model must not be modified afterwards.
  *
  * @author pcal
  * @since 0.0.5
@@ -30,6 +34,7 @@ final class YamlModelInterpolator {
     // ===================================================================
     // Constants
 
+    private static final String PROPERTY_MARKER = "${";
     private static final String DEFAULT_WHITELIST_HEADER_PROP = "${trellis.whitelist.headerComment}";
     private static final String DEFAULT_WHITELIST_ACTION_PROP = "${trellis.whitelist.action}";
     private static final String DEFAULT_RULE_REASON_PROP = "${trellis.rule.reason}";
@@ -39,6 +44,13 @@ final class YamlModelInterpolator {
 
     private final Function<String, String> stringInterpolator;
 
+    /**
+     * The values of the properties that supply defaults for missing fields, or null if they aren't set.
+     */
+    private final String defaultWhitelistHeaderOrNull;
+    private final String defaultWhitelistActionOrNull;
+    private final String defaultRuleReasonOrNull;
+
     // ===================================================================
     // Constructor
 
@@ -49,118 +61,170 @@ final class YamlModelInterpolator {
         } else {
             this.stringInterpolator = helper.createInterpolator(propertiesOrNull);
         }
+        this.defaultWhitelistHeaderOrNull = getDefault(DEFAULT_WHITELIST_HEADER_PROP);
+        this.defaultWhitelistActionOrNull = getDefault(DEFAULT_WHITELIST_ACTION_PROP);
+        this.defaultRuleReasonOrNull = getDefault(DEFAULT_RULE_REASON_PROP);
     }
 
     // ===================================================================
     // Packge methods
 
+    /**
+     * @return true if interpolating a file with the given raw contents would leave every value as it is, in which
+     * case the model can be used as-is.
+     */
+    boolean isNoop(final byte[] content) {
+        if (this.defaultRuleReasonOrNull != null || this.defaultWhitelistActionOrNull != null ||
+            this.defaultWhitelistHeaderOrNull != null) {
+            return false;
+        }
+        for (int i = 0; i < content.length - 1; i++) {
+            if (content[i] == '$' && content[i + 1] == '{') return false;
+        }
+        return true;
+    }
+
     YamlModel interpolate(final YamlModel in) {
         requireNonNull(in);
         final YamlModel out = new YamlModel();
-        if (in.getRules() != null) {
-            final List<RuleModel> rules = new ArrayList<>();
-            in.getRules().forEach(r -> rules.add(interpolate(r)));
-            out.setRules(rules);
-        }
-        if (in.getGroups() != null) {
-            final List<GroupModel> groups = new ArrayList<>();
-            in.getGroups().forEach(g -> groups.add(interpolate(g)));
-            out.setGroups(groups);
-        }
-        if (in.getWhitelists() != null) {
-            final List<WhitelistModel> whitelists = new ArrayList<>();
-            in.getWhitelists().forEach(w -> whitelists.add(interpolate(w)));
-            out.setWhitelists(whitelists);
-        }
+        out.setRules(interpolateAll(in.getRules(), this::interpolate));
+        out.setGroups(interpolateAll(in.getGroups(), this::interpolate));
+        out.setWhitelists(interpolateAll(in.getWhitelists(), this::interpolate));
         return out;
     }
 
     WhitelistModel interpolate(final WhitelistModel in) {
         requireNonNull(in);
+        // these are interpolated:
+        final SourceLocatableString action =
+            interpolate(in.getAction(), in.getLocation(), this.defaultWhitelistActionOrNull);
+        final SourceLocatableString file = interpolate(in.getFile());
+        final SourceLocatableString headerComment =
+            interpolate(in.getHeaderComment(), in.getLocation(), this.defaultWhitelistHeaderOrNull);
+        if (action == in.getAction() && file == in.getFile() && headerComment == in.getHeaderComment()) return in;
         final WhitelistModel out = new WhitelistModel();
         // these are NOT interpolated:
         out.setLocation(in.getLocation());
-        // these are interpolated:
-        out.setAction(interpolate(in.getAction(), in.getLocation(), DEFAULT_WHITELIST_ACTION_PROP));
-        out.setFile(interpolate(in.getFile()));
-        out.setHeaderComment(interpolate(in.getHeaderComment(), in.getLocation(), DEFAULT_WHITELIST_HEADER_PROP));
+        out.setAction(action);
+        out.setFile(file);
+        out.setHeaderComment(headerComment);
         return out;
     }
 
     private GroupModel interpolate(final GroupModel in) {
         requireNonNull(in);
+        // these are interpolated:
+        final List<SourceLocatableString> includes = interpolate(in.getIncludes());
+        final List<SourceLocatableString> except = interpolate(in.getExcept());
+        final List<SourceLocatableString> pomDependencies = interpolate(in.getPomDependencies());
+        if (includes == in.getIncludes() && except == in.getExcept() && pomDependencies == in.getPomDependencies()) {
+            return in;
+        }
         final GroupModel out = new GroupModel();
         // these are NOT interpolated:
         out.setName(in.getName());
         out.setLocation(in.getLocation());
-        // these are interpolated:
-        out.setIncludes(interpolate(in.getIncludes()));
-        out.setExcept(interpolate(in.getExcept()));
-        out.setPomDependencies(interpolate(in.getPomDependencies()));
+        out.setIncludes(includes);
+        out.setExcept(except);
+        out.setPomDependencies(pomDependencies);
         return out;
     }
 
     private RuleModel interpolate(final RuleModel in) {
         requireNonNull(in);
-        final RuleModel out = new RuleModel();
-        if (in.getWhitelist() != null) {
-            out.setWhitelist(interpolate(in.getWhitelist()));
+        // these are interpolated:
+        final SourceLocatableString reason =
+            interpolate(in.getReason(), in.getLocation(), this.defaultRuleReasonOrNull);
+        final List<SourceLocatableString> from = interpolate(in.getFrom());
+        final List<SourceLocatableString> exceptFrom = interpolate(in.getExceptFrom());
+        final List<SourceLocatableString> to = interpolate(in.getTo());
+        final List<SourceLocatableString> exceptTo = interpolate(in.getExceptTo());
+        final SourceLocatableString optionality = interpolate(in.getOptionality());
+        final SourceLocatableString scope = interpolate(in.getScope());
+        final SourceLocatableString action = interpolate(in.getAction());
+        final SourceLocatableString distance = interpolate(in.getDistance());
+        final SourceLocatableString whitelist = interpolate(in.getWhitelist());
+        if (reason == in.getReason() && from == in.getFrom() && exceptFrom == in.getExceptFrom() &&
+            to == in.getTo() && exceptTo == in.getExceptTo() && optionality == in.getOptionality() &&
+            scope == in.getScope() && action == in.getAction() && distance == in.getDistance() &&
+            whitelist == in.getWhitelist()) {
+            return in;
         }
+        final RuleModel out = new RuleModel();
         // these are NOT interpolated:
         out.setLocation(in.getLocation());
-        // these are interpolated:
-        out.setReason(interpolate(in.getReason(), in.getLocation(), DEFAULT_RULE_REASON_PROP));
-        out.setFrom(interpolate(in.getFrom()));
-        out.setExceptFrom(interpolate(in.getExceptFrom()));
-        out.setTo(interpolate(in.getTo()));
-        out.setExceptTo(interpolate(in.getExceptTo()));
-        out.setOptionality(interpolate(in.getOptionality()));
-        out.setScope(interpolate(in.getScope()));
-        out.setAction(interpolate(in.getAction()));
-        out.setDistance(interpolate(in.getDistance()));
-        out.setWhitelist(interpolate(in.getWhitelist()));
+        out.setReason(reason);
+        out.setFrom(from);
+        out.setExceptFrom(exceptFrom);
+        out.setTo(to);
+        out.setExceptTo(exceptTo);
+        out.setOptionality(optionality);
+        out.setScope(scope);
+        out.setAction(action);
+        out.setDistance(distance);
+        out.setWhitelist(whitelist);
         return out;
     }
 
-
     private List<SourceLocatableString> interpolate(final List<SourceLocatableString> in) {
-        if (in == null) {
-            return null;
-        } else {
-            final List<SourceLocatableString> out = new ArrayList<>();
-            in.forEach(s -> out.add(interpolate(s)));
-            return out;
-        }
+        return interpolateAll(in, this::interpolate);
     }
 
     // exposed for unit testing
     SourceLocatableString interpolate(final SourceLocatableString in) {
-        if (in == null) {
-            return null;
+        if (in == null || !in.toString().contains(PROPERTY_MARKER)) {
+            return in;
         } else {
             final String value = this.stringInterpolator.apply(in.toString());
+            if (value.equals(in.toString())) return in;
             final SourceLocatableString out = SourceLocatableString.of(value);
             out.setLocation(in.getLocation());
             return out;
         }
     }
 
+    // ===================================================================
+    // Private methods
+
     private SourceLocatableString interpolate(final SourceLocatableString in,
                                               final SourceLocation location,
-                                              final String defaultProperty) {
+                                              final String defaultValueOrNull) {
         if (in != null) {
             return interpolate(in);
+        } else if (defaultValueOrNull == null) {
+            return null;
         } else {
-            // yuck this is kind of gross
-            final String sub = defaultProperty;
-            final String value = this.stringInterpolator.apply(sub);
-            if (value.equals(sub)) {
-                return null;
-            } else {
-                final SourceLocatableString out = SourceLocatableString.of(value);
-                out.setLocation(location);
-                return out;
+            final SourceLocatableString out = SourceLocatableString.of(defaultValueOrNull);
+            out.setLocation(location);
+            return out;
+        }
+    }
+
+    /**
+     * @return the interpolated value of the given property reference, or null if the property isn't set.
+     */
+    private String getDefault(final String propertyReference) {
+        // yuck this is kind of gross
+        final String value = this.stringInterpolator.apply(propertyReference);
+        return value.equals(propertyReference) ? null : value;
+    }
+
+    /**
+     * @return the given list if none of its elements are changed by the given function, otherwise a new list of
+     * the results.
+     */
+    private static <T> List<T> interpolateAll(final List<T> in, final Function<T, T> interpolator) {
+        if (in == null) return null;
+        List<T> out = null;
+        for (int i = 0; i < in.size(); i++) {
+            final T original = in.get(i);
+            final T interpolated = interpolator.apply(original);
+            if (out == null && interpolated != original) {
+                out = new ArrayList<>(in.size());
+                out.addAll(in.subList(0, i));
             }
+            if (out != null) out.add(interpolated);
         }
+        return out == null ? in : out;
     }
 }
@@ -9,13 +9,15 @@ package com.salesforce.trellis.config.impl;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 import com.salesforce.trellis.config.impl.YamlModel.RuleModel;
-import org.apache.commons.lang3.builder.EqualsBuilder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
@@ -69,39 +71,35 @@ class YamlModelTransformer {
      * It's recommended that the rules be canonicalized after this transform is applied.
      */
     YamlModelTransformer consolidate() {
-        if (target.getRules() == null) return this;
-        final List<RuleModel> oldRules = stripDupsAndSort(target.getRules());
-        if (oldRules.size() <= 1) {
-            return this;
+        if (target.getRules() == null || target.getRules().size() <= 1) return this;
+        // rules that differ only in 'from' and 'to' get merged.  group them in a single pass, keeping the groups
+        // in order of first appearance.  exact duplicates are dropped first, as they always have been.
+        final Map<List<SourceLocatableString>, RuleModel> prototypes = new LinkedHashMap<>();
+        final Map<List<SourceLocatableString>, SetMultimap<SourceLocatableString, SourceLocatableString>> groups =
+            new HashMap<>();
+        for (final RuleModel r : new LinkedHashSet<>(target.getRules())) {
+            final List<SourceLocatableString> key = getConsolidationKey(r);
+            SetMultimap<SourceLocatableString, SourceLocatableString> smm = groups.get(key);
+            if (smm == null) {
+                prototypes.put(key, r);
+                groups.put(key, smm = HashMultimap.create());
+            }
+            if (r.getFrom() == null || r.getTo() == null) {
+                //log warning?
+            } else {
+                for (final SourceLocatableString to : r.getTo()) smm.putAll(to, r.getFrom());
+            }
         }
         final List<RuleModel> newRules = new ArrayList<>();
-        while (oldRules.size() > 0) {
-            final Iterator<RuleModel> i = oldRules.iterator();
-            final List<RuleModel> subset = new ArrayList<>();
-            subset.add(i.next());
-            i.remove();
-            while (i.hasNext()) {
-                final RuleModel next = i.next();
-                if (matchesExceptToFrom(subset.get(0), next)) {
-                    subset.add(next);
-                    i.remove();
-                }
-            }
-            final SetMultimap<SourceLocatableString, SourceLocatableString> smm = HashMultimap.create();
-            subset.forEach(r -> {
-                if (r.getFrom() == null || r.getTo() == null) {
-                    //log warning?
-                } else {
-                    r.getTo().forEach(to -> smm.putAll(to, r.getFrom()));
-                }
-            });
+        prototypes.forEach((key, prototype) -> {
+            final SetMultimap<SourceLocatableString, SourceLocatableString> smm = groups.get(key);
             smm.keySet().forEach(k -> {
-                final RuleModel newRule = copyRule(subset.get(0));
+                final RuleModel newRule = copyRule(prototype);
                 newRule.setFrom(new ArrayList<>(smm.get(k)));
                 newRule.setTo(Collections.singletonList(k));
                 newRules.add(newRule);
             });
-        }
+        });
         target.setRules(newRules);
         return this;
     }
@@ -119,21 +117,31 @@ class YamlModelTransformer {
         return out;
     }
 
-    private boolean matchesExceptToFrom(final RuleModel r1, final RuleModel r2) {
-        return new EqualsBuilder().//
-            append(r1.getAction(), r2.getAction()).//
-            append(r1.getDistance(), r2.getDistance()).//
-            append(r1.getScope(), r2.getScope()).//
-            append(r1.getWhitelist(), r2.getWhitelist()).//
-            append(r1.getReason(), r2.getReason()).isEquals();
+    /**
+     * @return a key that is equal for any two rules that can be consolidated.
+     */
+    private static List<SourceLocatableString> getConsolidationKey(final RuleModel r) {
+        return Arrays.asList(r.getAction(), r.getDistance(), r.getScope(), r.getWhitelist(), r.getReason());
     }
 
     /**
      * Exposed only for unit testing.
      */
     <T> List<T> stripDupsAndSort(List<T> list) {
-        final List<T> out = new ArrayList<T>(new HashSet<>(list));
+        final List<T> out = new ArrayList<T>(list);
+        if (out.size() <= 1) return out;
         Collections.sort((List) out);
+        // Equal elements always compare as the same, so we only have to look for duplicates among neighbors that
+        // do.  Because the sort is stable, the first of any set of duplicates is the one that's kept.
+        int kept = 0;
+        int runStart = 0;
+        for (final T next : out) {
+            if (kept > 0 && ((Comparable) out.get(kept - 1)).compareTo(next) != 0) runStart = kept;
+            boolean isDup = false;
+            for (int i = runStart; i < kept && !isDup; i++) isDup = out.get(i).equals(next);
+            if (!isDup) out.set(kept++, next);
+        }
+        out.subList(kept, out.size()).clear();
         return out;
     }
 
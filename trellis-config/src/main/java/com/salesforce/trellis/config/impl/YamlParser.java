@@ -25,9 +25,9 @@ import com.salesforce.trellis.config.impl.SourceLocatable.SourceLocation;
 import com.salesforce.trellis.config.impl.SourceLocatableString.SourceLocatableStringDeserializer;
 import com.salesforce.trellis.config.impl.SourceLocatableString.SourceLocatableStringSerializer;
 
-import java.io.BufferedWriter;
 import java.io.FilterWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
 
@@ -76,8 +76,23 @@ class YamlParser {
         return this.mapper.readValue(in, clazz);
     }
 
+    /**
+     * Reads from UTF-8 bytes, which lets jackson skip a layer of char decoding.
+     */
+    <T> T readValue(final byte[] in, final Class<T> clazz) throws IOException {
+        return this.mapper.readValue(in, clazz);
+    }
+
+    <T> T readValue(final InputStream in, final Class<T> clazz) throws IOException {
+        return this.mapper.readValue(in, clazz);
+    }
+
+    /**
+     * Writes the given object as yaml.  The writer should be buffered; output is passed through in the same chunks
+     * that jackson writes.
+     */
     void writeValue(Writer out, Object o) throws IOException {
-        this.mapper.writeValue(new BufferedWriter(new BreakingWriter(out)), o);
+        this.mapper.writeValue(new BreakingWriter(out), o);
     }
 
     // ===================================================================
@@ -87,8 +102,11 @@ class YamlParser {
     /**
      * Moderately ridiculous hack to add extra line breaks before top-level elements in the yaml.  Because I think it
      * looks better.
+     * <p>
+     * Writes are scanned for line starts and passed through in runs, so the underlying writer sees a handful of bulk
+     * writes per line rather than one call per character.
      */
-    private static class BreakingWriter extends FilterWriter {
+    static class BreakingWriter extends FilterWriter {
 
         BreakingWriter(Writer out) {
             super(out);
@@ -96,20 +114,43 @@ class YamlParser {
 
         private boolean atLineStart = false;
 
+        @Override
         public void write(int c) throws IOException {
-            if (atLineStart) {
-                if (c == '-' || c != ' ') out.write('\n');
-            }
+            if (atLineStart && c != ' ') out.write('\n');
             atLineStart = (c == '\n');
             out.write(c);
         }
 
+        @Override
         public void write(char[] cbuf, int off, int len) throws IOException {
-            for (int i = off; i < off + len; i++) write(cbuf[i]);
+            final int end = off + len;
+            int runStart = off;
+            for (int i = off; i < end; i++) {
+                final char c = cbuf[i];
+                if (atLineStart && c != ' ') {
+                    out.write(cbuf, runStart, i - runStart);
+                    out.write('\n');
+                    runStart = i;
+                }
+                atLineStart = (c == '\n');
+            }
+            out.write(cbuf, runStart, end - runStart);
         }
 
+        @Override
         public void write(String str, int off, int len) throws IOException {
-            for (int i = off; i < off + len; i++) write(str.charAt(i));
+            final int end = off + len;
+            int runStart = off;
+            for (int i = off; i < end; i++) {
+                final char c = str.charAt(i);
+                if (atLineStart && c != ' ') {
+                    out.write(str, runStart, i - runStart);
+                    out.write('\n');
+                    runStart = i;
+                }
+                atLineStart = (c == '\n');
+            }
+            out.write(str, runStart, end - runStart);
         }
     }
 
@@ -115,14 +115,12 @@ class YamlRulesApplier {
             }
         }
         if (rule.getScope() != null) {
-            DependencyScope scope = null;
             try {
-                scope = DependencyScope.parse(rule.getScope().toString());
-            } catch (IllegalArgumentException e) {
+                rb.scope(DependencyScope.parse(rule.getScope().toString()));
+            } catch (IllegalArgumentException | RuleBuildingException e) {
                 this.errorLog.error(rule.getScope().getLocation(), e);
                 errorsEncountered = true;
             }
-            if (scope != null) rb.scope(scope);
         }
         if (rule.getDistance() != null) {
             RuleDistance distance = null;
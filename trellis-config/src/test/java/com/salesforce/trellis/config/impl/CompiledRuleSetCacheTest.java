@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.config.impl;
+
+import com.salesforce.trellis.config.Config;
+import com.salesforce.trellis.config.FileAdapter;
+import com.salesforce.trellis.config.MavenHelper;
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.DependencyScope;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.RuleSetBuilder;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import static com.salesforce.trellis.config.impl.ConfigTestUtils.dep;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for caching compiled rules between builds.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public class CompiledRuleSetCacheTest {
+
+    private static final Path TEST_ROOT = Paths.get("target/generated-test-resources/CompiledRuleSetCacheTest");
+    private static final DependencyScope COMPILE_SCOPE = DependencyScope.parse("compile");
+    private static final FileTime OLD = FileTime.fromMillis(0);
+    private static final String VERSION = "1.0";
+
+    /**
+     * Ensure that cached rules are reused when nothing has changed, and thrown away when any of the inputs change.
+     */
+    @Test
+    public void testInvalidation() throws Exception {
+        FileUtils.deleteDirectory(TEST_ROOT.toFile());
+        final Path cacheDir = TEST_ROOT.resolve("cache");
+        final Path rulesFile = TEST_ROOT.resolve("rules.yaml");
+        final Path whitelistFile = TEST_ROOT.resolve("whitelist.yaml");
+        final Properties props = new Properties();
+        props.setProperty("bad.group", "verboten");
+        write(rulesFile, "rules:\n- action: DENY\n  from: ['*:*']\n  to: ['${bad.group}:*']\n" +
+            "  whitelist: whitelist.yaml\n");
+        write(whitelistFile, "rules:\n- action: WARN\n  from: ['*:*']\n  to: ['unrelated:thing']\n");
+        //
+        // first time through, the rules get compiled and saved
+        //
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "verboten:thing"));
+        final File[] cacheFiles = cacheDir.toFile().listFiles();
+        assertEquals(1, cacheFiles.length);
+        final Path cacheFile = cacheFiles[0].toPath();
+        //
+        // if nothing changes, the saved rules are used and the cache file isn't touched
+        //
+        Files.setLastModifiedTime(cacheFile, OLD);
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "verboten:thing"));
+        assertEquals(OLD, Files.getLastModifiedTime(cacheFile));
+        //
+        // changing a property the config doesn't refer to doesn't matter
+        //
+        props.setProperty("env.BUILD_NUMBER", "1234");
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "verboten:thing"));
+        assertEquals(OLD, Files.getLastModifiedTime(cacheFile));
+        //
+        // changing one that it does invalidates it
+        //
+        props.setProperty("bad.group", "forbidden");
+        assertEquals(true, isPermissible(cacheDir, rulesFile, props, "verboten:thing"));
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "forbidden:thing"));
+        assertNotEquals(OLD, Files.getLastModifiedTime(cacheFile));
+        //
+        // so does changing a file
+        //
+        write(rulesFile, "rules:\n- action: DENY\n  from: ['*:*']\n  to: ['${bad.group}:*', 'legacy:*']\n" +
+            "  whitelist: whitelist.yaml\n");
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "legacy:thing"));
+        //
+        // so does changing a property that's only referred to by the value of another one
+        //
+        props.setProperty("bad.group", "${bad.prefix}-forbidden");
+        props.setProperty("bad.prefix", "very");
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "very-forbidden:thing"));
+        props.setProperty("bad.prefix", "really");
+        assertEquals(true, isPermissible(cacheDir, rulesFile, props, "very-forbidden:thing"));
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "really-forbidden:thing"));
+        props.setProperty("bad.group", "forbidden");
+        //
+        // and so does changing a whitelist
+        //
+        write(whitelistFile, "rules:\n- action: WARN\n  from: ['*:*']\n  to: ['legacy:thing']\n");
+        assertEquals(true, isPermissible(cacheDir, rulesFile, props, "legacy:thing"));
+        //
+        // a corrupted cache file is just ignored
+        //
+        write(cacheFile, "garbage");
+        assertEquals(true, isPermissible(cacheDir, rulesFile, props, "legacy:thing"));
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "forbidden:thing"));
+        assertEquals(1, cacheDir.toFile().listFiles().length);
+        //
+        // rules compiled without a whitelist aren't saved, since the warning about it wouldn't be repeated
+        //
+        Files.setLastModifiedTime(cacheFile, OLD);
+        Files.delete(whitelistFile);
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "legacy:thing"));
+        assertEquals(OLD, Files.getLastModifiedTime(cacheFile));
+        assertEquals(false, isPermissible(cacheDir, rulesFile, props, "legacy:thing"));
+        assertEquals(OLD, Files.getLastModifiedTime(cacheFile));
+    }
+
+    /**
+     * Ensure that we find every property that interpolation could have used, and only those.
+     */
+    @Test
+    public void testPropertyReferences() throws Exception {
+        final Properties props = new Properties();
+        props.setProperty("bad.group", "${bad.prefix}-forbidden");
+        props.setProperty("bad.prefix", "very");
+        props.setProperty("env.BUILD_NUMBER", "1234");
+        final Set<String> names = new HashSet<>();
+        final MavenHelper helper =
+            CompiledRuleSetCache.recordInputs(new MockMavenHelper(props), new HashMap<>(), names);
+        assertEquals("no properties here", helper.getInterpolator().apply("no properties here"));
+        assertTrue(names.isEmpty());
+        assertEquals("very-forbidden:*", helper.getInterpolator().apply("${bad.group}:*"));
+        assertEquals(new HashSet<>(Arrays.asList("bad.group", "bad.prefix")), names);
+        // a file's own properties can refer to the others, too, and so can properties that aren't set
+        final Properties fileProps = new Properties();
+        fileProps.setProperty("local", "${bad.prefix}-${not.set}");
+        names.clear();
+        assertEquals("very-${not.set}", helper.createInterpolator(fileProps).apply("${local}"));
+        assertEquals(new HashSet<>(Arrays.asList("local", "bad.prefix", "not.set")), names);
+    }
+
+    /**
+     * Ensure that rules cached by one version of trellis aren't used by another.
+     */
+    @Test
+    public void testVersion() throws Exception {
+        final Path root = TEST_ROOT.resolve("testVersion");
+        FileUtils.deleteDirectory(root.toFile());
+        final Path cacheDir = root.resolve("cache");
+        final Path rulesFile = root.resolve("rules.yaml");
+        write(rulesFile, "rules:\n- action: DENY\n  from: ['*:*']\n  to: ['verboten:*']\n");
+        assertEquals(false, isPermissible(cacheDir, "1.0", rulesFile, new Properties(), "verboten:thing"));
+        assertEquals(1, cacheDir.toFile().listFiles().length);
+        assertEquals(false, isPermissible(cacheDir, "1.1", rulesFile, new Properties(), "verboten:thing"));
+        assertEquals(2, cacheDir.toFile().listFiles().length);
+    }
+
+    /**
+     * Ensure that the config reports every file that went into the rules, whether or not they came from the cache,
+     * and that it doesn't keep track of them when nothing is going to check them.
+     */
+    @Test
+    public void testInputLocations() throws Exception {
+        final Path root = TEST_ROOT.resolve("testInputLocations");
+        FileUtils.deleteDirectory(root.toFile());
+        final Path cacheDir = root.resolve("cache");
+        final Path rulesFile = root.resolve("rules.yaml");
+        write(rulesFile, "rules:\n- action: DENY\n  from: ['*:*']\n  to: ['verboten:*']\n" +
+            "  whitelist: whitelist.yaml\n");
+        final Set<Path> expected = new HashSet<>(Arrays.asList(normalize(rulesFile.toString()),
+            normalize(root.resolve("whitelist.yaml").toString())));
+        {
+            final Config config = new YamlConfigBuilderImpl().addFile(FileAdapter.forPath(rulesFile))
+                .mavenHelper(new MockMavenHelper(new Properties())).build();
+            config.applyTo(RuleSetBuilder.create(), new MockParserListener());
+            assertTrue(config.getRuleInputs().getLocations().isEmpty());
+        }
+        for (final Path cacheDirOrNull : Arrays.asList(null, cacheDir, cacheDir)) {
+            final YamlConfigBuilderImpl builder = new YamlConfigBuilderImpl();
+            builder.addFile(FileAdapter.forPath(rulesFile)).mavenHelper(new MockMavenHelper(new Properties()));
+            if (cacheDirOrNull == null) {
+                builder.recordRuleInputs(true);
+            } else {
+                builder.cacheDirectory(cacheDirOrNull, VERSION);
+            }
+            final Config config = builder.build();
+            assertTrue(config.getRuleInputs().getLocations().isEmpty());
+            config.applyTo(RuleSetBuilder.create(), new MockParserListener());
+            final Set<Path> actual = new HashSet<>();
+            for (final String location : config.getRuleInputs().getLocations()) actual.add(normalize(location));
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static Path normalize(final String location) {
+        return Paths.get(location).toAbsolutePath().normalize();
+    }
+
+    private static boolean isPermissible(final Path cacheDir,
+                                         final Path rulesFile,
+                                         final Properties props,
+                                         final String to) throws Exception {
+        return isPermissible(cacheDir, VERSION, rulesFile, props, to);
+    }
+
+    private static boolean isPermissible(final Path cacheDir,
+                                         final String version,
+                                         final Path rulesFile,
+                                         final Properties props,
+                                         final String to) throws Exception {
+        final RuleSetBuilder rsb = RuleSetBuilder.create();
+        new YamlConfigBuilderImpl().addFile(FileAdapter.forPath(rulesFile)).mavenHelper(new MockMavenHelper(props))
+            .cacheDirectory(cacheDir, version).build().applyTo(rsb, new MockParserListener());
+        final RuleSet.PerModuleRules rules = rsb.build().getRulesFor(Coordinates.parse("my:module"));
+        return rules.checkDependency(dep(Coordinates.parse(to), COMPILE_SCOPE, true, false)).isPermissible();
+    }
+
+    private static void write(final Path path, final String content) throws Exception {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
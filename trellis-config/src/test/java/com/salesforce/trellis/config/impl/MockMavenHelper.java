@@ -30,18 +30,21 @@ public class MockMavenHelper implements MavenHelper {
     private static final String USER_HOME_VALUE = "/home/pcalahan/";
     private static final Path POM_PATH = Paths.get("/home/pcalahan/my/pom.xml");
     private final FixedStringSearchInterpolator interpolator;
+    private final Properties properties;
 
     public MockMavenHelper() {
         final Properties properties = new Properties();
         properties.setProperty(USER_HOME_KEY, USER_HOME_VALUE);
         PropertiesBasedValueSource cliProps = new PropertiesBasedValueSource(properties);
         this.interpolator = FixedStringSearchInterpolator.create(cliProps);
+        this.properties = properties;
 
     }
 
     public MockMavenHelper(Properties properties) {
         PropertiesBasedValueSource cliProps = new PropertiesBasedValueSource(properties);
         this.interpolator = FixedStringSearchInterpolator.create(cliProps);
+        this.properties = properties;
 
     }
 
@@ -67,4 +70,9 @@ public class MockMavenHelper implements MavenHelper {
         return (s) -> fssi.interpolate(s);
     }
 
+    @Override
+    public Properties getProperties() {
+        return this.properties;
+    }
+
 }
@@ -15,6 +15,8 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -25,9 +27,11 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.salesforce.trellis.config.impl.ConfigTestUtils.model2string;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -77,6 +81,28 @@ public class PathFileAdapterTest {
         adapter.executeExclusiveWrite(() -> null);
     }
 
+    @Test
+    public void testInputStream() throws Exception {
+        final Path file = Files.createTempFile("PathFileAdapterTest.testInputStream", "yaml");
+        final String content = "reason: caf\u00e9\n";
+        FileUtils.writeStringToFile(file.toFile(), content, "UTF-8");
+        final PathFileAdapter adapter = new PathFileAdapter(file);
+        try (final InputStream in = adapter.getInputStream()) {
+            assertEquals(content, IOUtils.toString(in, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void testReader() throws Exception {
+        final Path file = Files.createTempFile("PathFileAdapterTest.testReader", "yaml");
+        final String content = "reason: caf\u00e9\n";
+        FileUtils.writeStringToFile(file.toFile(), content, "UTF-8");
+        final PathFileAdapter adapter = new PathFileAdapter(file);
+        try (final Reader in = adapter.getReader()) {
+            assertEquals(content, IOUtils.toString(in));
+        }
+    }
+
     @Test
     public void testBadInputs() throws Exception {
         final PathFileAdapter adapter =
@@ -89,6 +115,39 @@ public class PathFileAdapterTest {
         assertNotEquals(adapter, "not a path");
     }
 
+    /**
+     * Ensure that readers of the same file don't block each other, and that a writer doesn't block access to other
+     * files.
+     */
+    @Test
+    public void testSharedLocks() throws Exception {
+        final Path dir = Files.createTempDirectory("PathFileAdapterTest.testSharedLocks");
+        final PathFileAdapter file1 = new PathFileAdapter(dir.resolve("file1.txt"));
+        final PathFileAdapter file2 = new PathFileAdapter(dir.resolve("file2.txt"));
+        file1.executeExclusiveWrite(() -> null);
+        file2.executeExclusiveWrite(() -> null);
+        final int READER_COUNT = 4;
+        final CyclicBarrier barrier = new CyclicBarrier(READER_COUNT);
+        final ExecutorService executor = Executors.newFixedThreadPool(READER_COUNT + 1);
+        try {
+            // all of the readers have to be inside the read lock at the same time to get past the barrier
+            final List<Future<Object>> readers = new ArrayList<>();
+            for (int i = 0; i < READER_COUNT; i++) {
+                readers.add(executor.submit(() -> new PathFileAdapter(file1.getPath()).executeExclusiveRead(
+                    () -> barrier.await(10, TimeUnit.SECONDS))));
+            }
+            for (final Future<Object> f : readers) f.get();
+            // and while we're writing file1, someone else can still write file2
+            file1.executeExclusiveWrite(() ->
+                executor.submit(() -> file2.executeExclusiveWrite(() -> null)).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        // the os-level locks must have all been released
+        file1.executeExclusiveWrite(() -> null);
+        file1.executeExclusiveRead(() -> null);
+    }
+
     @Test
     public <T> void testContention() throws Throwable {
         final int NUMBER_OF_TASK_PAIRS = 100;
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.config.impl;
+
+import com.salesforce.trellis.config.RuleInputs;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for checking whether the files and properties that went into some rules have changed.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public class RuleInputsImplTest {
+
+    private static final FileTime OLD = FileTime.fromMillis(0);
+    private static final Properties NO_PROPERTIES = new Properties();
+
+    @Test
+    public void testIsChanged() throws Exception {
+        final Path dir = Files.createTempDirectory("RuleInputsImplTest.testIsChanged");
+        final Path rulesFile = dir.resolve("rules.yaml");
+        final Path whitelistFile = dir.resolve("whitelist.yaml");
+        final byte[] rules = "rules:\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(rulesFile, rules);
+        final Map<String, String> hashes = new LinkedHashMap<>();
+        hashes.put(rulesFile.toString(), ContentHashes.hash(rules));
+        hashes.put(whitelistFile.toString(), ContentHashes.ABSENT);
+        final RuleInputs inputs = new RuleInputsImpl(hashes, new HashMap<>(), true);
+        assertFalse(inputs.isChanged(NO_PROPERTIES));
+        // touching a file without changing it doesn't count
+        Files.setLastModifiedTime(rulesFile, OLD);
+        assertFalse(inputs.isChanged(NO_PROPERTIES));
+        assertFalse(inputs.isChanged(NO_PROPERTIES));
+        // changing its contents does
+        Files.write(rulesFile, "rulez:\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(inputs.isChanged(NO_PROPERTIES));
+        Files.write(rulesFile, rules);
+        assertFalse(inputs.isChanged(NO_PROPERTIES));
+        // and creating a file that was missing does, too
+        Files.write(whitelistFile, rules);
+        assertTrue(inputs.isChanged(NO_PROPERTIES));
+        Files.delete(whitelistFile);
+        assertFalse(inputs.isChanged(NO_PROPERTIES));
+        // as does deleting one that wasn't
+        Files.delete(rulesFile);
+        assertTrue(inputs.isChanged(NO_PROPERTIES));
+    }
+
+    @Test
+    public void testPropertiesChanged() throws Exception {
+        final Map<String, String> propertyHashes = new HashMap<>();
+        propertyHashes.put("bad.group", ContentHashes.hash("verboten"));
+        propertyHashes.put("not.set", ContentHashes.ABSENT);
+        final RuleInputs inputs = new RuleInputsImpl(new HashMap<>(), propertyHashes, true);
+        final Properties props = new Properties();
+        props.setProperty("bad.group", "verboten");
+        assertFalse(inputs.isChanged(props));
+        // properties the config doesn't refer to don't matter
+        props.setProperty("env.BUILD_NUMBER", "1234");
+        assertFalse(inputs.isChanged(props));
+        // but changing, adding or removing ones that it does refer to does
+        props.setProperty("bad.group", "forbidden");
+        assertTrue(inputs.isChanged(props));
+        props.setProperty("bad.group", "verboten");
+        props.setProperty("not.set", "now it is");
+        assertTrue(inputs.isChanged(props));
+        props.remove("not.set");
+        props.remove("bad.group");
+        assertTrue(inputs.isChanged(props));
+    }
+
+    @Test
+    public void testNotReusable() {
+        final RuleInputs inputs = new RuleInputsImpl(new HashMap<>(), new HashMap<>(), false);
+        assertTrue(inputs.isChanged(NO_PROPERTIES));
+    }
+}
@@ -6,17 +6,27 @@
  */
 package com.salesforce.trellis.config.impl;
 
+import com.fasterxml.jackson.core.JsonLocation;
 import com.salesforce.trellis.common.GoldFileValidator;
 import com.salesforce.trellis.config.FileAdapter;
 import com.salesforce.trellis.config.MavenHelper;
+import com.salesforce.trellis.config.impl.SourceLocatable.SourceLocation;
+import com.salesforce.trellis.config.impl.YamlModel.RuleModel;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
 
 import static com.salesforce.trellis.config.impl.ConfigTestUtils.model2string;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test parsing coordinates yaml rules config.
@@ -59,6 +69,36 @@ public class YamlInterpolatorTest {
             .validate(model2string(interpolated));
     }
 
+    /**
+     * Ensure that parts of the model that don't need interpolating are shared rather than copied.
+     */
+    @Test
+    public void testSharing() throws Exception {
+        final RuleModel plain = new RuleModel("DENY", "foo:*", "bar:bar", "compile");
+        final RuleModel withProperty = new RuleModel("DENY", "foo:*", "${user.home}:bar", "compile");
+        final SourceLocation location =
+            new YamlSourceLocation(FileAdapter.forPath(Paths.get("rules.yaml")), JsonLocation.NA);
+        plain.setLocation(location);
+        withProperty.setLocation(location);
+        final YamlModel original = new YamlModel();
+        original.setRules(Arrays.asList(plain, withProperty));
+        final Properties props = new Properties();
+        props.setProperty("user.home", "home");
+        final YamlModelInterpolator interpolator = new YamlModelInterpolator(new MockMavenHelper(props), null);
+        final YamlModel interpolated = interpolator.interpolate(original);
+        assertSame(plain, interpolated.getRules().get(0));
+        assertNotSame(withProperty, interpolated.getRules().get(1));
+        assertSame(withProperty.getFrom().get(0), interpolated.getRules().get(1).getFrom().get(0));
+        assertEquals("home:bar", interpolated.getRules().get(1).getTo().get(0).toString());
+        assertFalse(interpolator.isNoop("to: [${foo}]".getBytes(UTF_8)));
+        assertTrue(interpolator.isNoop("to: [$foo, {}]".getBytes(UTF_8)));
+        // if there's a default reason, every rule without one needs it filled in
+        props.setProperty("trellis.rule.reason", "because");
+        final YamlModelInterpolator withDefault = new YamlModelInterpolator(new MockMavenHelper(props), null);
+        assertFalse(withDefault.isNoop("to: [$foo, {}]".getBytes(UTF_8)));
+        assertEquals("because", withDefault.interpolate(original).getRules().get(0).getReason().toString());
+    }
+
     @Test
     public void testMultilineProperties() throws Exception {
         final Path TEST_RESOURCES = RESOURCES.resolve("YamlInterpolatorTest-testMultiline");
@@ -12,6 +12,9 @@ import com.salesforce.trellis.config.impl.YamlModel.RuleModel;
 import com.salesforce.trellis.config.impl.YamlModel.WhitelistModel;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static com.salesforce.trellis.config.impl.ConfigTestUtils.string;
 import static com.salesforce.trellis.config.impl.ConfigTestUtils.stringList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -100,6 +103,15 @@ public class YamlModelTest {
         assertEquals(2, t.stripDupsAndSort(ImmutableList.of(g1, g3)).size());
     }
 
+    @Test
+    public void testStripDupsAndSort() throws Exception {
+        final YamlModelTransformer t = new YamlModelTransformer(new YamlModel());
+        assertEquals(Arrays.asList(string("a:a"), string("b:b"), string("c:c")), t.stripDupsAndSort(
+            Arrays.asList(string("c:c"), string("a:a"), string("b:b"), string("a:a"), string("c:c"), string("c:c"))));
+        assertEquals(stringList("a:a"), t.stripDupsAndSort(stringList("a:a")));
+        assertEquals(Collections.emptyList(), t.stripDupsAndSort(Collections.emptyList()));
+    }
+
     @Test
     public void testWhitelist() throws Exception {
         final YamlModel.WhitelistModel w1;
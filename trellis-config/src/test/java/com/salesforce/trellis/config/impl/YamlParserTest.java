@@ -12,6 +12,7 @@ import com.salesforce.trellis.config.Config;
 import com.salesforce.trellis.config.ConfigException;
 import com.salesforce.trellis.config.FileAdapter;
 import com.salesforce.trellis.config.MavenHelper;
+import com.salesforce.trellis.config.ParserListener;
 import com.salesforce.trellis.config.YamlConfigBuilder;
 import com.salesforce.trellis.rules.Coordinates;
 import com.salesforce.trellis.rules.RuleSet;
@@ -19,10 +20,15 @@ import com.salesforce.trellis.rules.builder.MockRuleSetBuilder;
 import com.salesforce.trellis.rules.builder.RuleSetBuilder;
 import com.salesforce.trellis.rules.impl.RulesGoldFileConfig;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 
 import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -112,13 +118,82 @@ public class YamlParserTest {
     }
 
 
+    /**
+     * Ensure that parsing on multiple threads gives the same files in the same order, with the same errors.
+     */
+    @Test
+    public void testParseThreads() throws Exception {
+        final FileAdapter basicFile = FileAdapter.forPath(RESOURCES.resolve("YamlParserTest-testBasic/testBasic.yaml"));
+        final FileAdapter cyclicFile =
+            FileAdapter.forPath(RESOURCES.resolve("YamlParserTest-testCyclicalImports/a.yaml"));
+        final List<FileAdapter> roots = Arrays.asList(cyclicFile, basicFile);
+        final List<String> expectedFiles = new ArrayList<>();
+        final List<String> expectedErrors = new ArrayList<>();
+        for (final int threads : new int[]{1, 4}) {
+            final MockParserListener listener = new MockParserListener(false);
+            final ParsedYamlFiles files = new ParsedYamlFiles(MAVEN_HELPER, new ConfigErrorReporter(listener), true,
+                false, threads, LoggerFactory.getLogger(getClass()));
+            files.parseAll(roots);
+            final List<String> actualFiles = new ArrayList<>();
+            for (final ParsedYamlFile pyf : files.getFiles()) actualFiles.add(pyf.getFile().getLocation());
+            final List<String> actualErrors = new ArrayList<>();
+            for (final ParserListener.ParserEvent e : listener.getEvents()) actualErrors.add(e.getMessage());
+            if (threads == 1) {
+                assertEquals(4, actualFiles.size());
+                assertEquals(1, actualErrors.size());
+                expectedFiles.addAll(actualFiles);
+                expectedErrors.addAll(actualErrors);
+            } else {
+                assertEquals(expectedFiles, actualFiles);
+                assertEquals(expectedErrors, actualErrors);
+            }
+        }
+        {
+            final RuleSetBuilder rb = RuleSetBuilder.create();
+            YamlConfigBuilder.create().addFile(basicFile).mavenHelper(MAVEN_HELPER).parseThreads(4).build()
+                .applyTo(rb, new MockParserListener());
+            new GoldFileValidator(RESOURCES.resolve("YamlParserTest-testBasic/testBasic.goldfile"))
+                .validate(toString(rb.build()));
+        }
+    }
+
+    /**
+     * Ensure that BreakingWriter adds the same blank lines no matter how the text is chunked, including when a line
+     * break and the line it starts are in different chunks.
+     */
+    @Test
+    public void testBreakingWriter() throws Exception {
+        final String yaml = "---\nrules:\n- action: DENY\n  from:\n  - a:b\n- action: ALLOW\n";
+        final String expected = "---\n\nrules:\n\n- action: DENY\n  from:\n  - a:b\n\n- action: ALLOW\n";
+        final StringWriter perChar = new StringWriter();
+        try (final Writer w = new YamlParser.BreakingWriter(perChar)) {
+            for (int i = 0; i < yaml.length(); i++) w.write(yaml.charAt(i));
+        }
+        assertEquals(expected, perChar.toString());
+        for (int split = 0; split <= yaml.length(); split++) {
+            final StringWriter chars = new StringWriter();
+            try (final Writer w = new YamlParser.BreakingWriter(chars)) {
+                final char[] buf = yaml.toCharArray();
+                w.write(buf, 0, split);
+                w.write(buf, split, buf.length - split);
+            }
+            assertEquals(expected, chars.toString(), "char[] split at " + split);
+            final StringWriter strings = new StringWriter();
+            try (final Writer w = new YamlParser.BreakingWriter(strings)) {
+                w.write(yaml, 0, split);
+                w.write(yaml, split, yaml.length() - split);
+            }
+            assertEquals(expected, strings.toString(), "String split at " + split);
+        }
+    }
+
     @Test
     public void testEquals() throws Exception {
         final Path TEST_RESOURCES = RESOURCES.resolve("YamlParserTest-testParsingErrors");
         final FileAdapter yamlFile = FileAdapter.forPath(TEST_RESOURCES.resolve("testParsingErrors.yaml"));
         final FileAdapter yamlFile2 = FileAdapter.forPath(TEST_RESOURCES.resolve("testParsingErrors2.yaml"));
-        ParsedYamlFile pf = ParsedYamlFile.parse(yamlFile, MAVEN_HELPER);
-        ParsedYamlFile pf2 = ParsedYamlFile.parse(yamlFile2, MAVEN_HELPER);
+        ParsedYamlFile pf = ParsedYamlFile.parse(yamlFile, MAVEN_HELPER, false);
+        ParsedYamlFile pf2 = ParsedYamlFile.parse(yamlFile2, MAVEN_HELPER, false);
 
         // Asserts path, which is why it comes out false
         assertFalse(pf.equals(pf2));
@@ -23,6 +23,7 @@ import com.salesforce.trellis.whitelist.impl.MockWhitelistedDependencyFactory;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -34,6 +35,7 @@ import java.util.Set;
 import static com.salesforce.trellis.config.impl.ConfigTestUtils.createTestFile;
 import static com.salesforce.trellis.config.impl.ConfigTestUtils.dep;
 import static com.salesforce.trellis.config.impl.ConfigTestUtils.string;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -165,6 +167,51 @@ public class YamlWhitelistTest {
     }
 
 
+    /**
+     * Ensure that deferring writes until flush() produces exactly the same file as writing after each module.
+     */
+    @Test
+    public void testDeferredWrites() throws Exception {
+        final Path TEST_RESOURCES = RESOURCES.resolve("YamlWhitelistTest-testBasicWhitelist");
+        final PathFileAdapter rulesFile = createTestFile(TEST_RESOURCES.resolve("testBasicWhitelist-rules.yaml"));
+        final PathFileAdapter whitelistFile =
+            createTestFile(TEST_RESOURCES.resolve("testBasicWhitelist-whitelist.yaml"));
+        final String originalWhitelist = new String(Files.readAllBytes(whitelistFile.getPath()), UTF_8);
+        final Whitelister w;
+        {
+            final MockParserListener listener = new MockParserListener();
+            final YamlConfigBuilderImpl yb = new YamlConfigBuilderImpl();
+            Properties props = new Properties();
+            props.put("trellis.whitelist.headerComment", "THIS IS THE DEFAULT HEADER");
+            yb.deferWhitelistWrites(true).addFile(rulesFile).mavenHelper(new MockMavenHelper(props));
+            final WhitelisterBuilder wb = WhitelisterBuilder.create();
+            yb.build().applyTo(wb, listener);
+            w = wb.build();
+            assertTrue(listener.getEvents().isEmpty());
+        }
+        {
+            final PerModuleWhitelister wl = w.getWhitelister(Coordinates.parse("sfdc.core:platform-encryption"));
+            wl.notifyDependency(OutboundDependency
+                .create(Coordinates.parse("sfdc.core:platform-encryption-api"), COMPILE_SCOPE, true, false));
+            wl.notifyDependency(
+                OutboundDependency.create(Coordinates.parse("junit:junit"), COMPILE_SCOPE, true, false));
+            wl.notifyDone();
+        }
+        w.getWhitelister(Coordinates.parse("sfdc.core:no-longer-violating-module")).notifyDone();
+        for (final String module : new String[]{"sfdc.core:another-whitelisted-model",
+            "sfdc.core:newly-whitelisted-model"}) {
+            final PerModuleWhitelister wl = w.getWhitelister(Coordinates.parse(module));
+            wl.notifyDependency(
+                OutboundDependency.create(Coordinates.parse("junit:junit"), COMPILE_SCOPE, true, false));
+            wl.notifyDone();
+        }
+        // nothing gets written until we flush
+        assertEquals(originalWhitelist, new String(Files.readAllBytes(whitelistFile.getPath()), UTF_8));
+        w.flush();
+        final Path goldFile = TEST_RESOURCES.resolve("testBasicWhitelist-whitelist.yaml.expected");
+        new GoldFileValidator(goldFile).validate(whitelistFile.getPath());
+    }
+
     /**
      * Test boundary condition for when all of the rules have burned off.
      */
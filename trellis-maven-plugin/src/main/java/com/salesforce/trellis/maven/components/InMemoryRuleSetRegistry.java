@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.maven.components;
+
+import com.salesforce.trellis.config.ConfigException;
+import com.salesforce.trellis.config.RuleInputs;
+import com.salesforce.trellis.maven.components.SharedRuleSetRegistry.RuleSetCompiler;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps compiled RuleSets for as long as the plugin stays loaded, recompiling them only when one of the files or
+ * properties they were compiled from changes.
+ * <p>
+ * In a plain maven build, the plugin's classloader goes away at the end of the build, so this buys nothing.  But
+ * maven daemons (like mvnd) and IDEs keep plugin realms around from one build to the next; with this, those builds
+ * don't pay anything for parsing the config unless it has actually changed.  Every time the rules are asked for,
+ * the config files, their imports and whitelists, any poms named in pomDependencies and the properties the config
+ * refers to are checked against what was compiled (see RuleInputs.isChanged()).  Nothing happens in the background,
+ * so there's nothing to clean up when an entry or the plugin goes away.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class InMemoryRuleSetRegistry {
+
+    // ===================================================================
+    // Constants
+
+    /**
+     * Maximum number of distinct configurations to keep.  There's usually just one.
+     */
+    private static final int MAX_ENTRIES = 8;
+
+    // ===================================================================
+    // Fields
+
+    private static final Map<String, CompiledRuleSet> ENTRIES =
+        new LinkedHashMap<String, CompiledRuleSet>(MAX_ENTRIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CompiledRuleSet> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    // ===================================================================
+    // Constructor
+
+    private InMemoryRuleSetRegistry() {
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @param key identifies the config that the rules are compiled from.  It shouldn't depend on the values of any
+     * properties; those are checked separately, and only if the config refers to them.
+     * @param rootFiles the config files the rules are compiled from.
+     * @param properties the properties that the rules would be compiled with.
+     * @param compiler compiles the rules if there aren't any current ones.
+     * @param inputs supplies the files that went into the rules that were just compiled, or null if they aren't
+     * known, in which case the rules aren't kept.
+     * @return the rules compiled from the given config, either by a previous build or by calling the given compiler.
+     */
+    static synchronized RuleSet getRuleSet(final String key,
+                                           final List<Path> rootFiles,
+                                           final RuleSetCompiler compiler,
+                                           final Properties properties,
+                                           final Supplier<RuleInputs> inputs,
+                                           final Logger logger)
+        throws IOException, ConfigException, RuleBuildingException {
+        requireNonNull(key);
+        requireNonNull(compiler);
+        requireNonNull(properties);
+        requireNonNull(inputs);
+        requireNonNull(logger);
+        final Set<Path> roots = normalize(rootFiles);
+        final CompiledRuleSet existing = ENTRIES.get(key);
+        if (existing != null) {
+            if (existing.roots.equals(roots) && !existing.inputs.isChanged(properties)) {
+                logger.debug("using rules compiled by a previous build");
+                return existing.rules;
+            }
+            logger.debug("rules config or properties have changed since the previous build");
+            ENTRIES.remove(key);
+        }
+        final RuleSet out = compiler.compile();
+        final RuleInputs compiledInputs = inputs.get();
+        if (compiledInputs != null) ENTRIES.put(key, new CompiledRuleSet(roots, out, compiledInputs));
+        return out;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private static Set<Path> normalize(final Collection<Path> paths) {
+        final Set<Path> out = new HashSet<>();
+        for (final Path path : paths) out.add(path.toAbsolutePath().normalize());
+        return out;
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    /**
+     * A compiled RuleSet plus the files it was compiled from.
+     */
+    private static final class CompiledRuleSet {
+
+        private final Set<Path> roots;
+        private final RuleSet rules;
+        private final RuleInputs inputs;
+
+        private CompiledRuleSet(final Set<Path> roots, final RuleSet rules, final RuleInputs inputs) {
+            this.roots = requireNonNull(roots);
+            this.rules = requireNonNull(rules);
+            this.inputs = requireNonNull(inputs);
+        }
+    }
+}
@@ -6,6 +6,9 @@
  */
 package com.salesforce.trellis.maven.components;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.salesforce.trellis.config.MavenHelper;
 import com.salesforce.trellis.rules.Coordinates;
 import org.apache.maven.model.Dependency;
@@ -16,11 +19,18 @@ import org.codehaus.plexus.interpolation.fixed.FixedStringSearchInterpolator;
 import org.codehaus.plexus.interpolation.fixed.PropertiesBasedValueSource;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
-import java.io.File;
-import java.io.FileReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.Function;
@@ -35,7 +45,19 @@ import static java.util.Objects.requireNonNull;
  */
 class MavenHelperImpl implements MavenHelper {
 
+    /**
+     * Dependencies read from poms on disk, keyed by absolute path.  These are shared by every instance so that a pom
+     * is only parsed once no matter how many times the config is applied; an entry is only used as long as the
+     * pom's modification time and size are unchanged.  The size is bounded since a long-lived maven daemon can see
+     * any number of poms.
+     */
+    private static final Cache<Path, PomDependencies> POM_CACHE = CacheBuilder.newBuilder().maximumSize(1000).build();
+
     private final FixedStringSearchInterpolator interpolator;
+    private final Properties effectiveProperties;
+
+    // Projects in the current reactor, keyed by the absolute path to their poms.
+    private Map<Path, MavenProject> reactorProjects = Collections.emptyMap();
 
     /**
      * @param properties Properties that will be available for interpolation in the rule files.  Properties later in
@@ -43,7 +65,7 @@ class MavenHelperImpl implements MavenHelper {
      */
     MavenHelperImpl(final Properties... properties) {
         requireNonNull(properties);
-        final Properties effectiveProperties = new Properties();
+        this.effectiveProperties = new Properties();
         for (Properties props : properties) {
             if (props != null) effectiveProperties.putAll(props);
         }
@@ -51,27 +73,42 @@ class MavenHelperImpl implements MavenHelper {
         this.interpolator = FixedStringSearchInterpolator.create(cliProps);
     }
 
+    /**
+     * Provide the projects that maven has already loaded, so that their poms don't have to be read again.
+     */
+    void setReactorProjects(final Collection<MavenProject> projects) {
+        final Map<Path, MavenProject> map = new HashMap<>();
+        for (final MavenProject project : requireNonNull(projects)) {
+            if (project.getFile() != null && project.getOriginalModel() != null) {
+                map.put(project.getFile().toPath().toAbsolutePath().normalize(), project);
+            }
+        }
+        this.reactorProjects = map;
+    }
+
     @Override
     public Set<Coordinates> getDependenciesFromPom(Path pathToPom) throws IOException {
         requireNonNull(pathToPom, "path can't be null");
+        final Path pom = pathToPom.toAbsolutePath().normalize();
+        final MavenProject reactorProject = this.reactorProjects.get(pom);
+        if (reactorProject != null) {
+            // the original model is the pom as written, which is what we'd get by reading it ourselves
+            return toCoordinates(reactorProject.getOriginalModel().getDependencies());
+        }
+        final BasicFileAttributes attrs = Files.readAttributes(pom, BasicFileAttributes.class);
+        final PomDependencies cached = POM_CACHE.getIfPresent(pom);
+        if (cached != null && cached.isCurrent(attrs)) return cached.dependencies;
         final Model model;
-        final FileReader reader;
-        final File pomFile = pathToPom.toFile();
-        reader = new FileReader(pomFile);
-        try {
-            model = new MavenXpp3Reader().read(reader);
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(pom))) {
+            // this honors the encoding in the xml declaration, defaulting to UTF-8
+            model = new MavenXpp3Reader().read(in);
         } catch (XmlPullParserException xpe) {
             throw new IOException(xpe);
         }
-        model.setPomFile(pomFile);
-        final MavenProject project = new MavenProject(model);
-        final Set<Coordinates> out = new HashSet<Coordinates>();
-        for (final Dependency dep : project.getDependencies()) {
-            out.add(Coordinates.of(dep.getGroupId(), dep.getArtifactId()));
-        }
+        final Set<Coordinates> out = toCoordinates(model.getDependencies());
+        POM_CACHE.put(pom, new PomDependencies(attrs, out));
         return out;
     }
-
     @Override
     public Function<String, String> getInterpolator() {
         return (s) -> this.interpolator.interpolate(s);
@@ -84,4 +121,34 @@ class MavenHelperImpl implements MavenHelper {
             FixedStringSearchInterpolator.create(additionalValues, this.interpolator);
         return (s) -> fssi.interpolate(s);
     }
+
+    @Override
+    public Properties getProperties() {
+        return this.effectiveProperties;
+    }
+
+    private static Set<Coordinates> toCoordinates(final List<Dependency> dependencies) {
+        final ImmutableSet.Builder<Coordinates> out = ImmutableSet.builder();
+        for (final Dependency dep : dependencies) {
+            out.add(Coordinates.of(dep.getGroupId(), dep.getArtifactId()));
+        }
+        return out.build();
+    }
+
+    private static final class PomDependencies {
+
+        private final FileTime lastModified;
+        private final long size;
+        private final Set<Coordinates> dependencies;
+
+        PomDependencies(final BasicFileAttributes attrs, final Set<Coordinates> dependencies) {
+            this.lastModified = attrs.lastModifiedTime();
+            this.size = attrs.size();
+            this.dependencies = requireNonNull(dependencies);
+        }
+
+        boolean isCurrent(final BasicFileAttributes attrs) {
+            return this.lastModified.equals(attrs.lastModifiedTime()) && this.size == attrs.size();
+        }
+    }
 }
@@ -6,10 +6,12 @@
  */
 package com.salesforce.trellis.maven.components;
 
+import com.google.common.hash.Hashing;
 import com.salesforce.trellis.config.Config;
 import com.salesforce.trellis.config.ConfigException;
 import com.salesforce.trellis.config.FileAdapter;
 import com.salesforce.trellis.config.ParserListener;
+import com.salesforce.trellis.config.RuleInputs;
 import com.salesforce.trellis.config.YamlConfigBuilder;
 import com.salesforce.trellis.rules.builder.RuleSetBuilder;
 import com.salesforce.trellis.whitelist.builder.WhitelisterBuilder;
@@ -19,6 +21,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -30,6 +33,8 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
 import static java.util.Objects.requireNonNull;
@@ -42,9 +47,17 @@ import static java.util.Objects.requireNonNull;
  */
 class ReactorDependencyRulesConfig {
 
+    // Upper bound on the number of threads used to parse the rules files.
+    private static final int MAX_PARSE_THREADS = 8;
+
     private final Logger logger = LoggerFactory.getLogger(ReactorDependencyRulesConfig.class);
     private final MavenSession mavenSession;
     private Properties pluginPropertiesOrNull;
+    private boolean useRuleSetCache;
+    private boolean recordRuleInputs;
+    private String pluginVersionOrNull;
+    private boolean deferWhitelistWrites;
+    private RuleInputs ruleInputsOrNull;
 
     // Relative file path(s) to dependency enforcer rules configuration file from the reactor root.
     // Or any absolute file path(s).
@@ -66,11 +79,68 @@ class ReactorDependencyRulesConfig {
         this.pluginPropertiesOrNull = requireNonNull(pluginProperties);
     }
 
+    void setRuleSetCache(final boolean useRuleSetCache) {
+        this.useRuleSetCache = useRuleSetCache;
+    }
+
+    void setRecordRuleInputs(final boolean recordRuleInputs) {
+        this.recordRuleInputs = recordRuleInputs;
+    }
+
+    void setPluginVersion(final String pluginVersionOrNull) {
+        this.pluginVersionOrNull = pluginVersionOrNull;
+    }
+
+    void setDeferWhitelistWrites(final boolean deferWhitelistWrites) {
+        this.deferWhitelistWrites = deferWhitelistWrites;
+    }
+
+    /**
+     * @return a string that identifies the config files and properties that this configuration will be built
+     * from, suitable for sharing the compiled rules with other plugin executions in the same build.
+     */
+    String getCacheKey() {
+        final StringBuilder sb = new StringBuilder();
+        appendConfig(sb);
+        appendProperties(sb, this.mavenSession.getSystemProperties());
+        appendProperties(sb, this.mavenSession.getUserProperties());
+        appendProperties(sb, this.pluginPropertiesOrNull);
+        return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @return a string that identifies the config files that this configuration will be built from, but not the
+     * properties, suitable for reusing the compiled rules in later builds as long as the properties that the config
+     * actually refers to haven't changed.  Those are checked separately, since some properties (e.g., env.*) will
+     * differ in every build.
+     */
+    String getReuseKey() {
+        final StringBuilder sb = new StringBuilder();
+        appendConfig(sb);
+        return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @return all of the properties that are available to the config.
+     */
+    Properties getProperties() {
+        return createMavenHelper().getProperties();
+    }
+
     /**
      * Apply the configuration to the given rules builder.
      */
     void applyTo(RuleSetBuilder reactorRulesBuilder) throws IOException, ConfigException {
-        getReactorRulesConfig().applyTo(reactorRulesBuilder, getConfigYamlParserListener());
+        final Config config = getReactorRulesConfig();
+        config.applyTo(reactorRulesBuilder, getConfigYamlParserListener());
+        this.ruleInputsOrNull = config.getRuleInputs();
+    }
+
+    /**
+     * @return the files that went into the rules the last time they were applied, or null if they haven't been.
+     */
+    RuleInputs getRuleInputs() {
+        return this.ruleInputsOrNull;
     }
 
     /**
@@ -81,28 +151,17 @@ class ReactorDependencyRulesConfig {
     }
 
     /**
-     * Get reactor scoped rules configuration.
-     *
-     * @return the reactor scoped rules configuration instance, ready to be used rules or whitelist builders.
-     * @throws FileNotFoundException
-     *             If the configuration root does not exist.
-     * @throws ConfigException
-     *             If the configuration builder runs into errors.
+     * @return the config files named by the plugin configuration, with any patterns expanded.
      */
-    private Config getReactorRulesConfig() throws IOException, ConfigException {
-        final YamlConfigBuilder configBuilder = YamlConfigBuilder.create();
-        configBuilder.mavenHelper(new MavenHelperImpl(
-                this.mavenSession.getSystemProperties(),
-                this.mavenSession.getUserProperties(),
-                this.pluginPropertiesOrNull));
-
+    List<Path> getRootFiles() throws IOException {
+        final List<Path> rootFiles = new ArrayList<>();
         for (String configFile : dependencyRulesConfigFiles) {
           Path dependencyRulesConfigFile = getReactorRoot().resolve(configFile);
 
           // Supports only the file name containing a pattern match - ex: *.yaml
           if (dependencyRulesConfigFile.getFileName().toString().contains("*")) {
             // Search the rules configuration parent directory for the matching pattern
-            // and add them to the configBuilder.
+            // and collect them.
 
              Path configDirectoryPath = dependencyRulesConfigFile;
              while(configDirectoryPath.getFileName().toString().contains("*"))
@@ -117,7 +176,7 @@ class ReactorDependencyRulesConfig {
                          throws IOException
                  {
                      if (matcherRules.matches(reactorRoot.relativize(file))) {
-                         configBuilder.addFile(FileAdapter.forPath(file));
+                         rootFiles.add(file);
                      }
                      return FileVisitResult.CONTINUE;
                  }
@@ -126,10 +185,39 @@ class ReactorDependencyRulesConfig {
           } else {
             logger.debug("Parsing reactor scoped maven dependency enforcer configuration at "
                 + dependencyRulesConfigFile);
-            configBuilder.addFile(FileAdapter.forPath(dependencyRulesConfigFile));
+            rootFiles.add(dependencyRulesConfigFile);
           }
         }
+        return rootFiles;
+    }
+
+    /**
+     * Get reactor scoped rules configuration.
+     *
+     * @return the reactor scoped rules configuration instance, ready to be used rules or whitelist builders.
+     * @throws FileNotFoundException
+     *             If the configuration root does not exist.
+     * @throws ConfigException
+     *             If the configuration builder runs into errors.
+     */
+    private Config getReactorRulesConfig() throws IOException, ConfigException {
+        final YamlConfigBuilder configBuilder = YamlConfigBuilder.create();
+        final MavenHelperImpl mavenHelper = createMavenHelper();
+        if (this.mavenSession.getProjects() != null) mavenHelper.setReactorProjects(this.mavenSession.getProjects());
+        configBuilder.mavenHelper(mavenHelper);
+
+        for (Path dependencyRulesConfigFile : getRootFiles()) {
+            configBuilder.addFile(FileAdapter.forPath(dependencyRulesConfigFile));
+        }
+
+        final Path reactorRoot = getReactorRoot();
+        if (this.useRuleSetCache && reactorRoot != null && this.pluginVersionOrNull != null) {
+            configBuilder.cacheDirectory(reactorRoot.resolve("target").resolve("trellis"), this.pluginVersionOrNull);
+        }
 
+        configBuilder.recordRuleInputs(this.recordRuleInputs);
+        configBuilder.deferWhitelistWrites(this.deferWhitelistWrites);
+        configBuilder.parseThreads(Math.min(MAX_PARSE_THREADS, Runtime.getRuntime().availableProcessors()));
         configBuilder.logger(this.logger);
         // create an instance of the Config which could later be used to create RuleSet instances
         return configBuilder.build();
@@ -152,6 +240,27 @@ class ReactorDependencyRulesConfig {
         };
     }
 
+    private MavenHelperImpl createMavenHelper() {
+        return new MavenHelperImpl(this.mavenSession.getSystemProperties(), this.mavenSession.getUserProperties(),
+            this.pluginPropertiesOrNull);
+    }
+
+    private void appendConfig(final StringBuilder sb) {
+        sb.append(getReactorRoot()).append('\n');
+        sb.append(this.pluginVersionOrNull).append('\n');
+        for (final String configFile : dependencyRulesConfigFiles) sb.append(configFile).append('\n');
+    }
+
+    private static void appendProperties(final StringBuilder sb, final Properties propertiesOrNull) {
+        sb.append("--\n");
+        if (propertiesOrNull == null) return;
+        final List<String> names = new ArrayList<>(propertiesOrNull.stringPropertyNames());
+        Collections.sort(names);
+        for (final String name : names) {
+            sb.append(name).append('=').append(propertiesOrNull.getProperty(name)).append('\n');
+        }
+    }
+
     /**
      * Get Maven reactor root directory based on MultiModuleProjectDirectory from a maven session.
      * Uses debug loggers to provide more details into the state of the maven session.
@@ -6,8 +6,10 @@
  */
 package com.salesforce.trellis.maven.components;
 
+import com.google.common.hash.Hashing;
 import com.salesforce.trellis.config.ConfigException;
 import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.RuleSetSerializer;
 import com.salesforce.trellis.rules.builder.RuleBuildingException;
 import com.salesforce.trellis.rules.builder.RuleSetBuilder;
 import org.apache.maven.execution.MavenSession;
@@ -17,10 +19,13 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Properties;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Maintains the reactor scoped maven dependency based enforcer configuration.
  *
@@ -31,8 +36,13 @@ import java.util.Properties;
 @Singleton
 public class ReactorRulesComponent {
 
+    // Upper bound on the number of dependency check results memoized across the reactor.
+    private static final long PERMISSIBILITY_CACHE_SIZE = 100000;
+
     private final Logger logger = LoggerFactory.getLogger(ReactorRulesComponent.class);
 
+    private final MavenSession mavenSession;
+
     private final ReactorDependencyRulesConfig rulesConfig;
 
     // Maven reactor scoped dependency enforcer rules.
@@ -41,14 +51,20 @@ public class ReactorRulesComponent {
     // Attempt to parse reactor rules configuration only once.
     private boolean firstAttemptToGetReactorRules = true;
 
+    // Hash of the reactor rules, computed on demand.
+    private String reactorRulesFingerprint;
+
     @Inject
     ReactorRulesComponent(MavenSession mavenSession) {
+        this.mavenSession = mavenSession;
         this.rulesConfig = new ReactorDependencyRulesConfig(mavenSession);
     }
 
     /**
      * Get reactor scoped rules. Very first time, parses the maven dependency
      * enforcer configuration file(s) at the configuration root and retains the parsed instance for reuse.
+     * The compiled rules are also shared with the copies of this component in other plugin realms, so the
+     * configuration is only parsed once per build.
      *
      * @return the reactor scoped rules, ready to use or null if the previous attempt failed
      *         with an exception.
@@ -61,19 +77,119 @@ public class ReactorRulesComponent {
      */
     public RuleSet getReactorRules(final String[] dependencyRulesConfigFiles, final Properties pluginPropertiesOrNull)
         throws IOException, ConfigException, RuleBuildingException {
+        return getReactorRules(dependencyRulesConfigFiles, pluginPropertiesOrNull, new Settings());
+    }
+
+    /**
+     * Same as above, but with optional settings for how the rules are compiled and cached.  Only the settings
+     * passed on the first call have any effect.
+     */
+    public RuleSet getReactorRules(final String[] dependencyRulesConfigFiles,
+                                   final Properties pluginPropertiesOrNull,
+                                   final Settings settings)
+        throws IOException, ConfigException, RuleBuildingException {
+        requireNonNull(settings);
         synchronized (this) {
             if (reactorRules == null && firstAttemptToGetReactorRules) {
                 firstAttemptToGetReactorRules = false;
 
-                final RuleSetBuilder reactorRulesBuilder = RuleSetBuilder.create();
-                reactorRulesBuilder.logger(logger);
                 this.rulesConfig.setDependencyRulesConfigFiles(dependencyRulesConfigFiles);
                 if (pluginPropertiesOrNull != null) this.rulesConfig.setPluginProperties(pluginPropertiesOrNull);
-                this.rulesConfig.applyTo(reactorRulesBuilder);
+                this.rulesConfig.setRuleSetCache(settings.ruleSetCache);
+                // reusing the rules in a later build means checking whether their inputs have changed
+                this.rulesConfig.setRecordRuleInputs(settings.reuseRules);
+                this.rulesConfig.setPluginVersion(settings.pluginVersion);
+                final String cacheKey = this.rulesConfig.getCacheKey();
+                final SharedRuleSetRegistry.RuleSetCompiler compiler = settings.reuseRules ?
+                    () -> InMemoryRuleSetRegistry.getRuleSet(this.rulesConfig.getReuseKey(),
+                        this.rulesConfig.getRootFiles(), this::compileRules, this.rulesConfig.getProperties(),
+                        this.rulesConfig::getRuleInputs, logger) : this::compileRules;
+                final RuleSet compiledRules =
+                    SharedRuleSetRegistry.getRuleSet(this.mavenSession, cacheKey, compiler, logger);
+                // the settings here are specific to this realm, so they're applied after the rules are shared
+                final RuleSetBuilder reactorRulesBuilder = RuleSetBuilder.create();
+                reactorRulesBuilder.logger(logger);
+                reactorRulesBuilder.decisionTables(settings.decisionTables);
+                reactorRulesBuilder.permissibilityCache(PERMISSIBILITY_CACHE_SIZE);
+                reactorRulesBuilder.addRules(compiledRules);
                 reactorRules = reactorRulesBuilder.build();
             }
         }
         return reactorRules;
     }
 
+    /**
+     * @return a hash of the reactor scoped rules, which will be the same in a later build if and only if the rules
+     * are, or null if the rules haven't been successfully loaded.
+     */
+    public synchronized String getReactorRulesFingerprint() {
+        if (reactorRulesFingerprint == null && reactorRules != null) {
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                RuleSetSerializer.create().write(reactorRules, out);
+                reactorRulesFingerprint = Hashing.sha256().hashBytes(out.toByteArray()).toString();
+            } catch (IOException | RuntimeException e) {
+                logger.debug("unable to fingerprint reactor rules", e);
+            }
+        }
+        return reactorRulesFingerprint;
+    }
+
+    private RuleSet compileRules() throws IOException, ConfigException, RuleBuildingException {
+        final RuleSetBuilder builder = RuleSetBuilder.create();
+        builder.logger(logger);
+        this.rulesConfig.applyTo(builder);
+        return builder.build();
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    /**
+     * Optional settings for getReactorRules().  Everything is off by default.
+     */
+    public static final class Settings {
+
+        private boolean decisionTables = false;
+        private boolean ruleSetCache = false;
+        private boolean reuseRules = false;
+        private String pluginVersion = null;
+
+        /**
+         * Compile each module's rules into decision tables.
+         */
+        public Settings decisionTables(final boolean enabled) {
+            this.decisionTables = enabled;
+            return this;
+        }
+
+        /**
+         * Reuse the rules compiled by a previous build (from target/trellis under the reactor root) if none of the
+         * config files or the properties they refer to have changed since.  This only has an effect if the plugin
+         * version is also given.
+         */
+        public Settings ruleSetCache(final boolean enabled) {
+            this.ruleSetCache = enabled;
+            return this;
+        }
+
+        /**
+         * Keep the compiled rules in memory for as long as the plugin stays loaded, so that later builds in the same
+         * JVM (e.g., in a maven daemon or an IDE) can reuse them if none of the config files or the properties they
+         * refer to have changed.
+         */
+        public Settings reuseRules(final boolean enabled) {
+            this.reuseRules = enabled;
+            return this;
+        }
+
+        /**
+         * The version of the plugin that's asking.  Rules compiled by one version of the plugin are never used by
+         * another.
+         */
+        public Settings pluginVersion(final String versionOrNull) {
+            this.pluginVersion = versionOrNull;
+            return this;
+        }
+    }
 }
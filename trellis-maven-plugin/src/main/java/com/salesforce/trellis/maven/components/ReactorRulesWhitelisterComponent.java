@@ -11,6 +11,8 @@ import com.salesforce.trellis.rules.builder.RuleBuildingException;
 import com.salesforce.trellis.whitelist.Whitelister;
 import com.salesforce.trellis.whitelist.builder.WhitelisterBuilder;
 import org.apache.maven.execution.MavenSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,6 +31,8 @@ import java.util.Properties;
 @Singleton
 public class ReactorRulesWhitelisterComponent {
 
+    private final Logger logger = LoggerFactory.getLogger(ReactorRulesWhitelisterComponent.class);
+
     private final ReactorDependencyRulesConfig rulesConfig;
 
     // Maven reactor scoped dependency enforcer rules whitelist configuration updater.
@@ -37,6 +41,9 @@ public class ReactorRulesWhitelisterComponent {
     // Attempt to parse reactor rules configuration only once.
     private boolean firstAttemptToGetReactorRulesWhitelister = true;
 
+    // Whether flush() is guaranteed to be called at the end of the session.
+    private volatile boolean flushedAtSessionEnd = false;
+
     @Inject
     ReactorRulesWhitelisterComponent(MavenSession mavenSession) {
         this.rulesConfig = new ReactorDependencyRulesConfig(mavenSession);
@@ -58,6 +65,18 @@ public class ReactorRulesWhitelisterComponent {
     public Whitelister getReactorRulesWhitelister(final String[] dependencyRulesConfigFiles,
                                                   final Properties pluginPropertiesOrNull)
         throws IOException, ConfigException, RuleBuildingException {
+        return getReactorRulesWhitelister(dependencyRulesConfigFiles, pluginPropertiesOrNull, false);
+    }
+
+    /**
+     * Same as above, but optionally collects all of the whitelist updates in memory and writes each whitelist file
+     * just once, at the end of the session.  This is only honored if flush() will actually be called then, i.e., if
+     * the plugin is running as a build extension.  Only the setting passed on the first call has any effect.
+     */
+    public Whitelister getReactorRulesWhitelister(final String[] dependencyRulesConfigFiles,
+                                                  final Properties pluginPropertiesOrNull,
+                                                  final boolean deferWrites)
+        throws IOException, ConfigException, RuleBuildingException {
         synchronized (this) {
             if (reactorRulesWhitelister == null && firstAttemptToGetReactorRulesWhitelister) {
                 firstAttemptToGetReactorRulesWhitelister = false;
@@ -65,6 +84,11 @@ public class ReactorRulesWhitelisterComponent {
                 final WhitelisterBuilder reactorRulesWhiteListBuilder = WhitelisterBuilder.create();
                 this.rulesConfig.setDependencyRulesConfigFiles(dependencyRulesConfigFiles);
                 if (pluginPropertiesOrNull != null) this.rulesConfig.setPluginProperties(pluginPropertiesOrNull);
+                if (deferWrites && !flushedAtSessionEnd) {
+                    logger.warn("Ignoring deferWhitelistWrites; it requires the plugin to be declared with"
+                        + " <extensions>true</extensions>.");
+                }
+                this.rulesConfig.setDeferWhitelistWrites(deferWrites && flushedAtSessionEnd);
                 this.rulesConfig.applyTo(reactorRulesWhiteListBuilder);
                 reactorRulesWhitelister = reactorRulesWhiteListBuilder.build();
             }
@@ -72,4 +96,22 @@ public class ReactorRulesWhitelisterComponent {
 
         return reactorRulesWhitelister;
     }
+
+    /**
+     * Write out any deferred whitelist updates.
+     */
+    public void flush() throws IOException {
+        final Whitelister whitelister;
+        synchronized (this) {
+            whitelister = this.reactorRulesWhitelister;
+        }
+        if (whitelister != null) whitelister.flush();
+    }
+
+    /**
+     * Called to indicate that flush() will be called at the end of the session.
+     */
+    void setFlushedAtSessionEnd() {
+        this.flushedAtSessionEnd = true;
+    }
 }
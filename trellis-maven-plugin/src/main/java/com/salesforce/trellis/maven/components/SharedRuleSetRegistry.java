@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.maven.components;
+
+import com.salesforce.trellis.config.ConfigException;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.RuleSetSerializer;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shares compiled RuleSets between all of the copies of the plugin in a single build.
+ * <p>
+ * Maven can load the plugin into several different classloaders over the course of a build, and each one gets its
+ * own ReactorRulesComponent, so caching the rules in the component still means parsing the config once per realm.
+ * Instead, the first realm to need a given config publishes its compiled rules in the repository session's data,
+ * which lives exactly as long as the build.  Objects stored there have to be JDK classes, since our own classes
+ * can't be cast across realms; so the map holds the RuleSets in serialized form, and each realm deserializes them
+ * (which is far cheaper than parsing the yaml).  If another realm is already compiling the same config, we wait for
+ * it rather than doing the work twice.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class SharedRuleSetRegistry {
+
+    // ===================================================================
+    // Constants
+
+    private static final String SESSION_DATA_KEY = "com.salesforce.trellis.compiledRuleSets";
+
+    // ===================================================================
+    // Inner interfaces
+
+    /**
+     * Compiles the RuleSet when no other realm has done so.
+     */
+    interface RuleSetCompiler {
+        RuleSet compile() throws IOException, ConfigException, RuleBuildingException;
+    }
+
+    // ===================================================================
+    // Constructor
+
+    private SharedRuleSetRegistry() {
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @param key uniquely identifies the config files and properties that the rules are compiled from.
+     * @return the rules compiled from the config identified by the given key, either by another realm or by calling
+     * the given compiler.
+     */
+    static RuleSet getRuleSet(final MavenSession session,
+                              final String key,
+                              final RuleSetCompiler compiler,
+                              final Logger logger) throws IOException, ConfigException, RuleBuildingException {
+        requireNonNull(key);
+        requireNonNull(compiler);
+        requireNonNull(logger);
+        final ConcurrentMap<String, CompletableFuture<byte[]>> map = getSharedMap(session);
+        if (map == null) return compiler.compile();
+        final CompletableFuture<byte[]> ours = new CompletableFuture<>();
+        final CompletableFuture<byte[]> theirs = map.putIfAbsent(key, ours);
+        if (theirs != null) {
+            final RuleSet shared = read(theirs, logger);
+            if (shared != null) return shared;
+            // whoever was compiling it failed.  we'll try ourselves so that the errors get reported here, too.
+            return compiler.compile();
+        }
+        final RuleSet out;
+        try {
+            out = compiler.compile();
+        } catch (Exception | Error e) {
+            map.remove(key, ours);
+            ours.completeExceptionally(e);
+            throw e;
+        }
+        ours.complete(write(out, logger));
+        return out;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, CompletableFuture<byte[]>> getSharedMap(final MavenSession session) {
+        final RepositorySystemSession repoSession = session == null ? null : session.getRepositorySession();
+        if (repoSession == null || repoSession.getData() == null) return null;
+        final SessionData data = repoSession.getData();
+        data.set(SESSION_DATA_KEY, null, new ConcurrentHashMap<String, CompletableFuture<byte[]>>());
+        return (ConcurrentMap<String, CompletableFuture<byte[]>>) data.get(SESSION_DATA_KEY);
+    }
+
+    private static RuleSet read(final CompletableFuture<byte[]> future, final Logger logger) {
+        final byte[] bytes;
+        try {
+            bytes = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+        if (bytes == null) return null;
+        try {
+            final RuleSet out = RuleSetSerializer.create().read(new ByteArrayInputStream(bytes));
+            logger.debug("using rules compiled elsewhere in the reactor");
+            return out;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("ignoring unreadable shared rules", e);
+            return null;
+        }
+    }
+
+    private static byte[] write(final RuleSet rules, final Logger logger) {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            RuleSetSerializer.create().write(rules, out);
+            return out.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            // anyone waiting on us will just compile the rules themselves
+            logger.debug("failed to share compiled rules", e);
+            return null;
+        }
+    }
+}
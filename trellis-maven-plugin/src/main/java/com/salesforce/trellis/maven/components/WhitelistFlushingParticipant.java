@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.maven.components;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes out deferred whitelist updates at the end of the build.  Maven only runs lifecycle participants from build
+ * extensions, so this only happens if the plugin is declared with {@code <extensions>true</extensions>}; otherwise,
+ * the whitelists are written as each module is processed, as usual.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@Named("trellis-whitelist-flush")
+@Singleton
+public class WhitelistFlushingParticipant extends AbstractMavenLifecycleParticipant {
+
+    private final ReactorRulesWhitelisterComponent whitelisterComponent;
+
+    @Inject
+    WhitelistFlushingParticipant(final ReactorRulesWhitelisterComponent whitelisterComponent) {
+        this.whitelisterComponent = requireNonNull(whitelisterComponent);
+    }
+
+    @Override
+    public void afterProjectsRead(final MavenSession session) {
+        this.whitelisterComponent.setFlushedAtSessionEnd();
+    }
+
+    @Override
+    public void afterSessionEnd(final MavenSession session) throws MavenExecutionException {
+        try {
+            this.whitelisterComponent.flush();
+        } catch (IOException e) {
+            throw new MavenExecutionException("Unable to write deferred whitelist updates", e);
+        }
+    }
+}
@@ -6,6 +6,9 @@
  */
 package com.salesforce.trellis.maven.plugins;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.salesforce.trellis.maven.components.ReactorRulesComponent;
 import com.salesforce.trellis.rules.Coordinates;
 import com.salesforce.trellis.rules.DependencyScope;
 import com.salesforce.trellis.rules.OutboundDependency;
@@ -13,19 +16,35 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 abstract class AbstractMavenDependencyPlugin extends AbstractMojo {
 
+    // Name of the file under target/trellis that records the last successful check of a project's dependencies.
+    private static final String FINGERPRINT_FILE_NAME = "enforced-dependencies.sha256";
+
+    // Change this whenever what goes into a fingerprint, or how dependencies are checked, changes.
+    private static final int FINGERPRINT_VERSION = 1;
+
     private Logger logger = LoggerFactory.getLogger(MavenDependencyEnforcerPlugin.class);
 
     // Current maven project.
@@ -43,6 +62,21 @@ abstract class AbstractMavenDependencyPlugin extends AbstractMojo {
     @Parameter
     private Properties properties;
 
+    @Parameter(property = "trellis.decisionTables")
+    private boolean decisionTables = false;
+
+    @Parameter(property = "trellis.ruleSetCache")
+    private boolean ruleSetCache = true;
+
+    @Parameter(property = "trellis.incremental")
+    private boolean incremental = false;
+
+    @Parameter(property = "trellis.reuseRules")
+    private boolean reuseRules = false;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor pluginDescriptor;
+
     // Lazily-built set describing all of the artifacts on which we have a direct/declared dependency. Dependency
     // doesn't implement equals/hashCode so we have to do it this way.
     private Set<Coordinates> directDependencies;
@@ -75,6 +109,57 @@ abstract class AbstractMavenDependencyPlugin extends AbstractMojo {
         return properties;
     }
 
+    /**
+     * @return whether each module's rules should be compiled into decision tables before checking dependencies.
+     */
+    protected boolean isDecisionTables() {
+        return decisionTables;
+    }
+
+    /**
+     * @return whether compiled rules should be cached on disk between builds.
+     */
+    protected boolean isRuleSetCache() {
+        return ruleSetCache;
+    }
+
+    /**
+     * @return whether modules whose dependencies and rules haven't changed since they were last successfully checked
+     * should be skipped.
+     */
+    protected boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @return whether compiled rules should be kept in memory and reused by later builds in the same JVM for as long
+     * as the config files and the properties they refer to don't change.
+     */
+    protected boolean isReuseRules() {
+        return reuseRules;
+    }
+
+    /**
+     * @return the version of this plugin, or null if it isn't known.  The code in a snapshot can change without the
+     * version changing, so for those, this includes the timestamp of the plugin jar.
+     */
+    protected String getPluginVersion() {
+        if (pluginDescriptor == null || pluginDescriptor.getVersion() == null) return null;
+        final Artifact pluginArtifact = pluginDescriptor.getPluginArtifact();
+        if (pluginArtifact != null && pluginArtifact.isSnapshot() && pluginArtifact.getFile() != null) {
+            return pluginDescriptor.getVersion() + "@" + pluginArtifact.getFile().lastModified();
+        }
+        return pluginDescriptor.getVersion();
+    }
+
+    /**
+     * @return the settings for compiling and caching the reactor rules, as configured in the plugin.
+     */
+    protected ReactorRulesComponent.Settings getReactorRulesSettings() {
+        return new ReactorRulesComponent.Settings().decisionTables(isDecisionTables()).ruleSetCache(isRuleSetCache())
+            .reuseRules(isReuseRules()).pluginVersion(getPluginVersion());
+    }
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (skip) {
@@ -93,14 +178,85 @@ abstract class AbstractMavenDependencyPlugin extends AbstractMojo {
     OutboundDependency toTrellisDependency(Artifact dependencyArtifact) {
         if (directDependencies == null) {
             // lazily figure out which of our deps are direct
-            this.directDependencies = new HashSet<>();
-            getMavenProject().getDependencies()
-                .forEach(d -> directDependencies.add(Coordinates.of(d.getGroupId(), d.getArtifactId())));
+            this.directDependencies = getDirectDependencies(getMavenProject());
         }
+        return toTrellisDependency(dependencyArtifact, directDependencies);
+    }
+
+    /**
+     * @return the coordinates of all of the dependencies declared in the given project's pom.
+     */
+    static Set<Coordinates> getDirectDependencies(MavenProject project) {
+        final Set<Coordinates> out = new HashSet<>();
+        project.getDependencies().forEach(d -> out.add(Coordinates.of(d.getGroupId(), d.getArtifactId())));
+        return out;
+    }
+
+    /**
+     * Wraps a maven Artifact, given the direct dependencies of the project that depends on it.
+     */
+    static OutboundDependency toTrellisDependency(Artifact dependencyArtifact, Set<Coordinates> directDependencies) {
         Coordinates to = Coordinates.of(dependencyArtifact.getGroupId(), dependencyArtifact.getArtifactId(),
             dependencyArtifact.getVersion());
         return OutboundDependency
             .create(to, DependencyScope.parse(dependencyArtifact.getScope()), directDependencies.contains(to),
                 dependencyArtifact.isOptional());
     }
+
+    /**
+     * @param rulesFingerprint a hash of the rules the dependencies are checked against.
+     * @return a hash of the given rules, the plugin version and all of the current project's resolved dependencies.
+     * It only changes if something that could change the result of checking the dependencies does.  Returns null if
+     * the plugin version isn't known, since then there's no telling whether the code doing the checking has changed.
+     */
+    String getDependencyFingerprint(String rulesFingerprint) {
+        final String pluginVersion = getPluginVersion();
+        if (pluginVersion == null) return null;
+        final List<String> lines = new ArrayList<>();
+        for (Artifact dependencyArtifact : getMavenProject().getArtifacts()) {
+            final OutboundDependency dep = toTrellisDependency(dependencyArtifact);
+            lines.add(dependencyArtifact.getId() + " " + dep.getScope() + " " +
+                (dep.isDirect() ? "direct" : "transitive") + " " + (dep.isOptional() ? "optional" : "required"));
+        }
+        Collections.sort(lines);
+        final Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FINGERPRINT_VERSION).putString(pluginVersion, UTF_8).putChar('\n');
+        hasher.putString(requireNonNull(rulesFingerprint), UTF_8).putChar('\n');
+        hasher.putString(getMavenProjectCoordinates().toString(), UTF_8).putChar('\n');
+        for (String line : lines) hasher.putString(line, UTF_8).putChar('\n');
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return the fingerprint recorded the last time the current project's dependencies were successfully checked,
+     * or null if there isn't one.
+     */
+    String readRecordedFingerprint() {
+        try {
+            return new String(Files.readAllBytes(getFingerprintFile()), UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.debug("Unable to read " + getFingerprintFile(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Record the fingerprint of dependencies that were just successfully checked.  Failure to do so isn't fatal;
+     * they'll just be checked again next time.
+     */
+    void recordFingerprint(String fingerprint) {
+        final Path file = getFingerprintFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, fingerprint.getBytes(UTF_8));
+        } catch (IOException e) {
+            logger.warn("Unable to write " + file + ": " + e.getMessage());
+        }
+    }
+
+    private Path getFingerprintFile() {
+        return Paths.get(getMavenProject().getBuild().getDirectory(), "trellis", FINGERPRINT_FILE_NAME);
+    }
 }
@@ -9,6 +9,7 @@ package com.salesforce.trellis.maven.plugins;
 import com.google.common.base.Stopwatch;
 import com.salesforce.trellis.config.ConfigException;
 import com.salesforce.trellis.maven.components.ReactorRulesComponent;
+import com.salesforce.trellis.rules.OutboundDependency;
 import com.salesforce.trellis.rules.Permissibility;
 import com.salesforce.trellis.rules.RuleSet;
 import com.salesforce.trellis.rules.builder.RuleBuildingException;
@@ -25,9 +26,9 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 
@@ -57,13 +58,22 @@ public class MavenDependencyEnforcerPlugin extends AbstractMavenDependencyPlugin
         try {
             // Get the reactor scoped dependency enforcement rules.
             RuleSet reactorRules =
-                reactorRulesComponent.getReactorRules(getDependencyRulesConfigFiles(), getProperties());
+                reactorRulesComponent.getReactorRules(getDependencyRulesConfigFiles(), getProperties(),
+                    getReactorRulesSettings());
             if (reactorRules == null) {
                 logger.warn("Skipping enforcer validations."
                                 + " Unable to read reactor scoped maven dependency enforcer configuration.");
                 return;
             }
 
+            // Skip the check if nothing has changed since the last successful one.
+            final String rulesFingerprint = isIncremental() ? reactorRulesComponent.getReactorRulesFingerprint() : null;
+            final String fingerprint = rulesFingerprint == null ? null : getDependencyFingerprint(rulesFingerprint);
+            if (fingerprint != null && fingerprint.equals(readRecordedFingerprint())) {
+                logger.info("Dependencies and rules are unchanged since they were last checked.");
+                return;
+            }
+
             final Stopwatch t = Stopwatch.createStarted();
             // Get the enforcement rules applicable for the current maven project.
             RuleSet.PerModuleRules moduleRules = reactorRules.getRulesFor(getMavenProjectCoordinates());
@@ -74,55 +84,53 @@ public class MavenDependencyEnforcerPlugin extends AbstractMavenDependencyPlugin
 
             // Validate the module dependencies against the rules.
             validateModuleDependencyRules(moduleRules);
+            if (fingerprint != null) recordFingerprint(fingerprint);
 
             logger.info("Successfully checked dependency constraints in " + t.toString());
+            if (reactorRules.getCacheStatistics() != null) {
+                logger.debug("Dependency check cache: " + reactorRules.getCacheStatistics());
+            }
         } catch (IOException | ConfigException | RuleBuildingException exception) {
             throw new MojoExecutionException("Unable to validate maven dependency enforcement rules ", exception);
         }
     }
 
     private void validateModuleDependencyRules(RuleSet.PerModuleRules moduleRules) throws MojoExecutionException {
-        Map<String, String> disallowedDependencies = new HashMap<String,String>();
-
+        final Map<OutboundDependency, Artifact> artifacts = new IdentityHashMap<>();
+        final List<OutboundDependency> dependencies = new ArrayList<>();
         for (Artifact dependencyArtifact : getMavenProject().getArtifacts()) {
-            Permissibility permissibility = moduleRules.checkDependency(toTrellisDependency(dependencyArtifact));
-            if (permissibility.isDiscouraged()) {
-                logger.warn("The dependency " + dependencyArtifact + " is discouraged for this project! "
-                                + (permissibility.getReason() == null ? "" : permissibility.getReason()));
-            }
-            if (!permissibility.isPermissible()) {
+            final OutboundDependency dependency = toTrellisDependency(dependencyArtifact);
+            artifacts.put(dependency, dependencyArtifact);
+            dependencies.add(dependency);
+        }
+        final RuleSet.DependencyCheckResults results = moduleRules.checkDependencies(dependencies);
+
+        results.getDiscouraged().forEach((dependency, permissibility) ->
+            logger.warn("The dependency " + artifacts.get(dependency) + " is discouraged for this project! "
+                + (permissibility.getReason() == null ? "" : permissibility.getReason())));
+
+        // Are there any disallowed dependencies?
+        final Map<OutboundDependency, Permissibility> disallowed = results.getDisallowed();
+        if (disallowed.size() > 0) {
+            final StringBuilder exceptionLog = new StringBuilder();
+            exceptionLog.append(disallowed.size() == 1 ?
+                "\nThe following dependency is not allowed for this project:" :
+                "\nThe following dependencies are not allowed for this project:");
+            exceptionLog.append("\n\n");
+            disallowed.forEach((dependency, permissibility) -> {
+                final Artifact dependencyArtifact = artifacts.get(dependency);
                 if (permissibility.getReason() == null) {
                     logger.error(dependencyArtifact.toString() + " dependency is disallowed.");
-                    disallowedDependencies.put(dependencyArtifact.toString(), "");
-                }
-                else {
+                    exceptionLog.append(dependencyArtifact);
+                } else {
                     logger.error(dependencyArtifact.toString() + " dependency is disallowed. "
                             + permissibility.getReason());
-                    disallowedDependencies.put(dependencyArtifact.toString(), permissibility.getReason());
+                    exceptionLog.append(dependencyArtifact).append(":\n").append(permissibility.getReason());
                 }
-            }
-        }
-
-        // Are there any disallowed dependencies?
-        Set<String> disallowedKeys = disallowedDependencies.keySet();
-        if (disallowedKeys.size() > 0) {
-            String exceptionLog = "\n\n";
-            for (String key : disallowedKeys) {
-                if (disallowedDependencies.get(key).equals(""))
-                    exceptionLog = exceptionLog + key;
-                else
-                    exceptionLog = exceptionLog + key + ":\n" + disallowedDependencies.get(key);
-
-                exceptionLog = exceptionLog + "\n\n";
-            }
-
-            if (disallowedKeys.size() == 1)
-                exceptionLog = "\nThe following dependency is not allowed for this project:" + exceptionLog;
-            else
-                exceptionLog = "\nThe following dependencies are not allowed for this project:" + exceptionLog;
-
-
-            throw new MojoExecutionException(exceptionLog + getAdditionalInfoOnError());
+                exceptionLog.append("\n\n");
+            });
+            exceptionLog.append(getAdditionalInfoOnError());
+            throw new MojoExecutionException(exceptionLog.toString());
         }
     }
 }
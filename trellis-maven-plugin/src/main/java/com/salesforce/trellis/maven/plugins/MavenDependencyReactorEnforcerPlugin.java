@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.maven.plugins;
+
+import com.google.common.base.Stopwatch;
+import com.salesforce.trellis.config.ConfigException;
+import com.salesforce.trellis.maven.components.ReactorRulesComponent;
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.Permissibility;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.RuleBuildingException;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Checks the dependencies of every module in the reactor in a single pass.  This is equivalent to running the
+ * 'enforce' goal on each module, but it only runs once per build, which makes it a cheaper choice when enforcement
+ * is run as a separate step.
+ * <p>
+ * Every dependency of every module is collected up front.  A dependency only has to be checked once for each
+ * distinct set of module rules, and the distinct checks are spread across a fork-join pool.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+@Mojo(name = "enforce-reactor", defaultPhase = LifecyclePhase.VALIDATE, aggregator = true, threadSafe = true,
+                requiresDependencyResolution = ResolutionScope.TEST, requiresProject = true)
+public class MavenDependencyReactorEnforcerPlugin extends AbstractMavenDependencyPlugin {
+
+    private Logger logger = LoggerFactory.getLogger(MavenDependencyReactorEnforcerPlugin.class);
+
+    private final MavenSession mavenSession;
+
+    // Maven Reactor scoped rules provider.
+    private ReactorRulesComponent reactorRulesComponent;
+
+    @Inject
+    public MavenDependencyReactorEnforcerPlugin(MavenProject mavenProject,
+                                                MavenSession mavenSession,
+                                                ReactorRulesComponent reactorRulesComponent) {
+        super(mavenProject);
+        this.mavenSession = requireNonNull(mavenSession);
+        this.reactorRulesComponent = requireNonNull(reactorRulesComponent);
+    }
+
+    @Override
+    public void doExecute() throws MojoExecutionException, MojoFailureException {
+        try {
+            // Get the reactor scoped dependency enforcement rules.
+            RuleSet reactorRules =
+                reactorRulesComponent.getReactorRules(getDependencyRulesConfigFiles(), getProperties(),
+                    getReactorRulesSettings());
+            if (reactorRules == null) {
+                logger.warn("Skipping enforcer validations."
+                                + " Unable to read reactor scoped maven dependency enforcer configuration.");
+                return;
+            }
+
+            final Stopwatch t = Stopwatch.createStarted();
+            final List<Check> checks = new ArrayList<>();
+            final Map<MavenProject, List<Edge>> edges = collectEdges(reactorRules, checks);
+            runChecks(checks);
+            validateReactorDependencyRules(edges);
+
+            logger.info("Successfully checked dependency constraints of " + edges.size() + " modules (" +
+                checks.size() + " distinct checks) in " + t.toString());
+            if (reactorRules.getCacheStatistics() != null) {
+                logger.debug("Dependency check cache: " + reactorRules.getCacheStatistics());
+            }
+        } catch (IOException | ConfigException | RuleBuildingException exception) {
+            throw new MojoExecutionException("Unable to validate maven dependency enforcement rules ", exception);
+        }
+    }
+
+    /**
+     * Pair up every dependency of every module with the rules it has to be checked against.  Identical checks are
+     * shared; each distinct one is added to the given list.
+     */
+    private Map<MavenProject, List<Edge>> collectEdges(final RuleSet reactorRules, final List<Check> checksOut) {
+        final Map<MavenProject, List<Edge>> out = new LinkedHashMap<>();
+        // PerModuleRules with the same rules are equal, so modules that have the same rules share the same checks
+        final Map<RuleSet.PerModuleRules, RuleSet.PerModuleRules> distinctRules = new HashMap<>();
+        final Map<Check, Check> distinctChecks = new HashMap<>();
+        for (final MavenProject project : this.mavenSession.getProjects()) {
+            final Coordinates module = Coordinates.of(project.getGroupId(), project.getArtifactId());
+            final RuleSet.PerModuleRules moduleRules = reactorRules.getRulesFor(module);
+            if (moduleRules == null) {
+                logger.debug("There are no enforcement rules for " + module);
+                continue;
+            }
+            final RuleSet.PerModuleRules rules = distinctRules.computeIfAbsent(moduleRules, r -> r);
+            final Set<Coordinates> directDependencies = getDirectDependencies(project);
+            final List<Edge> projectEdges = new ArrayList<>();
+            for (final Artifact dependencyArtifact : project.getArtifacts()) {
+                final Check check = new Check(rules, toTrellisDependency(dependencyArtifact, directDependencies));
+                final Check existing = distinctChecks.putIfAbsent(check, check);
+                if (existing == null) checksOut.add(check);
+                projectEdges.add(new Edge(dependencyArtifact, existing == null ? check : existing));
+            }
+            out.put(project, projectEdges);
+        }
+        return out;
+    }
+
+    private static void runChecks(final List<Check> checks) throws MojoExecutionException {
+        final ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.submit(() -> checks.parallelStream().forEach(Check::run)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while checking dependencies", e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Unable to check dependencies", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void validateReactorDependencyRules(final Map<MavenProject, List<Edge>> edges)
+        throws MojoExecutionException {
+        final StringBuilder exceptionLog = new StringBuilder();
+        int disallowedCount = 0;
+        for (final Map.Entry<MavenProject, List<Edge>> entry : edges.entrySet()) {
+            final String module = entry.getKey().getGroupId() + ":" + entry.getKey().getArtifactId();
+            boolean moduleHeaderWritten = false;
+            for (final Edge edge : entry.getValue()) {
+                final Permissibility permissibility = edge.check.result;
+                final String reason = permissibility.getReason() == null ? "" : permissibility.getReason();
+                if (permissibility.isDiscouraged()) {
+                    logger.warn("The dependency " + edge.artifact + " is discouraged for " + module + "! " + reason);
+                }
+                if (!permissibility.isPermissible()) {
+                    logger.error(edge.artifact + " dependency is disallowed for " + module + ". " + reason);
+                    if (!moduleHeaderWritten) {
+                        exceptionLog.append("\n").append(module).append(":\n");
+                        moduleHeaderWritten = true;
+                    }
+                    exceptionLog.append("\n  ").append(edge.artifact);
+                    if (!reason.isEmpty()) exceptionLog.append(":\n  ").append(reason);
+                    exceptionLog.append("\n");
+                    disallowedCount++;
+                }
+            }
+        }
+        if (disallowedCount > 0) {
+            final String header = disallowedCount == 1 ?
+                "\nThe following dependency is not allowed:\n" : "\nThe following dependencies are not allowed:\n";
+            throw new MojoExecutionException(header + exceptionLog + "\n" + getAdditionalInfoOnError());
+        }
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    /**
+     * A dependency of some module.
+     */
+    private static final class Edge {
+
+        private final Artifact artifact;
+        private final Check check;
+
+        Edge(final Artifact artifact, final Check check) {
+            this.artifact = requireNonNull(artifact);
+            this.check = requireNonNull(check);
+        }
+    }
+
+    /**
+     * A dependency to be checked against a set of rules, and eventually the result.
+     */
+    private static final class Check {
+
+        private final RuleSet.PerModuleRules rules;
+        private final OutboundDependency dep;
+        private volatile Permissibility result;
+
+        Check(final RuleSet.PerModuleRules rules, final OutboundDependency dep) {
+            this.rules = requireNonNull(rules);
+            this.dep = requireNonNull(dep);
+        }
+
+        void run() {
+            this.result = this.rules.checkDependency(this.dep);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Check)) return false;
+            final Check that = (Check) o;
+            return this.rules.equals(that.rules) && this.dep.getTo().equals(that.dep.getTo()) &&
+                this.dep.getScope().equals(that.dep.getScope()) && this.dep.isDirect() == that.dep.isDirect() &&
+                this.dep.isOptional() == that.dep.isOptional();
+        }
+
+        @Override
+        public int hashCode() {
+            return ((this.rules.hashCode() * 31 + this.dep.getTo().hashCode()) * 31 + this.dep.getScope().hashCode())
+                * 4 + (this.dep.isDirect() ? 2 : 0) + (this.dep.isOptional() ? 1 : 0);
+        }
+    }
+}
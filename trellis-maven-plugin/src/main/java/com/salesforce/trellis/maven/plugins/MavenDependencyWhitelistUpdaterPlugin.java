@@ -15,6 +15,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.slf4j.Logger;
@@ -40,6 +41,9 @@ public class MavenDependencyWhitelistUpdaterPlugin extends AbstractMavenDependen
     // Maven Reactor scoped rules provider.
     private ReactorRulesWhitelisterComponent reactorRulesWhitelistComponent;
 
+    @Parameter(property = "trellis.deferWhitelistWrites")
+    private boolean deferWhitelistWrites = false;
+
     @Inject
     public MavenDependencyWhitelistUpdaterPlugin(MavenProject mavenProject,
                                                  ReactorRulesWhitelisterComponent reactorRulesWhitelistComponent) {
@@ -52,7 +56,7 @@ public class MavenDependencyWhitelistUpdaterPlugin extends AbstractMavenDependen
         try {
             // Get the reactor scoped dependency enforcement rules.
             Whitelister reactorRulesWhiteLister = reactorRulesWhitelistComponent
-                .getReactorRulesWhitelister(getDependencyRulesConfigFiles(), getProperties());
+                .getReactorRulesWhitelister(getDependencyRulesConfigFiles(), getProperties(), deferWhitelistWrites);
             if (reactorRulesWhiteLister == null) {
                 logger.warn("Skipping maven dependency enforcement rules update."
                                 + " Unable to read reactor scoped maven dependency enforcer configuration.");
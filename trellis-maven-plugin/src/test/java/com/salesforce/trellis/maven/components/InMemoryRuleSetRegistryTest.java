@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.maven.components;
+
+import com.salesforce.trellis.config.RuleInputs;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.builder.RuleSetBuilder;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit test of InMemoryRuleSetRegistry
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public class InMemoryRuleSetRegistryTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryRuleSetRegistryTest.class);
+
+    /**
+     * Ensure that rules are only recompiled when one of the files or properties they were compiled from changes.
+     */
+    @Test
+    public void testRecompileOnChange() throws Exception {
+        final Path dir = Files.createTempDirectory("InMemoryRuleSetRegistryTest.testRecompileOnChange");
+        final List<Path> roots = Collections.singletonList(dir.resolve("rules.yaml"));
+        final MockRuleInputs inputs = new MockRuleInputs();
+        final AtomicInteger compileCount = new AtomicInteger();
+        final SharedRuleSetRegistry.RuleSetCompiler compiler = () -> {
+            compileCount.incrementAndGet();
+            return RuleSetBuilder.create().build();
+        };
+        final String key = dir.toString();
+        final Properties props = new Properties();
+        props.setProperty(MockRuleInputs.PROPERTY, "1");
+        final RuleSet first = InMemoryRuleSetRegistry.getRuleSet(key, roots, compiler, props, () -> inputs, LOGGER);
+        assertSame(first, InMemoryRuleSetRegistry.getRuleSet(key, roots, compiler, props, () -> inputs, LOGGER));
+        assertEquals(1, compileCount.get());
+        // the very next lookup after an input changes gets new rules
+        inputs.changed = true;
+        final RuleSet second =
+            InMemoryRuleSetRegistry.getRuleSet(key, roots, compiler, props, MockRuleInputs::new, LOGGER);
+        assertNotSame(first, second);
+        assertEquals(2, compileCount.get());
+        // as does the first lookup after a property changes
+        props.setProperty(MockRuleInputs.PROPERTY, "2");
+        assertNotSame(second, InMemoryRuleSetRegistry.getRuleSet(key, roots, compiler, props, MockRuleInputs::new,
+            LOGGER));
+        props.setProperty(MockRuleInputs.PROPERTY, "1");
+        assertEquals(3, compileCount.get());
+        // so do different root files
+        InMemoryRuleSetRegistry.getRuleSet(key, Arrays.asList(roots.get(0), dir.resolve("other.yaml")), compiler,
+            props, MockRuleInputs::new, LOGGER);
+        assertEquals(4, compileCount.get());
+        // rules whose inputs aren't known aren't kept
+        final String otherKey = key + "-other";
+        InMemoryRuleSetRegistry.getRuleSet(otherKey, roots, compiler, props, () -> null, LOGGER);
+        InMemoryRuleSetRegistry.getRuleSet(otherKey, roots, compiler, props, () -> null, LOGGER);
+        assertEquals(6, compileCount.get());
+    }
+
+    /**
+     * Counts as changed when told to, or when PROPERTY isn't "1".
+     */
+    private static final class MockRuleInputs implements RuleInputs {
+
+        private static final String PROPERTY = "referenced";
+
+        private volatile boolean changed = false;
+
+        @Override
+        public Collection<String> getLocations() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isChanged(final Properties properties) {
+            return this.changed || !"1".equals(properties.getProperty(PROPERTY));
+        }
+    }
+}
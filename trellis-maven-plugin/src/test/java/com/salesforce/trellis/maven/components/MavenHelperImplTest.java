@@ -6,12 +6,19 @@
  */
 package com.salesforce.trellis.maven.components;
 
+import com.salesforce.trellis.rules.Coordinates;
 import org.junit.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
 import java.util.Properties;
 import java.util.function.Function;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * Unit test of MavenHelperImpl
@@ -56,4 +63,26 @@ public class MavenHelperImplTest {
         assertEquals("baz = baz", custom.apply("baz = ${baz}"));
         assertEquals("bop = bop", custom.apply("bop = ${bop}"));
     }
+
+    /**
+     * Ensure that pom dependencies are only re-read when the pom changes.
+     */
+    @Test
+    public void testPomDependencyCaching() throws Exception {
+        final Path pom = Files.createTempDirectory("MavenHelperImplTest.testPomDependencyCaching").resolve("pom.xml");
+        Files.write(pom, pom("foo", "bar").getBytes(UTF_8));
+        final FileTime mtime = Files.getLastModifiedTime(pom);
+        final MavenHelperImpl helper = new MavenHelperImpl();
+        assertEquals(Collections.singleton(Coordinates.of("foo", "bar")), helper.getDependenciesFromPom(pom));
+        assertSame(helper.getDependenciesFromPom(pom), new MavenHelperImpl().getDependenciesFromPom(pom));
+        Files.write(pom, pom("foo", "bazz").getBytes(UTF_8));
+        Files.setLastModifiedTime(pom, FileTime.fromMillis(mtime.toMillis() + 2000));
+        assertEquals(Collections.singleton(Coordinates.of("foo", "bazz")), helper.getDependenciesFromPom(pom));
+    }
+
+    private static String pom(final String groupId, final String artifactId) {
+        return "<project><modelVersion>4.0.0</modelVersion><dependencies><dependency>" +
+            "<groupId>" + groupId + "</groupId><artifactId>" + artifactId + "</artifactId>" +
+            "</dependency></dependencies></project>";
+    }
 }
@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.maven.components;
+
+import com.salesforce.trellis.config.ConfigException;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.RuleSetSerializer;
+import com.salesforce.trellis.rules.builder.RuleSetBuilder;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static com.salesforce.trellis.rules.builder.RuleAction.ALLOW;
+import static com.salesforce.trellis.rules.builder.RuleAction.DENY;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit test of SharedRuleSetRegistry
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public class SharedRuleSetRegistryTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedRuleSetRegistryTest.class);
+
+    private static final String KEY = "rules";
+
+    /**
+     * Ensure that rules compiled once in a build are shared with later lookups in the same build.
+     */
+    @Test
+    public void testShared() throws Exception {
+        final MavenSession session = createSession();
+        final RuleSet rules = createRules();
+        assertSame(rules, SharedRuleSetRegistry.getRuleSet(session, KEY, () -> rules, LOGGER));
+        final RuleSet shared = SharedRuleSetRegistry.getRuleSet(session, KEY, SharedRuleSetRegistryTest::notCalled,
+            LOGGER);
+        assertArrayEquals(serialize(rules), serialize(shared));
+        // but not with other builds
+        final RuleSet other = createRules();
+        assertSame(other, SharedRuleSetRegistry.getRuleSet(createSession(), KEY, () -> other, LOGGER));
+    }
+
+    /**
+     * Ensure that a lookup waits for the rules another thread is still compiling rather than compiling them again.
+     */
+    @Test
+    public void testWaitForInFlight() throws Exception {
+        final MavenSession session = createSession();
+        final RuleSet rules = createRules();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final SharedRuleSetRegistry.RuleSetCompiler slowCompiler = () -> {
+                started.countDown();
+                await(release);
+                return rules;
+            };
+            final Future<RuleSet> producer =
+                executor.submit(() -> SharedRuleSetRegistry.getRuleSet(session, KEY, slowCompiler, LOGGER));
+            await(started);
+            final Future<RuleSet> consumer = executor.submit(() ->
+                SharedRuleSetRegistry.getRuleSet(session, KEY, SharedRuleSetRegistryTest::notCalled, LOGGER));
+            try {
+                consumer.get(200, MILLISECONDS);
+                fail("should still be waiting for the rules to be compiled");
+            } catch (TimeoutException expected) {
+            }
+            release.countDown();
+            assertSame(rules, producer.get(10, SECONDS));
+            assertArrayEquals(serialize(rules), serialize(consumer.get(10, SECONDS)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ensure that a lookup compiles the rules itself if the thread it was waiting on fails to.
+     */
+    @Test
+    public void testProducerFails() throws Exception {
+        final MavenSession session = createSession();
+        final RuleSet rules = createRules();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final SharedRuleSetRegistry.RuleSetCompiler failingCompiler = () -> {
+                started.countDown();
+                await(release);
+                throw new ConfigException("broken");
+            };
+            final Future<RuleSet> producer =
+                executor.submit(() -> SharedRuleSetRegistry.getRuleSet(session, KEY, failingCompiler, LOGGER));
+            await(started);
+            final Future<RuleSet> consumer = executor.submit(() ->
+                SharedRuleSetRegistry.getRuleSet(session, KEY, () -> rules, LOGGER));
+            release.countDown();
+            try {
+                producer.get(10, SECONDS);
+                fail("should have failed");
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof ConfigException);
+            }
+            assertSame(rules, consumer.get(10, SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ensure that a failure to compile the rules isn't remembered.
+     */
+    @Test
+    public void testFailureNotShared() throws Exception {
+        final MavenSession session = createSession();
+        try {
+            SharedRuleSetRegistry.getRuleSet(session, KEY, () -> {
+                throw new ConfigException("broken");
+            }, LOGGER);
+            fail("should have failed");
+        } catch (ConfigException expected) {
+        }
+        final RuleSet rules = createRules();
+        assertSame(rules, SharedRuleSetRegistry.getRuleSet(session, KEY, () -> rules, LOGGER));
+    }
+
+    /**
+     * Ensure that rules compiled by one copy of the plugin can be used by another copy in a different classloader,
+     * as happens when maven gives the plugin more than one realm.
+     */
+    @Test
+    public void testOtherRealm() throws Exception {
+        final MavenSession session = createSession();
+        final RuleSet rules = createRules();
+        SharedRuleSetRegistry.getRuleSet(session, KEY, () -> rules, LOGGER);
+        try (URLClassLoader realm = new PluginRealm()) {
+            final Class<?> registryClass = realm.loadClass(SharedRuleSetRegistry.class.getName());
+            assertNotSame(SharedRuleSetRegistry.class, registryClass);
+            final Class<?> compilerClass = realm.loadClass(SharedRuleSetRegistry.RuleSetCompiler.class.getName());
+            final Object compiler = Proxy.newProxyInstance(realm, new Class<?>[]{compilerClass},
+                (proxy, method, args) -> notCalled());
+            final Method getRuleSet = registryClass.getDeclaredMethod("getRuleSet", MavenSession.class, String.class,
+                compilerClass, Logger.class);
+            getRuleSet.setAccessible(true);
+            final Object shared = getRuleSet.invoke(null, session, KEY, compiler, LOGGER);
+            assertSame(realm, shared.getClass().getClassLoader());
+            // write them back out using that realm's classes to make sure nothing was lost
+            final Class<?> serializerClass = realm.loadClass(RuleSetSerializer.class.getName());
+            final Object serializer = serializerClass.getMethod("create").invoke(null);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            serializerClass.getMethod("write", realm.loadClass(RuleSet.class.getName()), OutputStream.class)
+                .invoke(serializer, shared, out);
+            assertArrayEquals(serialize(rules), out.toByteArray());
+        }
+    }
+
+    // ===================================================================
+    // Private
+
+    private static MavenSession createSession() {
+        return new MavenSession(null, new DefaultRepositorySystemSession(), new DefaultMavenExecutionRequest(),
+            new DefaultMavenExecutionResult());
+    }
+
+    private static RuleSet createRules() throws Exception {
+        final RuleSetBuilder builder = RuleSetBuilder.create();
+        builder.rule().action(ALLOW).from("myapp:*-impl").to("myapp:*-api").build();
+        builder.rule().action(DENY).from("myapp:*").to("myapp:*").reason("no").build();
+        return builder.build();
+    }
+
+    private static byte[] serialize(final RuleSet rules) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RuleSetSerializer.create().write(rules, out);
+        return out.toByteArray();
+    }
+
+    private static RuleSet notCalled() {
+        throw new AssertionError("shared rules should have been used");
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads its own copy of trellis' classes, but gets everything else from the test's classloader, like the realms
+     * that maven creates for plugins.
+     */
+    private static final class PluginRealm extends URLClassLoader {
+
+        PluginRealm() {
+            super(new URL[]{getLocation(RuleSet.class), getLocation(ConfigException.class),
+                getLocation(SharedRuleSetRegistry.class)}, PluginRealm.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith("com.salesforce.trellis.")) return super.loadClass(name, resolve);
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> out = findLoadedClass(name);
+                if (out == null) out = findClass(name);
+                if (resolve) resolveClass(out);
+                return out;
+            }
+        }
+
+        private static URL getLocation(final Class<?> clazz) {
+            return clazz.getProtectionDomain().getCodeSource().getLocation();
+        }
+    }
+}
@@ -23,7 +23,10 @@ import io.takari.maven.testing.executor.MavenVersions;
 import io.takari.maven.testing.executor.junit.MavenJUnitTestRunner;
 
 import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(MavenJUnitTestRunner.class)
 @MavenVersions({"3.6.0"})
@@ -294,6 +297,90 @@ public class MavenDependencyEnforcerPluginTest {
 
     }
 
+    @Test
+    public void basicIncremental() throws Exception {
+        File basedir = resources.getBasedir("basic-test");
+        final String unchanged = "[INFO] Dependencies and rules are unchanged since they were last checked.";
+        final String checked = "[INFO] Successfully checked dependency constraints";
+        final File module1Fingerprint = new File(basedir, "module1/target/trellis/enforced-dependencies.sha256");
+        final File module2Fingerprint = new File(basedir, "module2/target/trellis/enforced-dependencies.sha256");
+
+        // Expect a validation error for module2, and that only module1's successful check is recorded.
+        MavenExecutionResult mavenExecutionResult =
+                        maven.forProject(basedir).withCliOptions("-Dtrellis.incremental=true").execute("install");
+        mavenExecutionResult.assertLogText("[ERROR] Failed to execute goal com.salesforce.trellis:trellis-maven-plugin:"
+                        + testProperties.get("project.version")
+                        + ":enforce (enforce-dependency-rules) on project module2: ");
+        assertTrue(module1Fingerprint.exists());
+        assertFalse(module2Fingerprint.exists());
+
+        // Since nothing was recorded for module2, it gets checked (and fails) again.
+        mavenExecutionResult =
+                        maven.forProject(basedir).withCliOptions("-Dtrellis.incremental=true").execute("install");
+        mavenExecutionResult.assertLogText("[ERROR] Failed to execute goal com.salesforce.trellis:trellis-maven-plugin:"
+                        + testProperties.get("project.version")
+                        + ":enforce (enforce-dependency-rules) on project module2: ");
+        assertFalse(module2Fingerprint.exists());
+
+        // Updating the whitelist changes the rules, so both modules get checked again, and now they pass.
+        maven.forProject(basedir).execute("trellis:update-whitelists").assertErrorFreeLog();
+        mavenExecutionResult = maven.forProject(basedir).withCliOptions("-Dtrellis.incremental=true")
+                        .execute("install").assertErrorFreeLog();
+        mavenExecutionResult.assertLogText(checked);
+        mavenExecutionResult.assertNoLogText(unchanged);
+        assertTrue(module2Fingerprint.exists());
+
+        // With nothing changed, neither module is checked.
+        mavenExecutionResult = maven.forProject(basedir).withCliOptions("-Dtrellis.incremental=true")
+                        .execute("install").assertErrorFreeLog();
+        mavenExecutionResult.assertLogText(unchanged);
+        mavenExecutionResult.assertNoLogText(checked);
+
+        // Changing a dependency's scope gets them checked again.
+        final File module1Pom = new File(basedir, "module1/pom.xml");
+        writeStringToFile(module1Pom, readFileToString(module1Pom, "UTF-8").replace(
+            "<artifactId>javax.inject</artifactId>", "<artifactId>javax.inject</artifactId><scope>provided</scope>"),
+            "UTF-8");
+        mavenExecutionResult = maven.forProject(basedir).withCliOptions("-Dtrellis.incremental=true")
+                        .execute("install").assertErrorFreeLog();
+        mavenExecutionResult.assertLogText(checked);
+        mavenExecutionResult.assertNoLogText(unchanged);
+    }
+
+    @Test
+    public void basicReactor() throws Exception {
+        File basedir = resources.getBasedir("basic-test");
+        final String module1 = "com.salesforce.trellis.tests:module1:jar:1.0.0-SNAPSHOT:compile";
+
+        // Per-module enforcement fails on module2.  It also installs module1, which enforce-reactor needs to resolve.
+        MavenExecutionResult mavenExecutionResult = maven.forProject(basedir).execute("install");
+        mavenExecutionResult.assertLogText("[ERROR] Failed to execute goal com.salesforce.trellis:trellis-maven-plugin:"
+                        + testProperties.get("project.version")
+                        + ":enforce (enforce-dependency-rules) on project module2: ");
+        mavenExecutionResult.assertLogText("[ERROR] " + module1 + " dependency is disallowed. ");
+
+        // Expect enforce-reactor to find the same violation, and only that one.
+        mavenExecutionResult = maven.forProject(basedir).execute("trellis:enforce-reactor");
+        mavenExecutionResult.assertLogText("[ERROR] Failed to execute goal com.salesforce.trellis:trellis-maven-plugin:"
+                        + testProperties.get("project.version")
+                        + ":enforce-reactor (default-cli) on project basic-test: ");
+        mavenExecutionResult.assertLogText("[ERROR] The following dependency is not allowed:");
+        mavenExecutionResult.assertLogText("[ERROR] " + module1
+                        + " dependency is disallowed for com.salesforce.trellis.tests:module2. "
+                        + "Implementation modules are not allowed to be used in API modules.");
+        mavenExecutionResult.assertNoLogText("is disallowed for com.salesforce.trellis.tests:module1.");
+
+        // Once the violation is whitelisted, both goals pass, and both report it as discouraged.
+        maven.forProject(basedir).execute("trellis:update-whitelists").assertErrorFreeLog();
+        mavenExecutionResult = maven.forProject(basedir).execute("install").assertErrorFreeLog();
+        mavenExecutionResult.assertLogText("[WARNING] The dependency " + module1
+                        + " is discouraged for this project! ");
+        mavenExecutionResult = maven.forProject(basedir).execute("trellis:enforce-reactor").assertErrorFreeLog();
+        mavenExecutionResult.assertLogText("[WARNING] The dependency " + module1
+                        + " is discouraged for com.salesforce.trellis.tests:module2! ");
+        mavenExecutionResult.assertLogText("[INFO] Successfully checked dependency constraints of ");
+    }
+
     private void basicTestDir(String dir, String whitelistLocation, String pom) throws Exception {
         File basedir = resources.getBasedir(dir);
 
@@ -6,15 +6,21 @@
  */
 package com.salesforce.trellis.rules;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Coordinates of a maven artifact.
  * <p/>
+ * Instances returned by the factory methods are interned in a weak pool, so equal coordinates are usually the same
+ * object and equality checks are mostly identity checks.  The canonical string and hash code are computed once.
+ * <p/>
  * This class is immutable and thread-safe.
  *
  * @author pcal
@@ -22,35 +28,93 @@ import static java.util.Objects.requireNonNull;
  */
 public class Coordinates implements Comparable<Coordinates> {
 
+    // ===================================================================
+    // Constants
+
+    private static final Interner<Coordinates> POOL = Interners.newWeakInterner();
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private static final AtomicIntegerFieldUpdater<Coordinates> ID_UPDATER =
+        AtomicIntegerFieldUpdater.newUpdater(Coordinates.class, "id");
+
+    private static final int NO_ID = -1;
+
+    // ===================================================================
+    // Fields
+
     private final String groupId;
     private final String artifactId;
 
+    // derived values.  transient keeps them out of any serialized form.
+    private final transient int hashCode;
+    private transient String canonicalString;
+    private transient volatile int id = NO_ID;
+
+    // ===================================================================
+    // Factory methods
+
     public static Coordinates parse(String coordinates) {
         final String[] parts = StringUtils.split(coordinates, ':');
         if (parts.length == 2) {
-            return new Coordinates(parts[0].trim(), parts[1].trim());
+            return POOL.intern(new Coordinates(parts[0].trim(), parts[1].trim()));
         } else {
             throw new IllegalArgumentException("illegal coordinates " + coordinates);
         }
     }
 
     public static Coordinates of(String groupId, String artifactId) {
-        return new Coordinates(groupId, artifactId);
+        return POOL.intern(new Coordinates(groupId, artifactId));
     }
 
     public static Coordinates of(String groupId, String artifactId, String version) {
-        return new Coordinates(groupId, artifactId); // FIXME
+        return of(groupId, artifactId); // FIXME
     }
 
+    // ===================================================================
+    // Constructor
+
     protected Coordinates(final String groupId, final String artifactId) {
         this.groupId = requireNonNull(groupId).trim();
         this.artifactId = requireNonNull(artifactId).trim();
+        this.hashCode = 31 * this.groupId.hashCode() + this.artifactId.hashCode();
+    }
+
+    // ===================================================================
+    // Public methods
+
+    public String getGroupId() {
+        return this.groupId;
+    }
+
+    public String getArtifactId() {
+        return this.artifactId;
     }
 
     public String getCanonicalString() {
-        return this.groupId + ":" + this.artifactId;
+        // racy but benign: Strings are immutable and every thread computes the same value
+        String out = this.canonicalString;
+        if (out == null) {
+            out = this.groupId + ":" + this.artifactId;
+            this.canonicalString = out;
+        }
+        return out;
+    }
+
+    /**
+     * @return a small, non-negative number that identifies these coordinates, so that they can be looked up in
+     * primitive int tables rather than by hashing.  Numbers are handed out in sequence the first time they're asked
+     * for, and equal coordinates that are in use at the same time always have the same number.  They aren't stable
+     * from one JVM to the next.
+     */
+    public int getId() {
+        final int out = this.id;
+        return out != NO_ID ? out : assignId();
     }
 
+    // ===================================================================
+    // Object impl
+
     @Override
     public String toString() {
         return getCanonicalString();
@@ -58,20 +122,37 @@ public class Coordinates implements Comparable<Coordinates> {
 
     @Override
     public int compareTo(Coordinates o) {
+        if (this == o) return 0;
         return this.getCanonicalString().compareTo(o.getCanonicalString());
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (!(o instanceof Coordinates)) return false;
         final Coordinates that = (Coordinates) o;
-        return new EqualsBuilder().
-            append(this.groupId, that.groupId).
-            append(this.artifactId, that.artifactId).isEquals();
+        return this.hashCode == that.hashCode &&
+            this.groupId.equals(that.groupId) &&
+            this.artifactId.equals(that.artifactId);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder().append(this.groupId).append(this.artifactId).toHashCode();
+        return this.hashCode;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private int assignId() {
+        final Coordinates canonical = POOL.intern(this);
+        if (canonical != this) {
+            // Not from one of the factory methods.  We don't keep the number, since the canonical instance could be
+            // collected and replaced by one with a different number while this one is still around.
+            return canonical.getId();
+        }
+        // only the thread that wins the race gets its number used; losers just skip one
+        ID_UPDATER.compareAndSet(this, NO_ID, NEXT_ID.getAndIncrement());
+        return this.id;
     }
 }
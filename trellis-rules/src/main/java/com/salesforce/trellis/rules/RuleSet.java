@@ -6,6 +6,10 @@
  */
 package com.salesforce.trellis.rules;
 
+import com.salesforce.trellis.rules.impl.DependencyCheckResultsImpl;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Encapsulates all coordinates the dependency rules to be applied in a reactor build.
@@ -25,9 +29,21 @@ public interface RuleSet {
 
     PerModuleRules getRulesFor(Coordinates module);
 
+    /**
+     * @return statistics about the memoization of dependency checks, or null if the RuleSet wasn't built with a
+     * cache.
+     */
+    default CacheStatistics getCacheStatistics() {
+        return null;
+    }
+
     /**
      * Encapsulates a set coordinates rules for determining the permissibility coordinates dependencies parse a specific
      * module.
+     * <p>
+     * PerModuleRules obtained from the same RuleSet are equal if they contain the same rules, in which case they will
+     * always return the same result for a given dependency.  That lets callers checking many modules at once avoid
+     * checking the same dependency against the same rules more than once.
      */
     interface PerModuleRules {
 
@@ -37,5 +53,55 @@ public interface RuleSet {
          * @return An object describing whether the given dependency is permissible.  Never returns null.
          */
         Permissibility checkDependency(OutboundDependency dependency);
+
+        /**
+         * Evaluate the permissibility of a batch of dependencies.  Large batches are split into chunks that are
+         * checked in parallel.
+         *
+         * @return An object describing the dependencies that are not permissible or are discouraged.  Never returns
+         * null.
+         */
+        default DependencyCheckResults checkDependencies(Collection<? extends OutboundDependency> dependencies) {
+            return DependencyCheckResultsImpl.check(this, dependencies);
+        }
+    }
+
+    /**
+     * The results of checking a batch of dependencies.  Only the dependencies that need attention are retained.
+     */
+    interface DependencyCheckResults {
+
+        /**
+         * @return the dependencies that are not permissible, mapped to the verdicts about them, in the order in which
+         * they were checked.
+         */
+        Map<OutboundDependency, Permissibility> getDisallowed();
+
+        /**
+         * @return the dependencies that are discouraged, mapped to the verdicts about them, in the order in which
+         * they were checked.
+         */
+        Map<OutboundDependency, Permissibility> getDiscouraged();
+    }
+
+    /**
+     * Describes how well memoization of dependency checks is working.
+     */
+    interface CacheStatistics {
+
+        /**
+         * @return the number of dependency checks that were answered from the cache.
+         */
+        long getHitCount();
+
+        /**
+         * @return the number of dependency checks that had to be evaluated against the rules.
+         */
+        long getMissCount();
+
+        /**
+         * @return the approximate number of results currently cached.
+         */
+        long getSize();
     }
 }
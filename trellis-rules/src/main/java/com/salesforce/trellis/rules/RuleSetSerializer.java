@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules;
+
+import com.salesforce.trellis.rules.impl.RuleSetSerializerImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads and writes RuleSets in a compact binary form, so that a compiled RuleSet can be saved and reused without
+ * going back to the configuration it was built from.
+ * <p>
+ * The format is only meant to be read back by the same version of trellis.  Reading data written by some other
+ * version fails with an IOException.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public interface RuleSetSerializer {
+
+    /**
+     * Must be changed whenever the format changes.  Anything else that saves RuleSets can use this to tell whether
+     * what it saved can still be read.
+     */
+    int FORMAT_VERSION = 1;
+
+    /**
+     * @return a new instance of RuleSetSerializer.
+     */
+    static RuleSetSerializer create() {
+        return new RuleSetSerializerImpl();
+    }
+
+    /**
+     * Writes the given RuleSet, which must have been built by a RuleSetBuilder.  Only the rules are written; settings
+     * like decision tables or caching are up to whoever reads it back (e.g., by adding it to a RuleSetBuilder).
+     */
+    void write(RuleSet rules, OutputStream out) throws IOException;
+
+    /**
+     * Reads a RuleSet that was written by write().
+     *
+     * @throws IOException if the data is malformed or was written by a different version.
+     */
+    RuleSet read(InputStream in) throws IOException;
+}
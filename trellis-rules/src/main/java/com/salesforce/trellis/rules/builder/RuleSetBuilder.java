@@ -40,6 +40,21 @@ public interface RuleSetBuilder {
      */
     RuleSetBuilder addRules(RuleSet otherRules);
 
+    /**
+     * If enabled, the rules for each module are compiled into a decision table, partitioned by scope, directness and
+     * optionality and indexed by target coordinates.  The results are the same either way, but checking is much
+     * faster when there are many rules and many dependencies.  Disabled by default.
+     */
+    RuleSetBuilder decisionTables(boolean enabled);
+
+    /**
+     * If maximumSize is greater than zero, the results of dependency checks are memoized across all of the modules
+     * that have the same applicable rules, retaining up to maximumSize results.  Disabled by default.
+     *
+     * @see RuleSet#getCacheStatistics()
+     */
+    RuleSetBuilder permissibilityCache(long maximumSize);
+
     /**
      * Create a rule with the given action, which must be "DENY", "ALLOW" or "WARN."
      *
@@ -68,7 +83,11 @@ public interface RuleSetBuilder {
 
         RuleBuilder exceptTo(String expression) throws RuleBuildingException;
 
-        RuleBuilder scope(DependencyScope scope);
+        /**
+         * @throws RuleBuildingException if the scope isn't one of the maven dependency scopes returned by
+         * DependencyScope.parse().
+         */
+        RuleBuilder scope(DependencyScope scope) throws RuleBuildingException;
 
         RuleBuilder distance(RuleDistance distance);
 
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.salesforce.trellis.rules.DependencyScope;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.builder.RuleDistance;
+import com.salesforce.trellis.rules.builder.RuleOptionality;
+import com.salesforce.trellis.rules.impl.DependencyScopeFactory.MavenDependencyScope;
+
+/**
+ * Packs scope, directness and optionality into a single int so that we can tell whether a rule applies to a
+ * dependency with one AND, before looking at any matchers.
+ * <p>
+ * There is one bit for each combination of the 6 maven scopes, direct/transitive and optional/non-optional.  A
+ * dependency has exactly one of these bits set; a rule has a bit set for every combination it applies to.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class ApplicabilityMask {
+
+    // ===================================================================
+    // Constants
+
+    /**
+     * The number of distinct bits.
+     */
+    static final int SIZE = MavenDependencyScope.values().length * 4;
+
+    // ===================================================================
+    // Constructor
+
+    private ApplicabilityMask() {
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @return the bit for a dependency with the given properties, or zero if the scope isn't one we know about
+     * (which no rule can apply to).
+     */
+    static int forDependency(final DependencyScope scope, final boolean isDirect, final boolean isOptional) {
+        if (!(scope instanceof MavenDependencyScope)) return 0;
+        return 1 << (((MavenDependencyScope) scope).ordinal() * 4 + (isDirect ? 2 : 0) + (isOptional ? 1 : 0));
+    }
+
+    /**
+     * @return the bit for the given dependency.
+     */
+    static int forDependency(final OutboundDependency dep) {
+        if (dep instanceof OutboundDependencyImpl) return ((OutboundDependencyImpl) dep).getApplicabilityMask();
+        return forDependency(dep.getScope(), dep.isDirect(), dep.isOptional());
+    }
+
+    /**
+     * @param scopeMask bits for the ordinals of the applicable MavenDependencyScopes.
+     * @return the bits for all of the dependencies that a rule with the given properties applies to.
+     */
+    static int forRule(final int scopeMask, final RuleDistance distance, final RuleOptionality optionality) {
+        int perScope = 0;
+        for (final boolean isDirect : new boolean[] {false, true}) {
+            for (final boolean isOptional : new boolean[] {false, true}) {
+                if (matchesDirect(isDirect, distance) && matchesOptional(isOptional, optionality)) {
+                    perScope |= 1 << ((isDirect ? 2 : 0) + (isOptional ? 1 : 0));
+                }
+            }
+        }
+        int out = 0;
+        for (int ordinal = 0; ordinal < SIZE / 4; ordinal++) {
+            if ((scopeMask & 1 << ordinal) != 0) out |= perScope << (ordinal * 4);
+        }
+        return out;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    /**
+     * @return whether the given directness value matches the given RuleDistance.
+     */
+    private static boolean matchesDirect(boolean isDirect, RuleDistance distance) {
+        switch (distance) {
+            case DIRECT_ONLY:
+                return isDirect;
+            case TRANSITIVE_ONLY:
+                return !isDirect;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return whether the given optionality value matches the given RuleOptionality.
+     */
+    private static boolean matchesOptional(boolean isOptional, RuleOptionality optionality) {
+        switch (optionality) {
+            case OPTIONAL_ONLY:
+                return isOptional;
+            case NON_OPTIONAL_ONLY:
+                return !isOptional;
+            default:
+                return true;
+        }
+    }
+}
@@ -7,7 +7,6 @@
 package com.salesforce.trellis.rules.impl;
 
 import com.google.common.collect.ImmutableList;
-import com.salesforce.trellis.common.CollectionComparator;
 
 import java.util.Iterator;
 import java.util.List;
@@ -24,12 +23,17 @@ abstract class CompositeMatcher implements Matcher {
 
     private final List<Matcher> matchers;
 
+    // derived; transient keeps them out of any serialized form
+    private final transient int hashCode;
+    private transient String string;
+
     CompositeMatcher(final List<Matcher> matchers) {
         requireNonNull(matchers);
         if (matchers.size() < 1) {
             throw new IllegalArgumentException("what is the point?");
         }
         this.matchers = requireNonNull(matchers);
+        this.hashCode = matchers.hashCode();
     }
 
     static <T extends CompositeMatcher> List<Matcher> flatten(final List<Matcher> matchers,
@@ -53,29 +57,44 @@ abstract class CompositeMatcher implements Matcher {
 
     @Override
     public int compareTo(Matcher o) {
+        if (this == o) return 0;
         if (!(o.getClass().equals(this.getClass()))) {
-            return this.getClass().getSimpleName().compareTo(o.getClass().getSimpleName());
+            return MatcherOrdering.compareTypes(this, o);
         } else {
-            final CompositeMatcher that = (CompositeMatcher) o;
-            return new CollectionComparator().compare(this.matchers, that.matchers);
+            // same as CollectionComparator, just without the iterators
+            final List<Matcher> these = this.matchers;
+            final List<Matcher> those = ((CompositeMatcher) o).matchers;
+            final int size = Math.min(these.size(), those.size());
+            for (int i = 0; i < size; i++) {
+                final int c = these.get(i).compareTo(those.get(i));
+                if (c != 0) return c;
+            }
+            return these.size() > size ? -1 : those.size() > size ? 1 : 0;
         }
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (!(this.getClass().equals(o.getClass()))) return false;
         final CompositeMatcher that =
             (CompositeMatcher) o;
-        return this.matchers.equals(that.matchers);
+        return this.hashCode == that.hashCode && this.matchers.equals(that.matchers);
     }
 
     @Override
     public int hashCode() {
-        return this.matchers.hashCode();
+        return this.hashCode;
     }
 
     @Override
     public String toString() {
-        return this.matchers.toString();
+        // racy but benign: Strings are immutable and every thread computes the same value
+        String out = this.string;
+        if (out == null) {
+            out = this.matchers.toString();
+            this.string = out;
+        }
+        return out;
     }
 }
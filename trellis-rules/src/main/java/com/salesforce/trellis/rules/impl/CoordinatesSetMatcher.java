@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.salesforce.trellis.rules.Coordinates;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Matches any of a set of specific coordinates with a single hash lookup.  This is what an OR of a bunch of
+ * SimpleMatchers gets optimized into, and what groups made of exact coordinates (e.g., from pomDependencies) are
+ * built as.
+ * <p/>
+ * The lookup is done on the coordinates' ids, in a primitive int table.  We hold on to the canonical instance of
+ * each of the coordinates, which guarantees that their ids don't change.
+ * <p/>
+ * This class is immutable and thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class CoordinatesSetMatcher implements Matcher {
+
+    // ===================================================================
+    // Fields
+
+    private final ImmutableSet<Coordinates> coordinates;
+    private final IntHashSet ids;
+
+    // ===================================================================
+    // Factory
+
+    /**
+     * Collapses the coordinates in a list of matchers that are going to be OR'ed together into a single
+     * CoordinatesSetMatcher, followed by whatever else was in the list (e.g., wildcards), in the original order.
+     * ORs in the list are flattened first, so sets from referenced groups get merged in.
+     *
+     * @return the collapsed list, or the given list if there's nothing to collapse.
+     */
+    static List<Matcher> collapse(final List<Matcher> matchers) {
+        requireNonNull(matchers);
+        final Set<Coordinates> coordinates = new LinkedHashSet<>();
+        final List<Matcher> residual = new ArrayList<>();
+        for (final Matcher m : CompositeMatcher.flatten(matchers, OrMatcher.class)) {
+            if (m instanceof SimpleMatcher) {
+                coordinates.add(((SimpleMatcher) m).getCoordinates());
+            } else if (m instanceof CoordinatesSetMatcher) {
+                coordinates.addAll(((CoordinatesSetMatcher) m).coordinates);
+            } else {
+                residual.add(m);
+            }
+        }
+        if (coordinates.size() < 2) return matchers;
+        residual.add(0, new CoordinatesSetMatcher(coordinates));
+        return residual;
+    }
+
+    // ===================================================================
+    // Constructor
+
+    CoordinatesSetMatcher(final Collection<Coordinates> coordinates) {
+        final ImmutableSet.Builder<Coordinates> canonical = ImmutableSet.builder();
+        for (final Coordinates c : requireNonNull(coordinates)) {
+            canonical.add(Coordinates.of(c.getGroupId(), c.getArtifactId()));
+        }
+        this.coordinates = canonical.build();
+        if (this.coordinates.isEmpty()) throw new IllegalArgumentException("empty coordinates");
+        final int[] ids = new int[this.coordinates.size()];
+        int i = 0;
+        for (final Coordinates c : this.coordinates) ids[i++] = c.getId();
+        this.ids = new IntHashSet(ids);
+    }
+
+    // ===================================================================
+    // Package methods
+
+    ImmutableSet<Coordinates> getCoordinates() {
+        return this.coordinates;
+    }
+
+    // ===================================================================
+    // Matcher impl
+
+    @Override
+    public boolean matches(final Coordinates thoseCoordinates) {
+        requireNonNull(thoseCoordinates, "argument can't be null");
+        return this.ids.contains(thoseCoordinates.getId());
+    }
+
+    @Override
+    public int compareTo(final Matcher o) {
+        if (!(o instanceof CoordinatesSetMatcher)) {
+            return MatcherOrdering.compareTypes(this, o);
+        } else {
+            return this.toString().compareTo(o.toString());
+        }
+    }
+
+    // ===================================================================
+    // Object impl
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CoordinatesSetMatcher)) return false;
+        return this.coordinates.equals(((CoordinatesSetMatcher) o).coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.coordinates.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.coordinates.toString();
+    }
+}
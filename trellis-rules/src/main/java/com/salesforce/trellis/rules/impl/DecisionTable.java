@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.Permissibility;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A compiled form of a module's rules.  Rules are partitioned by scope, directness and optionality, and within
+ * each partition they are indexed by their 'to' matchers.  So checking a dependency only looks at the rules that
+ * could possibly apply to it, rather than walking every rule.
+ * <p>
+ * Partitions are built lazily the first time a dependency falls into them.  The rules within a partition keep the
+ * order they were given in, so the results are exactly the same as for PerModuleRulesImpl's linear walk.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class DecisionTable {
+
+    // ===================================================================
+    // Fields
+
+    private final List<Rule> sortedRules;
+    private final AtomicReferenceArray<Partition> partitions;
+
+    // ===================================================================
+    // Constructor
+
+    /**
+     * @param sortedRules the rules, most-permissible first.
+     */
+    DecisionTable(final List<Rule> sortedRules) {
+        this.sortedRules = requireNonNull(sortedRules);
+        this.partitions = new AtomicReferenceArray<>(ApplicabilityMask.SIZE);
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * Same contract as PerModuleRules.checkDependency().
+     */
+    Permissibility checkDependency(final OutboundDependency dep) {
+        final int bit = ApplicabilityMask.forDependency(dep);
+        if (bit == 0) {
+            // not a scope that any rule can apply to.  As a practical matter, this doesn't happen.
+            return PermissibilityImpl.getDefault();
+        }
+        final int p = Integer.numberOfTrailingZeros(bit);
+        Partition partition = this.partitions.get(p);
+        if (partition == null) {
+            this.partitions.compareAndSet(p, null, new Partition(this.sortedRules, bit));
+            partition = this.partitions.get(p);
+        }
+        return partition.checkDependency(dep);
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    /**
+     * The rules that apply to a particular combination of scope, directness and optionality.
+     */
+    private static final class Partition {
+
+        private final Rule[] rules;
+        private final MatcherIndex toIndex;
+
+        Partition(final List<Rule> sortedRules, final int bit) {
+            final List<Rule> rules = new ArrayList<>();
+            final List<Matcher> toMatchers = new ArrayList<>();
+            for (final Rule rule : sortedRules) {
+                if ((rule.getApplicabilityMask() & bit) != 0) {
+                    rules.add(rule);
+                    toMatchers.add(rule.getToMatcher());
+                }
+            }
+            this.rules = rules.toArray(new Rule[0]);
+            this.toIndex = MatcherIndex.build(toMatchers);
+        }
+
+        Permissibility checkDependency(final OutboundDependency dep) {
+            final BitSet candidates = this.toIndex.getCandidates(dep.getTo());
+            Permissibility mostPermissibleSoFar = null;
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                final Rule rule = this.rules[i];
+                if (rule.getToMatcher().matches(dep.getTo())) {
+                    final Permissibility p = rule.getPermissibility();
+                    if (p.isPermissible()) {
+                        return p;
+                    } else if (p.isDiscouraged() || mostPermissibleSoFar == null) {
+                        mostPermissibleSoFar = p;
+                    }
+                }
+            }
+            return mostPermissibleSoFar != null ? mostPermissibleSoFar : PermissibilityImpl.getDefault();
+        }
+    }
+}
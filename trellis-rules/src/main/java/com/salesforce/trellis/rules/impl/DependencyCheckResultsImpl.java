@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.Permissibility;
+import com.salesforce.trellis.rules.RuleSet;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Checks a batch of dependencies against a module's rules and retains only the verdicts that aren't a plain
+ * 'allowed,' which for a typical module is just a handful out of hundreds.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public final class DependencyCheckResultsImpl implements RuleSet.DependencyCheckResults {
+
+    // ===================================================================
+    // Constants
+
+    /**
+     * Batches are checked in chunks of this many dependencies.  A batch that fits in a single chunk is checked on the
+     * calling thread, since it isn't worth the overhead of going parallel.
+     */
+    static final int CHUNK_SIZE = 256;
+
+    // ===================================================================
+    // Factory method
+
+    public static RuleSet.DependencyCheckResults check(final RuleSet.PerModuleRules rules,
+                                                       final Collection<? extends OutboundDependency> dependencies) {
+        requireNonNull(rules, "rules must not be null");
+        final OutboundDependency[] deps = requireNonNull(dependencies).toArray(new OutboundDependency[0]);
+        final Permissibility[] verdicts = new Permissibility[deps.length];
+        final int chunkCount = (deps.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final IntStream chunks = IntStream.range(0, chunkCount);
+        (chunkCount > 1 ? chunks.parallel() : chunks).forEach(chunk -> {
+            final int end = Math.min(deps.length, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) verdicts[i] = rules.checkDependency(deps[i]);
+        });
+        Map<OutboundDependency, Permissibility> disallowed = null;
+        Map<OutboundDependency, Permissibility> discouraged = null;
+        for (int i = 0; i < deps.length; i++) {
+            if (!verdicts[i].isPermissible()) {
+                if (disallowed == null) disallowed = new LinkedHashMap<>();
+                disallowed.put(deps[i], verdicts[i]);
+            }
+            if (verdicts[i].isDiscouraged()) {
+                if (discouraged == null) discouraged = new LinkedHashMap<>();
+                discouraged.put(deps[i], verdicts[i]);
+            }
+        }
+        return new DependencyCheckResultsImpl(disallowed, discouraged);
+    }
+
+    // ===================================================================
+    // Fields
+
+    private final Map<OutboundDependency, Permissibility> disallowed;
+    private final Map<OutboundDependency, Permissibility> discouraged;
+
+    // ===================================================================
+    // Constructor
+
+    private DependencyCheckResultsImpl(final Map<OutboundDependency, Permissibility> disallowedOrNull,
+                                       final Map<OutboundDependency, Permissibility> discouragedOrNull) {
+        this.disallowed = disallowedOrNull == null ? Collections.emptyMap() :
+            Collections.unmodifiableMap(disallowedOrNull);
+        this.discouraged = discouragedOrNull == null ? Collections.emptyMap() :
+            Collections.unmodifiableMap(discouragedOrNull);
+    }
+
+    // ===================================================================
+    // DependencyCheckResults impl
+
+    @Override
+    public Map<OutboundDependency, Permissibility> getDisallowed() {
+        return this.disallowed;
+    }
+
+    @Override
+    public Map<OutboundDependency, Permissibility> getDiscouraged() {
+        return this.discouraged;
+    }
+}
@@ -9,6 +9,7 @@ package com.salesforce.trellis.rules.impl;
 import com.salesforce.trellis.rules.DependencyScope;
 
 import java.util.EnumSet;
+import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 
@@ -24,6 +25,33 @@ public class DependencyScopeFactory {
         return MavenDependencyScope.valueOf(mavenScope);
     }
 
+    /**
+     * @return a bitmask with the bit for each of the given scopes' ordinals set.
+     * @throws IllegalArgumentException if any of the scopes aren't MavenDependencyScopes.  RuleBuilder rejects those
+     * before a Rule is ever created, so this only guards against internal misuse.
+     */
+    static int toMask(final Set<? extends DependencyScope> scopes) {
+        int mask = 0;
+        for (final DependencyScope scope : scopes) {
+            if (!(scope instanceof MavenDependencyScope)) {
+                throw new IllegalArgumentException("unsupported scope " + scope);
+            }
+            mask |= 1 << ((MavenDependencyScope) scope).ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * @return the scopes whose ordinals are set in the given bitmask; the inverse of toMask().
+     */
+    static Set<MavenDependencyScope> fromMask(final int mask) {
+        final Set<MavenDependencyScope> out = EnumSet.noneOf(MavenDependencyScope.class);
+        for (final MavenDependencyScope scope : MavenDependencyScope.values()) {
+            if ((mask & 1 << scope.ordinal()) != 0) out.add(scope);
+        }
+        return out;
+    }
+
     /**
      * All of the known maven dependency scopes.  This is hidden from the public API just in case we have to support
      * weird cases someday.
@@ -76,8 +76,11 @@ class GroupBuilderImpl implements GroupBuilder {
         } else if (this.include.isEmpty()) {
             throw new RuleBuildingException("no group include provided");
         } else {
-            consumer
-                .accept(Pair.of(this.name, RuleSetBuilderImpl.mergeMatcherWithException(this.include, this.except)));
+            // groups listing lots of exact coordinates (e.g., from pomDependencies) get a single hash lookup rather
+            // than a long OR of SimpleMatchers
+            final Matcher m = RuleSetBuilderImpl.mergeMatcherWithException(CoordinatesSetMatcher.collapse(this.include),
+                CoordinatesSetMatcher.collapse(this.except));
+            consumer.accept(Pair.of(this.name, m));
             this.isBuilt = true;
         }
     }
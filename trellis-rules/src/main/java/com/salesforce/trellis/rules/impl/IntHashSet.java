@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An immutable set of non-negative ints (i.e., Coordinates ids), stored in a single open-addressing table.
+ * <p>
+ * Besides membership, it can report the slot in which a value is stored.  Slots are in [0, capacity()), so callers
+ * can attach data to the values with an array of that size rather than a map.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class IntHashSet {
+
+    // ===================================================================
+    // Constants
+
+    private static final int EMPTY = -1;
+
+    // ===================================================================
+    // Fields
+
+    private final int[] slots;
+    private final int mask;
+    private final int size;
+
+    // ===================================================================
+    // Constructor
+
+    /**
+     * @param values the values in the set.  Must not be negative.  Duplicates are ignored.
+     */
+    IntHashSet(final int[] values) {
+        requireNonNull(values);
+        // keep the table no more than half full so that probe sequences stay short
+        int capacity = 2;
+        while (capacity < values.length * 2) capacity <<= 1;
+        this.slots = new int[capacity];
+        Arrays.fill(this.slots, EMPTY);
+        this.mask = capacity - 1;
+        int size = 0;
+        for (final int value : values) {
+            if (value < 0) throw new IllegalArgumentException("negative value " + value);
+            int i = slotFor(value);
+            while (this.slots[i] != EMPTY && this.slots[i] != value) i = (i + 1) & this.mask;
+            if (this.slots[i] == EMPTY) {
+                this.slots[i] = value;
+                size++;
+            }
+        }
+        this.size = size;
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @return the slot in which the given value is stored, or -1 if it isn't in the set.
+     */
+    int indexOf(final int value) {
+        if (value < 0) return -1;
+        for (int i = slotFor(value); ; i = (i + 1) & this.mask) {
+            final int slot = this.slots[i];
+            if (slot == value) return i;
+            if (slot == EMPTY) return -1;
+        }
+    }
+
+    boolean contains(final int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * @return the number of slots in the table.
+     */
+    int capacity() {
+        return this.slots.length;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private int slotFor(final int value) {
+        // ids are handed out sequentially, so spread them out
+        final int h = value * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & this.mask;
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.salesforce.trellis.rules.Coordinates;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Indexes a list of matchers so that we can quickly find the ones that might match a given set of coordinates,
+ * without having to evaluate every one of them.
+ * <p>
+ * SimpleMatchers and CoordinatesSetMatchers go into a primitive hash table keyed by coordinates ids.  WildcardMatchers
+ * that start with some literal text go into a trie keyed by that prefix of the canonical string (i.e., mostly the
+ * groupId).
+ * OrMatchers are indexed under each of their children and AndMatchers under the first child that can be indexed.
+ * Anything else (e.g., a NotMatcher) is a candidate for every lookup.
+ * <p>
+ * Lookups return a superset of the matchers that actually match; callers still need to call matches() on each
+ * candidate.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class MatcherIndex {
+
+    // ===================================================================
+    // Fields
+
+    private final int size;
+    private final IntHashSet exactIds;
+    private final int[][] exactPositions;
+    private final PrefixNode prefixes;
+    private final int[] unindexed;
+
+    // ===================================================================
+    // Factory
+
+    /**
+     * @return an index over the given matchers.  The candidates returned by lookups are positions in this list.
+     */
+    static MatcherIndex build(final List<? extends Matcher> matchers) {
+        requireNonNull(matchers);
+        final Map<Coordinates, List<Integer>> exact = new HashMap<>();
+        final PrefixNode prefixes = new PrefixNode();
+        final List<Integer> unindexed = new ArrayList<>();
+        for (int i = 0; i < matchers.size(); i++) {
+            final List<Object> keys = new ArrayList<>();
+            if (!collectKeys(matchers.get(i), keys)) {
+                unindexed.add(i);
+                continue;
+            }
+            for (final Object key : keys) {
+                if (key instanceof Coordinates) {
+                    exact.computeIfAbsent((Coordinates) key, k -> new ArrayList<>()).add(i);
+                } else {
+                    prefixes.add((String) key, i);
+                }
+            }
+        }
+        // the matchers hold the canonical coordinates, so these ids won't change
+        final int[] ids = new int[exact.size()];
+        int next = 0;
+        for (final Coordinates c : exact.keySet()) ids[next++] = c.getId();
+        final IntHashSet exactIds = new IntHashSet(ids);
+        final int[][] exactPositions = new int[exactIds.capacity()][];
+        exact.forEach((k, v) -> exactPositions[exactIds.indexOf(k.getId())] = toArray(v));
+        prefixes.freeze();
+        return new MatcherIndex(matchers.size(), exactIds, exactPositions, prefixes, toArray(unindexed));
+    }
+
+    // ===================================================================
+    // Constructor
+
+    private MatcherIndex(final int size,
+                         final IntHashSet exactIds,
+                         final int[][] exactPositions,
+                         final PrefixNode prefixes,
+                         final int[] unindexed) {
+        this.size = size;
+        this.exactIds = requireNonNull(exactIds);
+        this.exactPositions = requireNonNull(exactPositions);
+        this.prefixes = requireNonNull(prefixes);
+        this.unindexed = requireNonNull(unindexed);
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @return the positions of the matchers that might match the given coordinates.
+     */
+    BitSet getCandidates(final Coordinates c) {
+        requireNonNull(c);
+        final BitSet out = new BitSet(this.size);
+        setAll(out, this.unindexed);
+        final int exactSlot = this.exactIds.indexOf(c.getId());
+        if (exactSlot >= 0) setAll(out, this.exactPositions[exactSlot]);
+        final String groupId = c.getGroupId();
+        final String artifactId = c.getArtifactId();
+        final int length = groupId.length() + 1 + artifactId.length();
+        PrefixNode node = this.prefixes;
+        for (int i = 0; i < length && node != null; i++) {
+            final char ch = i < groupId.length() ? groupId.charAt(i) :
+                i == groupId.length() ? ':' : artifactId.charAt(i - groupId.length() - 1);
+            node = node.children.get(ch);
+            if (node != null) setAll(out, node.values);
+        }
+        return out;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    /**
+     * Figures out the keys under which the given matcher should be indexed.  Any coordinates matched by the matcher
+     * must be findable under at least one of the keys.
+     *
+     * @return false if the matcher can't be indexed.
+     */
+    private static boolean collectKeys(final Matcher m, final List<Object> keys) {
+        if (m instanceof SimpleMatcher) {
+            keys.add(((SimpleMatcher) m).getCoordinates());
+            return true;
+        } else if (m instanceof CoordinatesSetMatcher) {
+            keys.addAll(((CoordinatesSetMatcher) m).getCoordinates());
+            return true;
+        } else if (m instanceof WildcardMatcher) {
+            final String prefix = ((WildcardMatcher) m).getLiteralPrefix();
+            if (prefix.isEmpty()) return false;
+            keys.add(prefix);
+            return true;
+        } else if (m instanceof OrMatcher) {
+            for (final Matcher child : ((OrMatcher) m).getMatchers()) {
+                if (!collectKeys(child, keys)) return false;
+            }
+            return true;
+        } else if (m instanceof AndMatcher) {
+            for (final Matcher child : ((AndMatcher) m).getMatchers()) {
+                final List<Object> childKeys = new ArrayList<>();
+                if (collectKeys(child, childKeys)) {
+                    keys.addAll(childKeys);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void setAll(final BitSet out, final int[] positions) {
+        if (positions != null) {
+            for (final int p : positions) out.set(p);
+        }
+    }
+
+    private static int[] toArray(final List<Integer> values) {
+        final int[] out = new int[values.size()];
+        for (int i = 0; i < out.length; i++) out[i] = values.get(i);
+        return out;
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    private static final class PrefixNode {
+
+        private final Map<Character, PrefixNode> children = new HashMap<>();
+        private List<Integer> pending;
+        private int[] values;
+
+        void add(final String prefix, final int value) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), k -> new PrefixNode());
+            }
+            if (node.pending == null) node.pending = new ArrayList<>();
+            node.pending.add(value);
+        }
+
+        void freeze() {
+            if (this.pending != null) {
+                this.values = toArray(this.pending);
+                this.pending = null;
+            }
+            for (final PrefixNode child : this.children.values()) child.freeze();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.salesforce.trellis.rules.Coordinates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Rewrites matcher trees into equivalent ones that are cheaper to evaluate.  Groups that reference other groups
+ * tend to produce deeply-nested ORs of SimpleMatchers; this
+ * <ul>
+ * <li>flattens nested ORs and ANDs and removes duplicate children</li>
+ * <li>collapses the SimpleMatchers in an OR into a single CoordinatesSetMatcher</li>
+ * <li>drops children of an OR that are already covered by a prefix wildcard like 'foo:*' in the same OR</li>
+ * <li>eliminates double negation</li>
+ * <li>orders the children of ORs and ANDs cheapest-first, so that short-circuiting skips the expensive ones</li>
+ * </ul>
+ * The optimized matchers are only used for evaluation; rules still sort, compare and print using the matchers
+ * they were built with.
+ * <p>
+ * Results are memoized by identity, since the same group matcher is usually shared by lots of rules.  This class
+ * is not thread-safe; use one instance per RuleSet build.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class MatcherOptimizer {
+
+    // ===================================================================
+    // Constants
+
+    private static final Comparator<Matcher> CHEAPEST_FIRST = Comparator.comparingInt(MatcherOptimizer::getCost);
+
+    // ===================================================================
+    // Fields
+
+    private final Map<Matcher, Matcher> optimized = new IdentityHashMap<>();
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @return a matcher that matches exactly the same coordinates as the given one.  May be the same matcher.
+     */
+    Matcher optimize(final Matcher m) {
+        requireNonNull(m);
+        Matcher out = this.optimized.get(m);
+        if (out == null) {
+            out = doOptimize(m);
+            this.optimized.put(m, out);
+        }
+        return out;
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private Matcher doOptimize(final Matcher m) {
+        if (m instanceof NotMatcher) {
+            final Matcher negated = optimize(((NotMatcher) m).getNegatedMatcher());
+            if (negated instanceof NotMatcher) return ((NotMatcher) negated).getNegatedMatcher();
+            return negated == ((NotMatcher) m).getNegatedMatcher() ? m : NotMatcher.get(negated);
+        } else if (m instanceof OrMatcher) {
+            return optimizeOr((OrMatcher) m);
+        } else if (m instanceof AndMatcher) {
+            final Set<Matcher> children = new LinkedHashSet<>();
+            for (final Matcher child : ((AndMatcher) m).getMatchers()) {
+                final Matcher o = optimize(child);
+                if (o instanceof AndMatcher) {
+                    children.addAll(((AndMatcher) o).getMatchers());
+                } else {
+                    children.add(o);
+                }
+            }
+            return AndMatcher.get(sortCheapestFirst(children));
+        }
+        return m;
+    }
+
+    private Matcher optimizeOr(final OrMatcher m) {
+        final Set<Coordinates> coordinates = new LinkedHashSet<>();
+        final Set<Matcher> others = new LinkedHashSet<>();
+        for (final Matcher child : m.getMatchers()) {
+            addOrChild(optimize(child), coordinates, others);
+        }
+        // anything whose matches all start with the literal text of a 'foo:*'-style wildcard is redundant
+        final List<String> prefixes = new ArrayList<>();
+        for (final Matcher other : others) {
+            final String prefix = getPrefixOnly(other);
+            if (prefix != null) prefixes.add(prefix);
+        }
+        if (!prefixes.isEmpty()) {
+            coordinates.removeIf(c -> isCovered(c.getCanonicalString(), prefixes, null));
+            others.removeIf(o -> o instanceof WildcardMatcher &&
+                isCovered(((WildcardMatcher) o).getLiteralPrefix(), prefixes, getPrefixOnly(o)));
+        }
+        final List<Matcher> children = new ArrayList<>(others.size() + 1);
+        if (coordinates.size() == 1) {
+            children.add(new SimpleMatcher(coordinates.iterator().next()));
+        } else if (coordinates.size() > 1) {
+            children.add(new CoordinatesSetMatcher(coordinates));
+        }
+        children.addAll(others);
+        return OrMatcher.get(sortCheapestFirst(children));
+    }
+
+    private static void addOrChild(final Matcher child, final Set<Coordinates> coordinates, final Set<Matcher> others) {
+        if (child instanceof SimpleMatcher) {
+            coordinates.add(((SimpleMatcher) child).getCoordinates());
+        } else if (child instanceof CoordinatesSetMatcher) {
+            coordinates.addAll(((CoordinatesSetMatcher) child).getCoordinates());
+        } else if (child instanceof OrMatcher) {
+            for (final Matcher grandchild : ((OrMatcher) child).getMatchers()) {
+                addOrChild(grandchild, coordinates, others);
+            }
+        } else {
+            others.add(child);
+        }
+    }
+
+    /**
+     * @param self the prefix of the matcher being checked, if it's a prefix-only matcher; it doesn't cover itself.
+     * @return true if the given string starts with any of the given prefixes (other than self).
+     */
+    private static boolean isCovered(final String s, final List<String> prefixes, final String self) {
+        for (final String prefix : prefixes) {
+            if (s.startsWith(prefix) && (self == null || !prefix.equals(self))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return if the given matcher is a WildcardMatcher whose only wildcard is a trailing '*' (e.g., 'foo:*' or
+     * 'foo:bar-*'), the text before the '*'.  Such a matcher matches exactly those coordinates whose canonical
+     * string starts with that text.  Otherwise null.
+     */
+    private static String getPrefixOnly(final Matcher m) {
+        if (!(m instanceof WildcardMatcher)) return null;
+        final String expression = m.toString();
+        final String prefix = ((WildcardMatcher) m).getLiteralPrefix();
+        return prefix.length() == expression.length() - 1 && expression.endsWith("*") ? prefix : null;
+    }
+
+    private static List<Matcher> sortCheapestFirst(final Set<Matcher> matchers) {
+        return sortCheapestFirst(new ArrayList<>(matchers));
+    }
+
+    private static List<Matcher> sortCheapestFirst(final List<Matcher> matchers) {
+        // stable, so equally-expensive matchers stay in the order they were written
+        matchers.sort(CHEAPEST_FIRST);
+        return matchers;
+    }
+
+    /**
+     * @return a rough relative cost of evaluating the given matcher.
+     */
+    private static int getCost(final Matcher m) {
+        if (m instanceof SimpleMatcher || m instanceof CoordinatesSetMatcher) {
+            return 1;
+        } else if (m instanceof WildcardMatcher) {
+            return 2;
+        } else if (m instanceof NotMatcher) {
+            return 1 + getCost(((NotMatcher) m).getNegatedMatcher());
+        } else if (m instanceof CompositeMatcher) {
+            int out = 1;
+            for (final Matcher child : ((CompositeMatcher) m).getMatchers()) out += getCost(child);
+            return out;
+        }
+        return 10;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+/**
+ * Helpers for ordering Matchers of different types.  Matchers of different types are ordered by their simple class
+ * names; we cache those names because Class.getSimpleName() allocates on some JVMs.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class MatcherOrdering {
+
+    // ===================================================================
+    // Constants
+
+    private static final ClassValue<String> SIMPLE_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(final Class<?> type) {
+            return type.getSimpleName();
+        }
+    };
+
+    // ===================================================================
+    // Constructor
+
+    private MatcherOrdering() {
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @return the comparison of the simple class names of the given matchers.
+     */
+    static int compareTypes(final Matcher m1, final Matcher m2) {
+        return SIMPLE_NAMES.get(m1.getClass()).compareTo(SIMPLE_NAMES.get(m2.getClass()));
+    }
+}
@@ -20,6 +20,9 @@ final class NotMatcher implements Matcher {
 
     private final Matcher negatedMatcher;
 
+    // derived; transient keeps it out of any serialized form
+    private transient String string;
+
     static Matcher get(Matcher negatedMatcher) {
         return new NotMatcher(negatedMatcher);
     }
@@ -28,6 +31,10 @@ final class NotMatcher implements Matcher {
         this.negatedMatcher = requireNonNull(negatedMatcher);
     }
 
+    Matcher getNegatedMatcher() {
+        return this.negatedMatcher;
+    }
+
     @Override
     public boolean matches(final Coordinates coordinates) {
         return !this.negatedMatcher.matches(coordinates);
@@ -36,7 +43,7 @@ final class NotMatcher implements Matcher {
     @Override
     public int compareTo(Matcher o) {
         if (!(NotMatcher.class.isAssignableFrom(o.getClass()))) {
-            return this.getClass().getSimpleName().compareTo(o.getClass().getSimpleName());
+            return MatcherOrdering.compareTypes(this, o);
         } else {
             return this.toString().compareTo(o.toString());
         }
@@ -44,11 +51,18 @@ final class NotMatcher implements Matcher {
 
     @Override
     public String toString() {
-        return "! " + negatedMatcher.toString();
+        // racy but benign: Strings are immutable and every thread computes the same value
+        String out = this.string;
+        if (out == null) {
+            out = "! " + negatedMatcher.toString();
+            this.string = out;
+        }
+        return out;
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (!(o instanceof NotMatcher)) return false;
         final NotMatcher that =
             (NotMatcher) o;
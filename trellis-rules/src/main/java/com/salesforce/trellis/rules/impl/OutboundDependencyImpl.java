@@ -18,6 +18,7 @@ public class OutboundDependencyImpl implements OutboundDependency {
     private final DependencyScope scope;
     private final boolean isDirect;
     private final boolean isOptional;
+    private final transient int applicabilityMask;
 
     public OutboundDependencyImpl(Coordinates coordinates,
                                   DependencyScope scope,
@@ -27,6 +28,7 @@ public class OutboundDependencyImpl implements OutboundDependency {
         this.scope = requireNonNull(scope);
         this.isDirect = isDirect;
         this.isOptional = isOptional;
+        this.applicabilityMask = ApplicabilityMask.forDependency(scope, isDirect, isOptional);
     }
 
     @Override
@@ -48,4 +50,12 @@ public class OutboundDependencyImpl implements OutboundDependency {
     public Coordinates getTo() {
         return coordinates;
     }
+
+    /**
+     * @return the ApplicabilityMask bit for this dependency, computed once so that rules can be filtered with a
+     * single AND.
+     */
+    int getApplicabilityMask() {
+        return applicabilityMask;
+    }
 }
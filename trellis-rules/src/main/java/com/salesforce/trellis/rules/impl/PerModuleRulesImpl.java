@@ -13,7 +13,9 @@ import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
@@ -29,19 +31,69 @@ import static java.util.Objects.requireNonNull;
 final class PerModuleRulesImpl implements RuleSet.PerModuleRules {
 
     private final List<Rule> rules;
+    private final RuleGroup[] groups;
+    private final DecisionTable decisionTable;
 
     PerModuleRulesImpl(final List<Rule> rules, final Logger logger) {
+        this(rules, logger, false);
+    }
+
+    /**
+     * @param useDecisionTable if true, the rules are compiled into a DecisionTable that is used to check
+     * dependencies.  This is worth it if a lot of dependencies are going to be checked against a lot of rules.
+     */
+    PerModuleRulesImpl(final List<Rule> rules, final Logger logger, final boolean useDecisionTable) {
         // sort the rules so that the more permissible rules are earlier
         final List<Rule> sortedRules = new ArrayList<>(requireNonNull(rules));
         Collections.sort(sortedRules);
         this.rules = sortedRules;
+        this.groups = useDecisionTable ? null : RuleGroup.build(sortedRules);
+        this.decisionTable = useDecisionTable ? new DecisionTable(sortedRules) : null;
     }
 
     @Override
     public Permissibility checkDependency(OutboundDependency dep) {
         requireNonNull(dep, "dep must not be null");
+        if (this.decisionTable != null) return this.decisionTable.checkDependency(dep);
+        final int bit = ApplicabilityMask.forDependency(dep);
+        // Because the rules are sorted most-permissible first, the rule that decides a dependency is simply the
+        // first one that matches it (see checkDependency(List, OutboundDependency)).  So we find the earliest
+        // matching rule in each group that applies, and don't bother looking past the best one found so far.
+        int best = Integer.MAX_VALUE;
+        for (final RuleGroup group : this.groups) {
+            if ((group.applicabilityMask & bit) == 0) continue;
+            for (final int position : group.positions) {
+                if (position >= best) break;
+                if (this.rules.get(position).getToMatcher().matches(dep.getTo())) {
+                    best = position;
+                    break;
+                }
+            }
+        }
+        return best != Integer.MAX_VALUE ? this.rules.get(best).getPermissibility() : PermissibilityImpl.getDefault();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PerModuleRulesImpl)) return false;
+        final PerModuleRulesImpl that = (PerModuleRulesImpl) o;
+        return (this.decisionTable == null) == (that.decisionTable == null) && this.rules.equals(that.rules);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.rules.hashCode();
+    }
+
+    /**
+     * Walks the given rules and returns the first permissible result; failing that, the last discouraged one;
+     * failing that, the first impermissible one.  Given rules sorted most-permissible first, that's always the
+     * result of the first rule that applies.
+     */
+    static Permissibility checkDependency(final List<Rule> sortedRules, final OutboundDependency dep) {
         Permissibility mostPermissibleSoFar = null;
-        for (final Rule rule : rules) {
+        for (final Rule rule : sortedRules) {
             final Permissibility p = rule.getPermissibility(dep);
             if (p != null) {
                 if (p.isPermissible()) {
@@ -59,4 +111,34 @@ final class PerModuleRulesImpl implements RuleSet.PerModuleRules {
         }
         return mostPermissibleSoFar != null ? mostPermissibleSoFar : PermissibilityImpl.getDefault();
     }
+
+    /**
+     * The positions of all of the sorted rules that share an ApplicabilityMask.  There are usually only a few of
+     * these per module, so a dependency can skip most of its non-applicable rules with a handful of ANDs.
+     */
+    private static final class RuleGroup {
+
+        private final int applicabilityMask;
+        private final int[] positions;
+
+        private RuleGroup(final int applicabilityMask, final List<Integer> positions) {
+            this.applicabilityMask = applicabilityMask;
+            this.positions = new int[positions.size()];
+            for (int i = 0; i < this.positions.length; i++) this.positions[i] = positions.get(i);
+        }
+
+        static RuleGroup[] build(final List<Rule> sortedRules) {
+            final Map<Integer, List<Integer>> positionsByMask = new LinkedHashMap<>();
+            for (int i = 0; i < sortedRules.size(); i++) {
+                positionsByMask.computeIfAbsent(sortedRules.get(i).getApplicabilityMask(), k -> new ArrayList<>())
+                    .add(i);
+            }
+            final RuleGroup[] out = new RuleGroup[positionsByMask.size()];
+            int i = 0;
+            for (final Map.Entry<Integer, List<Integer>> e : positionsByMask.entrySet()) {
+                out[i++] = new RuleGroup(e.getKey(), e.getValue());
+            }
+            return out;
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.DependencyScope;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.Permissibility;
+import com.salesforce.trellis.rules.RuleSet;
+
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Memoizes the results of PerModuleRules.checkDependency across all of the modules in a RuleSet.
+ * <p>
+ * In a reactor build, lots of modules end up with exactly the same list of applicable rules, and lots of them depend
+ * on the same things.  So results are keyed on a fingerprint of the module's rule list (which rules in the RuleSet
+ * apply to it) plus the fields of the OutboundDependency, which lets modules with the same effective rules share
+ * results.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class PermissibilityCache implements RuleSet.CacheStatistics {
+
+    // ===================================================================
+    // Fields
+
+    private final Cache<Key, Permissibility> cache;
+    private final ConcurrentMap<BitSet, Integer> fingerprints = new ConcurrentHashMap<>();
+    private final AtomicInteger nextFingerprint = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // ===================================================================
+    // Constructor
+
+    /**
+     * @param maximumSize maximum number of results to retain.
+     */
+    PermissibilityCache(final long maximumSize) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @param applicableRules the positions of the rules in the RuleSet that apply to a given module.
+     * @return a number that identifies the given set of rules.  Modules with the same rules get the same number.
+     */
+    int getFingerprint(final BitSet applicableRules) {
+        requireNonNull(applicableRules);
+        return this.fingerprints.computeIfAbsent(applicableRules, k -> this.nextFingerprint.getAndIncrement());
+    }
+
+    /**
+     * @return the cached result for the given dependency checked against the rules with the given fingerprint,
+     * computing it with the given function if need be.
+     */
+    Permissibility get(final int fingerprint,
+                       final OutboundDependency dep,
+                       final Function<OutboundDependency, Permissibility> checker) {
+        final Key key = new Key(fingerprint, dep);
+        final Permissibility cached = this.cache.getIfPresent(key);
+        if (cached != null) {
+            this.hits.incrementAndGet();
+            return cached;
+        }
+        this.misses.incrementAndGet();
+        final Permissibility out = checker.apply(dep);
+        this.cache.put(key, out);
+        return out;
+    }
+
+    // ===================================================================
+    // CacheStatistics impl
+
+    @Override
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    @Override
+    public long getSize() {
+        return this.cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHitCount() + " misses=" + getMissCount() + " size=" + getSize();
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    private static final class Key {
+
+        private final int fingerprint;
+        private final Coordinates to;
+        private final DependencyScope scope;
+        private final boolean isDirect;
+        private final boolean isOptional;
+        private final int hashCode;
+
+        Key(final int fingerprint, final OutboundDependency dep) {
+            this.fingerprint = fingerprint;
+            this.to = requireNonNull(dep.getTo());
+            this.scope = requireNonNull(dep.getScope());
+            this.isDirect = dep.isDirect();
+            this.isOptional = dep.isOptional();
+            this.hashCode = ((fingerprint * 31 + this.to.hashCode()) * 31 + this.scope.hashCode()) * 4 +
+                (this.isDirect ? 2 : 0) + (this.isOptional ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) return false;
+            final Key that = (Key) o;
+            return this.fingerprint == that.fingerprint && this.isDirect == that.isDirect &&
+                this.isOptional == that.isOptional && this.scope.equals(that.scope) && this.to.equals(that.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -8,11 +8,8 @@ package com.salesforce.trellis.rules.impl;
 
 import com.salesforce.trellis.rules.Permissibility;
 import com.salesforce.trellis.rules.builder.RuleAction;
-import org.apache.commons.lang3.builder.CompareToBuilder;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
 import java.util.Comparator;
+import java.util.Objects;
 
 import static java.util.Objects.requireNonNull;
 
@@ -110,14 +107,15 @@ final class PermissibilityImpl implements Permissibility {
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder().append(this.action).append(this.reason).toHashCode();
+        return 31 * this.action.hashCode() + (this.reason == null ? 0 : this.reason.hashCode());
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (!(o instanceof PermissibilityImpl)) return false;
         final PermissibilityImpl that = (PermissibilityImpl) o;
-        return new EqualsBuilder().append(this.action, that.action).append(this.reason, that.reason).isEquals();
+        return this.action == that.action && Objects.equals(this.reason, that.reason);
     }
 
     @Override
@@ -136,10 +134,16 @@ final class PermissibilityImpl implements Permissibility {
 
         @Override
         public int compare(Permissibility p1, Permissibility p2) {
-            return new CompareToBuilder().append(!p1.isPermissible(), !p2.isPermissible())
-                .append(p1.isDiscouraged(), p2.isDiscouraged()).
-                    append(p1.getReason() == null, p2.getReason() == null).
-                    append(p1.getReason(), p2.getReason()).toComparison();
+            // permissible first, then not discouraged, then ones with reasons, then by reason
+            if (p1 == p2) return 0;
+            int c = Boolean.compare(!p1.isPermissible(), !p2.isPermissible());
+            if (c != 0) return c;
+            c = Boolean.compare(p1.isDiscouraged(), p2.isDiscouraged());
+            if (c != 0) return c;
+            final String r1 = p1.getReason();
+            final String r2 = p2.getReason();
+            if (r1 == null || r2 == null) return Boolean.compare(r1 == null, r2 == null);
+            return r1.compareTo(r2);
         }
     }
 }
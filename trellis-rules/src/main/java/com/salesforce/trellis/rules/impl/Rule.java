@@ -12,11 +12,6 @@ import com.salesforce.trellis.rules.OutboundDependency;
 import com.salesforce.trellis.rules.Permissibility;
 import com.salesforce.trellis.rules.builder.RuleDistance;
 import com.salesforce.trellis.rules.builder.RuleOptionality;
-import org.apache.commons.lang3.builder.CompareToBuilder;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
-import java.util.Arrays;
 import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
@@ -41,6 +36,17 @@ class Rule implements Comparable<Rule> {
     private final RuleDistance distance;
     private final RuleOptionality optionality;
 
+    // derived values, computed once so that sorting and hashing don't allocate.  transient keeps them out of any
+    // serialized form.
+    private final transient int scopeMask;
+    private final transient int applicabilityMask;
+    private final transient int hashCode;
+
+    // equivalent matchers that are cheaper to evaluate; see MatcherOptimizer.  These are what actually get matched,
+    // but everything else (ordering, equality, toString) uses the matchers the rule was built with.
+    private final transient Matcher optimizedFrom;
+    private final transient Matcher optimizedTo;
+
     // ===================================================================
     // Constructor
 
@@ -50,22 +56,59 @@ class Rule implements Comparable<Rule> {
          final Set<? extends DependencyScope> applicableScopes,
          final RuleDistance distance,
          final RuleOptionality optionality) {
+        this(from, to, perm, applicableScopes, distance, optionality, from, to);
+    }
+
+    private Rule(final Matcher from,
+                 final Matcher to,
+                 final Permissibility perm,
+                 final Set<? extends DependencyScope> applicableScopes,
+                 final RuleDistance distance,
+                 final RuleOptionality optionality,
+                 final Matcher optimizedFrom,
+                 final Matcher optimizedTo) {
         this.fromMatcher = requireNonNull(from);
         this.toMatcher = requireNonNull(to);
         this.applicableScopes = requireNonNull(applicableScopes);
         this.perm = requireNonNull(perm);
         this.distance = requireNonNull(distance);
         this.optionality = requireNonNull(optionality);
+        this.scopeMask = DependencyScopeFactory.toMask(applicableScopes);
+        this.applicabilityMask = ApplicabilityMask.forRule(this.scopeMask, distance, optionality);
+        this.hashCode = (((perm.hashCode() * 31 + from.hashCode()) * 31 + to.hashCode()) * 31 +
+            distance.hashCode()) * 31 + this.scopeMask;
+        this.optimizedFrom = requireNonNull(optimizedFrom);
+        this.optimizedTo = requireNonNull(optimizedTo);
     }
 
     // ===================================================================
     // Package methods
 
+    /**
+     * @return an equivalent rule whose matchers have been run through the given optimizer, or this rule if it has
+     * already been optimized.
+     */
+    Rule optimize(final MatcherOptimizer optimizer) {
+        if (this.optimizedFrom != this.fromMatcher || this.optimizedTo != this.toMatcher) return this;
+        final Matcher from = optimizer.optimize(this.fromMatcher);
+        final Matcher to = optimizer.optimize(this.toMatcher);
+        if (from == this.optimizedFrom && to == this.optimizedTo) return this;
+        return new Rule(this.fromMatcher, this.toMatcher, this.perm, this.applicableScopes, this.distance,
+            this.optionality, from, to);
+    }
+
+    /**
+     * @return the matcher to evaluate against the module being built.
+     */
+    Matcher getFromMatcher() {
+        return this.optimizedFrom;
+    }
+
     /**
      * @return true if this rule is applicable for checking dependencies parse the given module.
      */
     boolean isApplicableFrom(final Coordinates c) {
-        return fromMatcher.matches(requireNonNull(c));
+        return optimizedFrom.matches(requireNonNull(c));
     }
 
     /**
@@ -73,32 +116,78 @@ class Rule implements Comparable<Rule> {
      * anything to say about the permissibility.
      */
     Permissibility getPermissibility(final OutboundDependency dep) {
-        if (applicableScopes.contains(dep.getScope()) && //
-            matchesDirect(dep.isDirect(), this.distance) && //
-            matchesOptional(dep.isOptional(), this.optionality) && //
-            toMatcher.matches(dep.getTo())) {
+        if ((this.applicabilityMask & ApplicabilityMask.forDependency(dep)) != 0 && //
+            optimizedTo.matches(dep.getTo())) {
             return perm;
         }
         return null;
     }
 
+    /**
+     * @return the ApplicabilityMask bits for every combination of scope, directness and optionality this rule
+     * applies to.
+     */
+    int getApplicabilityMask() {
+        return this.applicabilityMask;
+    }
+
+    /**
+     * @return the matcher to evaluate against the dependency.
+     */
+    Matcher getToMatcher() {
+        return this.optimizedTo;
+    }
+
+    Permissibility getPermissibility() {
+        return this.perm;
+    }
+
+
+    /**
+     * @return the 'from' matcher the rule was built with, before any optimization.
+     */
+    Matcher getDeclaredFromMatcher() {
+        return this.fromMatcher;
+    }
+
+    /**
+     * @return the 'to' matcher the rule was built with, before any optimization.
+     */
+    Matcher getDeclaredToMatcher() {
+        return this.toMatcher;
+    }
+
+    /**
+     * @return bits for the ordinals of the MavenDependencyScopes this rule applies to.
+     */
+    int getScopeMask() {
+        return this.scopeMask;
+    }
+
+    RuleDistance getDistance() {
+        return this.distance;
+    }
+
+    RuleOptionality getOptionality() {
+        return this.optionality;
+    }
 
     // ===================================================================
     // Object impl
 
     @Override
     public boolean equals(final Object o) {
+        if (this == o) return true;
         if (!(o instanceof Rule)) return false;
         final Rule that = (Rule) o;
-        return new EqualsBuilder().append(this.perm, that.perm).append(this.fromMatcher, that.fromMatcher)
-            .append(this.toMatcher, that.toMatcher).append(this.distance, that.distance)
-            .append(this.applicableScopes, that.applicableScopes).isEquals();
+        return this.hashCode == that.hashCode && this.scopeMask == that.scopeMask &&
+            this.distance == that.distance && this.perm.equals(that.perm) &&
+            this.fromMatcher.equals(that.fromMatcher) && this.toMatcher.equals(that.toMatcher);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder().append(this.perm).append(this.fromMatcher).append(this.toMatcher)
-            .append(this.distance).append(this.applicableScopes).toHashCode();
+        return this.hashCode;
     }
 
     @Override
@@ -111,44 +200,30 @@ class Rule implements Comparable<Rule> {
 
     @Override
     public int compareTo(Rule that) {
-        // dump the applicableScopes into arrays that we can compare
-        final DependencyScope[] thisScopes = this.applicableScopes.toArray(new DependencyScope[0]);
-        Arrays.sort(thisScopes);
-        final DependencyScope[] thatScopes = that.applicableScopes.toArray(new DependencyScope[0]);
-        Arrays.sort(thatScopes);
-        return new CompareToBuilder().append(this.perm, that.perm).append(this.fromMatcher, that.fromMatcher)
-            .append(this.toMatcher, that.toMatcher).append(this.distance, that.distance)
-            .append(thisScopes, thatScopes).toComparison();
+        if (this == that) return 0;
+        int c = this.perm.compareTo(that.perm);
+        if (c != 0) return c;
+        c = this.fromMatcher.compareTo(that.fromMatcher);
+        if (c != 0) return c;
+        c = this.toMatcher.compareTo(that.toMatcher);
+        if (c != 0) return c;
+        c = this.distance.compareTo(that.distance);
+        if (c != 0) return c;
+        return compareScopes(this.scopeMask, that.scopeMask);
     }
 
     // ===================================================================
     // Utility methods
 
     /**
-     * @return whether the given directness value matches the given RuleDistance.
+     * Orders scope masks the same way we'd order sorted arrays of the scopes: fewer scopes first, then by the first
+     * scope that differs.
      */
-    private boolean matchesDirect(boolean isDirect, RuleDistance distance) {
-        switch (distance) {
-            case DIRECT_ONLY:
-                return isDirect;
-            case TRANSITIVE_ONLY:
-                return !isDirect;
-            default:
-                return true;
-        }
-    }
-
-    /**
-     * @return whether the given optionality value matches the given RuleOptionality.
-     */
-    private boolean matchesOptional(boolean isOptional, RuleOptionality optionality) {
-        switch (optionality) {
-            case OPTIONAL_ONLY:
-                return isOptional;
-            case NON_OPTIONAL_ONLY:
-                return !isOptional;
-            default:
-                return true;
-        }
+    private static int compareScopes(final int mask1, final int mask2) {
+        if (mask1 == mask2) return 0;
+        final int c = Integer.compare(Integer.bitCount(mask1), Integer.bitCount(mask2));
+        if (c != 0) return c;
+        // the lowest scope that's in one but not the other decides it
+        return (Integer.lowestOneBit(mask1 ^ mask2) & mask1) != 0 ? -1 : 1;
     }
 }
@@ -92,11 +92,11 @@ class RuleBuilderImpl implements RuleBuilder {
     }
 
     @Override
-    public RuleBuilder scope(final DependencyScope scope) {
+    public RuleBuilder scope(final DependencyScope scope) throws RuleBuildingException {
         assertNotBuilt();
         requireNonNull(scope, "scope must not be null");
         if (!(scope instanceof DependencyScopeFactory.MavenDependencyScope)) {
-            throw new IllegalArgumentException("bad scope " + scope);
+            throw new RuleBuildingException("unsupported scope " + scope);
         }
         final DependencyScopeFactory.MavenDependencyScope mavenScope =
             (DependencyScopeFactory.MavenDependencyScope) scope;
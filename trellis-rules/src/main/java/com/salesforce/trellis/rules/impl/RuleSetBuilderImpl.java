@@ -32,6 +32,11 @@ public class RuleSetBuilderImpl implements RuleSetBuilder, Consumer<Rule> {
     private ExpressionResolver context;
     private Logger logger;
     private final ImmutableList.Builder<Rule> rules;
+    // the RuleSet all of the rules came from, if there was just one; lets build() reuse its optimized rules and index
+    private RuleSetImpl soleSource;
+    private boolean hasRules;
+    private boolean useDecisionTables;
+    private long cacheSize;
     private boolean isBuilt;
 
     // ===================================================================
@@ -60,7 +65,25 @@ public class RuleSetBuilderImpl implements RuleSetBuilder, Consumer<Rule> {
 
     @Override
     public RuleSetBuilder addRules(RuleSet otherRules) {
-        this.rules.addAll(((RuleSetImpl) otherRules).getRules());
+        final RuleSetImpl other = (RuleSetImpl) otherRules;
+        this.soleSource = this.hasRules ? null : other;
+        this.hasRules = true;
+        this.rules.addAll(other.getRules());
+        return this;
+    }
+
+    @Override
+    public RuleSetBuilder decisionTables(final boolean enabled) {
+        assertNotBuilt();
+        this.useDecisionTables = enabled;
+        return this;
+    }
+
+    @Override
+    public RuleSetBuilder permissibilityCache(final long maximumSize) {
+        assertNotBuilt();
+        if (maximumSize < 0) throw new IllegalArgumentException("invalid cache size " + maximumSize);
+        this.cacheSize = maximumSize;
         return this;
     }
 
@@ -74,8 +97,10 @@ public class RuleSetBuilderImpl implements RuleSetBuilder, Consumer<Rule> {
     public RuleSet build() {
         assertNotBuilt();
         isBuilt = true;
-        final ImmutableList<Rule> builtRules = this.rules.build();
-        return new RuleSetImpl(builtRules, logger == null ? LoggerFactory.getLogger(this.getClass()) : logger);
+        final Logger builtLogger = logger == null ? LoggerFactory.getLogger(this.getClass()) : logger;
+        final PermissibilityCache cache = cacheSize > 0 ? new PermissibilityCache(cacheSize) : null;
+        if (this.soleSource != null) return this.soleSource.withSettings(builtLogger, useDecisionTables, cache);
+        return new RuleSetImpl(this.rules.build(), builtLogger, useDecisionTables, cache);
     }
 
     // ===================================================================
@@ -83,6 +108,8 @@ public class RuleSetBuilderImpl implements RuleSetBuilder, Consumer<Rule> {
 
     @Override
     public void accept(Rule rule) {
+        this.soleSource = null;
+        this.hasRules = true;
         this.rules.add(requireNonNull(rule));
     }
 
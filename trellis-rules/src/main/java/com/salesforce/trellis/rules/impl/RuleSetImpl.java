@@ -8,15 +8,22 @@ package com.salesforce.trellis.rules.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.OutboundDependency;
+import com.salesforce.trellis.rules.Permissibility;
 import com.salesforce.trellis.rules.RuleSet;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
 /**
+ * Rules' matchers are optimized and the rules are indexed by their 'from' matchers when the RuleSet is built, so
+ * that finding the rules for a module doesn't require evaluating every rule.
+ * <p>
  * This class is immutable and thread-safe.
  *
  * @author pcal
@@ -26,30 +33,120 @@ class RuleSetImpl implements RuleSet {
 
     private final ImmutableList<Rule> allRules;
 
+    private final MatcherIndex fromIndex;
+
     private final Logger logger;
 
+    private final boolean useDecisionTables;
+
+    private final PermissibilityCache cacheOrNull;
+
     RuleSetImpl(final ImmutableList<Rule> rules, final Logger logger) {
-        this.allRules = requireNonNull(rules);
+        this(rules, logger, false, null);
+    }
+
+    RuleSetImpl(final ImmutableList<Rule> rules,
+                final Logger logger,
+                final boolean useDecisionTables,
+                final PermissibilityCache cacheOrNull) {
+        final MatcherOptimizer optimizer = new MatcherOptimizer();
+        this.allRules = ImmutableList.copyOf(requireNonNull(rules).stream().map(r -> r.optimize(optimizer))
+            .collect(Collectors.toList()));
+        this.fromIndex =
+            MatcherIndex.build(this.allRules.stream().map(Rule::getFromMatcher).collect(Collectors.toList()));
         this.logger = requireNonNull(logger);
+        this.useDecisionTables = useDecisionTables;
+        this.cacheOrNull = cacheOrNull;
+    }
+
+    private RuleSetImpl(final RuleSetImpl other,
+                        final Logger logger,
+                        final boolean useDecisionTables,
+                        final PermissibilityCache cacheOrNull) {
+        this.allRules = other.allRules;
+        this.fromIndex = other.fromIndex;
+        this.logger = requireNonNull(logger);
+        this.useDecisionTables = useDecisionTables;
+        this.cacheOrNull = cacheOrNull;
     }
 
     @Override
     public PerModuleRules getRulesFor(final Coordinates c) {
         requireNonNull(c);
-        // Dig through all coordinates the rules and figure out which ones apply to the module being built.
-        // We could cache these results, but the assumption is that practically speaking, this is only going to create
-        // called once per module, anyway (i.e., when that module is getting built).
+        // Use the index to narrow down the rules that might apply to the module being built, then check each of
+        // them.  Candidates are visited in their original order.
         List<Rule> rules = null;
-        for (final Rule rule : this.allRules) {
+        final BitSet applicable = new BitSet(this.allRules.size());
+        final BitSet candidates = this.fromIndex.getCandidates(c);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            final Rule rule = this.allRules.get(i);
             if (rule.isApplicableFrom(c)) {
                 if (rules == null) rules = new ArrayList();
                 rules.add(rule);
+                applicable.set(i);
             }
         }
-        return rules == null ? null : new PerModuleRulesImpl(rules, this.logger);
+        if (rules == null) return null;
+        final PerModuleRulesImpl out = new PerModuleRulesImpl(rules, this.logger, this.useDecisionTables);
+        return this.cacheOrNull == null ? out :
+            new CachingPerModuleRules(out, this.cacheOrNull, this.cacheOrNull.getFingerprint(applicable));
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return this.cacheOrNull;
     }
 
     ImmutableList getRules() {
         return this.allRules;
     }
+
+    /**
+     * @return a RuleSet that shares this one's optimized rules and index but evaluates them with the given settings.
+     */
+    RuleSetImpl withSettings(final Logger logger,
+                             final boolean useDecisionTables,
+                             final PermissibilityCache cacheOrNull) {
+        return new RuleSetImpl(this, logger, useDecisionTables, cacheOrNull);
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    /**
+     * Checks dependencies through the RuleSet's PermissibilityCache.
+     */
+    private static final class CachingPerModuleRules implements PerModuleRules {
+
+        private final PerModuleRulesImpl delegate;
+        private final PermissibilityCache cache;
+        private final int fingerprint;
+
+        CachingPerModuleRules(final PerModuleRulesImpl delegate,
+                              final PermissibilityCache cache,
+                              final int fingerprint) {
+            this.delegate = requireNonNull(delegate);
+            this.cache = requireNonNull(cache);
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public Permissibility checkDependency(final OutboundDependency dep) {
+            requireNonNull(dep, "dep must not be null");
+            return this.cache.get(this.fingerprint, dep, this.delegate::checkDependency);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof CachingPerModuleRules)) return false;
+            final CachingPerModuleRules that = (CachingPerModuleRules) o;
+            // the same fingerprint in the same cache means the same rules
+            return this.cache == that.cache && this.fingerprint == that.fingerprint;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.fingerprint;
+        }
+    }
 }
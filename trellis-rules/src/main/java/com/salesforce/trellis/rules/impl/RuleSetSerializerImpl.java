@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.salesforce.trellis.rules.Coordinates;
+import com.salesforce.trellis.rules.Permissibility;
+import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.RuleSetSerializer;
+import com.salesforce.trellis.rules.builder.RuleAction;
+import com.salesforce.trellis.rules.builder.RuleDistance;
+import com.salesforce.trellis.rules.builder.RuleOptionality;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binary RuleSet format.  After a header, there's a table of all of the distinct strings, then a table of all of the
+ * distinct matchers (children always before their parents, so each matcher refers to earlier ones by position), and
+ * finally the rules, which refer to the matchers and strings by position.  Group matchers are shared by lots of
+ * rules, so they're only written once.
+ * <p>
+ * Rules are written with the matchers they were declared with, not the optimized ones, so that a RuleSet that's
+ * read back is equal to the one that was written.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+public class RuleSetSerializerImpl implements RuleSetSerializer {
+
+    // ===================================================================
+    // Constants
+
+    private static final int MAGIC = 0x7E11150;
+
+    private static final byte SIMPLE = 0;
+    private static final byte WILDCARD = 1;
+    private static final byte NOT = 2;
+    private static final byte AND = 3;
+    private static final byte OR = 4;
+    private static final byte COORDINATES_SET = 5;
+
+    private static final RuleAction[] ACTIONS = RuleAction.values();
+    private static final RuleDistance[] DISTANCES = RuleDistance.values();
+    private static final RuleOptionality[] OPTIONALITIES = RuleOptionality.values();
+
+    // ===================================================================
+    // RuleSetSerializer impl
+
+    @Override
+    public void write(final RuleSet rules, final OutputStream out) throws IOException {
+        requireNonNull(rules, "rules must not be null");
+        requireNonNull(out, "out must not be null");
+        @SuppressWarnings("unchecked") final List<Rule> ruleList = ((RuleSetImpl) rules).getRules();
+        final Writer w = new Writer();
+        for (final Rule rule : ruleList) {
+            w.addMatcher(rule.getDeclaredFromMatcher());
+            w.addMatcher(rule.getDeclaredToMatcher());
+            w.addString(rule.getPermissibility().getReason());
+        }
+        final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+        dos.writeInt(MAGIC);
+        dos.writeInt(FORMAT_VERSION);
+        dos.writeInt(w.strings.size());
+        for (final String s : w.strings) dos.writeUTF(s);
+        dos.writeInt(w.matchers.size());
+        for (final Matcher m : w.matchers) w.writeMatcher(m, dos);
+        dos.writeInt(ruleList.size());
+        for (final Rule rule : ruleList) {
+            dos.writeInt(w.matcherIds.get(rule.getDeclaredFromMatcher()));
+            dos.writeInt(w.matcherIds.get(rule.getDeclaredToMatcher()));
+            dos.writeByte(getAction(rule.getPermissibility()).ordinal());
+            dos.writeInt(w.getStringId(rule.getPermissibility().getReason()));
+            dos.writeInt(rule.getScopeMask());
+            dos.writeByte(rule.getDistance().ordinal());
+            dos.writeByte(rule.getOptionality().ordinal());
+        }
+        dos.flush();
+    }
+
+    @Override
+    public RuleSet read(final InputStream in) throws IOException {
+        requireNonNull(in, "in must not be null");
+        final DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+        if (dis.readInt() != MAGIC) throw new IOException("not a serialized RuleSet");
+        final int version = dis.readInt();
+        if (version != FORMAT_VERSION) throw new IOException("unsupported RuleSet format version " + version);
+        try {
+            final String[] strings = new String[dis.readInt()];
+            for (int i = 0; i < strings.length; i++) strings[i] = dis.readUTF();
+            final Matcher[] matchers = new Matcher[dis.readInt()];
+            for (int i = 0; i < matchers.length; i++) matchers[i] = readMatcher(dis, strings, matchers);
+            final int ruleCount = dis.readInt();
+            final ImmutableList.Builder<Rule> rules = ImmutableList.builder();
+            for (int i = 0; i < ruleCount; i++) {
+                final Matcher from = matchers[dis.readInt()];
+                final Matcher to = matchers[dis.readInt()];
+                final RuleAction action = ACTIONS[dis.readByte()];
+                final int reasonId = dis.readInt();
+                final Permissibility perm = PermissibilityImpl.create(action, reasonId < 0 ? null : strings[reasonId]);
+                final int scopeMask = dis.readInt();
+                rules.add(new Rule(requireNonNull(from), requireNonNull(to), perm,
+                    DependencyScopeFactory.fromMask(scopeMask), DISTANCES[dis.readByte()],
+                    OPTIONALITIES[dis.readByte()]));
+            }
+            return new RuleSetImpl(rules.build(), LoggerFactory.getLogger(RuleSetImpl.class));
+        } catch (ArrayIndexOutOfBoundsException | NullPointerException | IllegalArgumentException e) {
+            throw new IOException("malformed RuleSet", e);
+        }
+    }
+
+    // ===================================================================
+    // Private methods
+
+    private static Matcher readMatcher(final DataInputStream dis,
+                                       final String[] strings,
+                                       final Matcher[] matchers) throws IOException {
+        final byte type = dis.readByte();
+        switch (type) {
+            case SIMPLE:
+                return new SimpleMatcher(Coordinates.parse(strings[dis.readInt()]));
+            case WILDCARD:
+                return new WildcardMatcher(strings[dis.readInt()]);
+            case NOT:
+                return NotMatcher.get(requireNonNull(matchers[dis.readInt()]));
+            case AND:
+                return AndMatcher.get(readChildren(dis, matchers));
+            case OR:
+                return OrMatcher.get(readChildren(dis, matchers));
+            case COORDINATES_SET: {
+                final int count = dis.readInt();
+                final List<Coordinates> coordinates = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) coordinates.add(Coordinates.parse(strings[dis.readInt()]));
+                return new CoordinatesSetMatcher(coordinates);
+            }
+            default:
+                throw new IOException("unknown matcher type " + type);
+        }
+    }
+
+    private static List<Matcher> readChildren(final DataInputStream dis, final Matcher[] matchers)
+        throws IOException {
+        final int count = dis.readInt();
+        final List<Matcher> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) out.add(requireNonNull(matchers[dis.readInt()]));
+        return out;
+    }
+
+    private static RuleAction getAction(final Permissibility p) {
+        return !p.isPermissible() ? RuleAction.DENY : p.isDiscouraged() ? RuleAction.WARN : RuleAction.ALLOW;
+    }
+
+    // ===================================================================
+    // Inner classes
+
+    /**
+     * Collects the distinct strings and matchers that need to be written.
+     */
+    private static final class Writer {
+
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<Matcher> matchers = new ArrayList<>();
+        private final Map<Matcher, Integer> matcherIds = new IdentityHashMap<>();
+
+        void addString(final String s) {
+            if (s != null && !this.stringIds.containsKey(s)) {
+                this.stringIds.put(s, this.strings.size());
+                this.strings.add(s);
+            }
+        }
+
+        int getStringId(final String s) {
+            return s == null ? -1 : this.stringIds.get(s);
+        }
+
+        void addMatcher(final Matcher m) {
+            if (this.matcherIds.containsKey(m)) return;
+            if (m instanceof SimpleMatcher) {
+                addString(((SimpleMatcher) m).getCoordinates().getCanonicalString());
+            } else if (m instanceof WildcardMatcher) {
+                addString(m.toString());
+            } else if (m instanceof NotMatcher) {
+                addMatcher(((NotMatcher) m).getNegatedMatcher());
+            } else if (m instanceof CompositeMatcher) {
+                for (final Matcher child : ((CompositeMatcher) m).getMatchers()) addMatcher(child);
+            } else if (m instanceof CoordinatesSetMatcher) {
+                for (final Coordinates c : ((CoordinatesSetMatcher) m).getCoordinates()) {
+                    addString(c.getCanonicalString());
+                }
+            } else {
+                throw new IllegalArgumentException("unsupported matcher " + m.getClass());
+            }
+            this.matcherIds.put(m, this.matchers.size());
+            this.matchers.add(m);
+        }
+
+        void writeMatcher(final Matcher m, final DataOutputStream dos) throws IOException {
+            if (m instanceof SimpleMatcher) {
+                dos.writeByte(SIMPLE);
+                dos.writeInt(getStringId(((SimpleMatcher) m).getCoordinates().getCanonicalString()));
+            } else if (m instanceof WildcardMatcher) {
+                dos.writeByte(WILDCARD);
+                dos.writeInt(getStringId(m.toString()));
+            } else if (m instanceof NotMatcher) {
+                dos.writeByte(NOT);
+                dos.writeInt(this.matcherIds.get(((NotMatcher) m).getNegatedMatcher()));
+            } else if (m instanceof CompositeMatcher) {
+                dos.writeByte(m instanceof AndMatcher ? AND : OR);
+                final List<Matcher> children = ((CompositeMatcher) m).getMatchers();
+                dos.writeInt(children.size());
+                for (final Matcher child : children) dos.writeInt(this.matcherIds.get(child));
+            } else {
+                dos.writeByte(COORDINATES_SET);
+                dos.writeInt(((CoordinatesSetMatcher) m).getCoordinates().size());
+                for (final Coordinates c : ((CoordinatesSetMatcher) m).getCoordinates()) {
+                    dos.writeInt(getStringId(c.getCanonicalString()));
+                }
+            }
+        }
+    }
+}
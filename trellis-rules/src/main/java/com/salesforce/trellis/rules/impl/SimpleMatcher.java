@@ -27,7 +27,12 @@ final class SimpleMatcher implements Matcher {
     }
 
     SimpleMatcher(Coordinates coordinates) {
-        this.coordinates = requireNonNull(coordinates);
+        // hold the canonical instance, so that the id that the coordinates are indexed under doesn't change
+        this.coordinates = Coordinates.of(coordinates.getGroupId(), coordinates.getArtifactId());
+    }
+
+    Coordinates getCoordinates() {
+        return this.coordinates;
     }
 
     @Override
@@ -39,15 +44,16 @@ final class SimpleMatcher implements Matcher {
     @Override
     public int compareTo(Matcher o) {
         if (!(SimpleMatcher.class.isAssignableFrom(o.getClass()))) {
-            return this.getClass().getSimpleName().compareTo(o.getClass().getSimpleName());
+            return MatcherOrdering.compareTypes(this, o);
         } else {
-            return this.toString().compareTo(o.toString());
+            return this.coordinates.compareTo(((SimpleMatcher) o).coordinates);
         }
     }
 
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof com.salesforce.trellis.rules.impl.SimpleMatcher)) return false;
+        if (this == o) return true;
         final com.salesforce.trellis.rules.impl.SimpleMatcher that =
             (com.salesforce.trellis.rules.impl.SimpleMatcher) o;
         return this.coordinates.equals(that.coordinates);
@@ -7,28 +7,70 @@
 package com.salesforce.trellis.rules.impl;
 
 import com.salesforce.trellis.rules.Coordinates;
-import org.apache.commons.io.FilenameUtils;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * Matches a wildcard expression.
+ * Matches a wildcard expression.  The expression is compiled once when the matcher is created.  Expressions with
+ * exactly one colon are split into separate groupId and artifactId patterns, which is equivalent since neither id
+ * can contain a colon, and which saves us from having to look at the canonical string at all.
+ * <p/>
+ * This class is immutable and thread-safe.
  *
  * @author pcal
  * @since 0.0.1
  */
 final class WildcardMatcher implements Matcher {
 
+    // ===================================================================
+    // Fields
+
     private final String expression;
+    private final WildcardPattern groupIdPattern;
+    private final WildcardPattern artifactIdPattern;
+    private final WildcardPattern canonicalPattern;
+
+    // ===================================================================
+    // Constructor
 
     WildcardMatcher(String expression) {
         this.expression = requireNonNull(expression);
+        final int colon = expression.indexOf(':');
+        if (colon != -1 && expression.indexOf(':', colon + 1) == -1) {
+            this.groupIdPattern = WildcardPattern.compile(expression.substring(0, colon));
+            this.artifactIdPattern = WildcardPattern.compile(expression.substring(colon + 1));
+            this.canonicalPattern = null;
+        } else {
+            this.groupIdPattern = null;
+            this.artifactIdPattern = null;
+            this.canonicalPattern = WildcardPattern.compile(expression);
+        }
     }
 
+    // ===================================================================
+    // Package methods
+
+    /**
+     * @return the part of the expression that precedes the first wildcard character.
+     */
+    String getLiteralPrefix() {
+        for (int i = 0; i < this.expression.length(); i++) {
+            final char c = this.expression.charAt(i);
+            if (c == '*' || c == '?') return this.expression.substring(0, i);
+        }
+        return this.expression;
+    }
+
+    // ===================================================================
+    // Matcher impl
+
     @Override
     public boolean matches(Coordinates coordinates) {
-        // TODO figure out if this is better than regexes
-        return FilenameUtils.wildcardMatch(coordinates.getCanonicalString(), this.expression);
+        if (this.canonicalPattern != null) {
+            return this.canonicalPattern.matches(coordinates.getCanonicalString());
+        }
+        return this.groupIdPattern.matches(coordinates.getGroupId()) &&
+            this.artifactIdPattern.matches(coordinates.getArtifactId());
     }
 
     @Override
@@ -43,6 +85,7 @@ final class WildcardMatcher implements Matcher {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (!(o instanceof com.salesforce.trellis.rules.impl.WildcardMatcher)) return false;
         final com.salesforce.trellis.rules.impl.WildcardMatcher that =
             (com.salesforce.trellis.rules.impl.WildcardMatcher) o;
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2020, salesforce.com, inc.
+ * All rights reserved.
+ * SPDX-License-Identifier: BSD-3-Clause
+ * For full license text, see the LICENSE file in the repo root or https://opensource.org/licenses/BSD-3-Clause
+ */
+package com.salesforce.trellis.rules.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A precompiled, case-sensitive glob pattern supporting '*' (any sequence of characters) and '?' (exactly one
+ * character).  Matches the same strings as FilenameUtils.wildcardMatch but does all of the tokenizing up front,
+ * recognizes the common shapes (prefix, suffix, contains) and never allocates while matching.
+ * <p/>
+ * This class is immutable and thread-safe.
+ *
+ * @author pcal
+ * @since 0.0.9
+ */
+final class WildcardPattern {
+
+    // ===================================================================
+    // Constants
+
+    private static final char ANY_SEQUENCE = '*';
+    private static final char ANY_CHAR = '?';
+
+    private enum Kind {
+        ANY,           // *
+        EXACT,         // foo
+        PREFIX,        // foo*
+        SUFFIX,        // *foo
+        CONTAINS,      // *foo*
+        PREFIX_SUFFIX, // foo*bar
+        GENERAL        // anything else
+    }
+
+    // ===================================================================
+    // Fields
+
+    private final Kind kind;
+    private final String[] literals;
+    private final boolean anchoredStart;
+    private final boolean anchoredEnd;
+    private final boolean hasAnyChar;
+    private final int minLength;
+
+    // ===================================================================
+    // Factory
+
+    static WildcardPattern compile(final String glob) {
+        requireNonNull(glob);
+        final List<String> literals = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            if (glob.charAt(i) == ANY_SEQUENCE) {
+                if (i > start) literals.add(glob.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (start < glob.length()) literals.add(glob.substring(start));
+        final boolean anchoredStart = glob.isEmpty() || glob.charAt(0) != ANY_SEQUENCE;
+        final boolean anchoredEnd = glob.isEmpty() || glob.charAt(glob.length() - 1) != ANY_SEQUENCE;
+        final Kind kind;
+        if (glob.indexOf(ANY_SEQUENCE) == -1) {
+            kind = Kind.EXACT;
+            if (literals.isEmpty()) literals.add(glob); // the empty glob matches only the empty string
+        } else if (literals.isEmpty()) {
+            kind = Kind.ANY;
+        } else if (literals.size() == 1) {
+            kind = anchoredStart ? Kind.PREFIX : anchoredEnd ? Kind.SUFFIX : Kind.CONTAINS;
+        } else if (literals.size() == 2 && anchoredStart && anchoredEnd) {
+            kind = Kind.PREFIX_SUFFIX;
+        } else {
+            kind = Kind.GENERAL;
+        }
+        return new WildcardPattern(kind, literals.toArray(new String[0]), anchoredStart, anchoredEnd,
+            glob.indexOf(ANY_CHAR) != -1);
+    }
+
+    // ===================================================================
+    // Constructor
+
+    private WildcardPattern(final Kind kind,
+                            final String[] literals,
+                            final boolean anchoredStart,
+                            final boolean anchoredEnd,
+                            final boolean hasAnyChar) {
+        this.kind = requireNonNull(kind);
+        this.literals = requireNonNull(literals);
+        this.anchoredStart = anchoredStart;
+        this.anchoredEnd = anchoredEnd;
+        this.hasAnyChar = hasAnyChar;
+        int minLength = 0;
+        for (final String literal : literals) minLength += literal.length();
+        this.minLength = minLength;
+    }
+
+    // ===================================================================
+    // Package methods
+
+    boolean matches(final String text) {
+        if (text.length() < this.minLength) return false;
+        switch (this.kind) {
+            case ANY:
+                return true;
+            case EXACT:
+                return text.length() == this.minLength && regionMatches(text, 0, this.literals[0]);
+            case PREFIX:
+                return regionMatches(text, 0, this.literals[0]);
+            case SUFFIX:
+                return regionMatches(text, text.length() - this.minLength, this.literals[0]);
+            case CONTAINS:
+                return indexOf(text, this.literals[0], 0) != -1;
+            case PREFIX_SUFFIX:
+                return regionMatches(text, 0, this.literals[0]) &&
+                    regionMatches(text, text.length() - this.literals[1].length(), this.literals[1]);
+            default:
+                return matchesGeneral(text);
+        }
+    }
+
+    // ===================================================================
+    // Private methods
+
+    /**
+     * Leftmost-first matching of each literal is sufficient here because every literal has a fixed length.
+     */
+    private boolean matchesGeneral(final String text) {
+        int first = 0;
+        int last = this.literals.length;
+        int pos = 0;
+        int end = text.length();
+        if (this.anchoredStart) {
+            if (!regionMatches(text, 0, this.literals[0])) return false;
+            pos = this.literals[0].length();
+            first++;
+        }
+        if (this.anchoredEnd) {
+            final String suffix = this.literals[last - 1];
+            end = text.length() - suffix.length();
+            if (end < pos || !regionMatches(text, end, suffix)) return false;
+            last--;
+        }
+        for (int i = first; i < last; i++) {
+            final String literal = this.literals[i];
+            final int found = indexOf(text, literal, pos);
+            if (found == -1 || found + literal.length() > end) return false;
+            pos = found + literal.length();
+        }
+        return true;
+    }
+
+    private boolean regionMatches(final String text, final int offset, final String literal) {
+        if (!this.hasAnyChar) return text.startsWith(literal, offset);
+        if (offset < 0 || offset + literal.length() > text.length()) return false;
+        for (int i = 0; i < literal.length(); i++) {
+            final char c = literal.charAt(i);
+            if (c != ANY_CHAR && c != text.charAt(offset + i)) return false;
+        }
+        return true;
+    }
+
+    private int indexOf(final String text, final String literal, final int from) {
+        if (!this.hasAnyChar) return text.indexOf(literal, from);
+        for (int i = from; i + literal.length() <= text.length(); i++) {
+            if (regionMatches(text, i, literal)) return i;
+        }
+        return -1;
+    }
+}
@@ -9,6 +9,8 @@ package com.salesforce.trellis.whitelist;
 import com.salesforce.trellis.rules.Coordinates;
 import com.salesforce.trellis.rules.OutboundDependency;
 
+import java.io.IOException;
+
 /**
  * Session-scoped object for processing dependency whitelists.
  *
@@ -24,6 +26,13 @@ public interface Whitelister {
      */
     PerModuleWhitelister getWhitelister(Coordinates fromModule);
 
+    /**
+     * Must be called once all modules have been processed, to ensure that any deferred whitelist updates get saved.
+     *
+     * @throws IOException if any of the updates could not be saved.
+     */
+    void flush() throws IOException;
+
     /**
      * Whitelists dependencies for a given module.  The expectation is that this will be called in a tight loop for
      * all dependencies of a module.
@@ -8,6 +8,8 @@ package com.salesforce.trellis.whitelist.builder;
 
 import com.salesforce.trellis.rules.Coordinates;
 
+import java.io.IOException;
+
 /**
  * Receives notifications about stuff that needs to get whitelisted.
  *
@@ -36,4 +38,13 @@ public interface WhitelistListener {
      */
     void notifyModuleProcessed(final Coordinates fromModule);
 
+    /**
+     * Notifies the listener that the whitelisting session is over.  Listeners that defer their updates until all
+     * modules have been processed should apply them now.  Does nothing by default.
+     *
+     * @throws IOException if the updates could not be saved.
+     */
+    default void flush() throws IOException {
+    }
+
 }
@@ -12,7 +12,11 @@ import com.salesforce.trellis.whitelist.Whitelister;
 import com.salesforce.trellis.whitelist.builder.WhitelistListener;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 
@@ -32,4 +36,13 @@ class WhitelisterImpl implements Whitelister {
     public PerModuleWhitelister getWhitelister(Coordinates module) {
         return PerModuleWhitelisterImpl.createFor(module, whitelists);
     }
+
+    @Override
+    public void flush() throws IOException {
+        // several rules can share a listener (and a file), but each listener only needs to be flushed once
+        final Set<WhitelistListener> listeners = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Pair<RuleSet, WhitelistListener> whitelist : whitelists) {
+            if (listeners.add(whitelist.getRight())) whitelist.getRight().flush();
+        }
+    }
 }
@@ -49,6 +49,16 @@ public class MockRuleSetBuilder implements RuleSetBuilder {
         return this;
     }
 
+    @Override
+    public RuleSetBuilder decisionTables(boolean enabled) {
+        return this;
+    }
+
+    @Override
+    public RuleSetBuilder permissibilityCache(long maximumSize) {
+        return this;
+    }
+
     @Override
     public RuleBuilder rule() {
         pw.println("rule:");
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -36,6 +37,36 @@ public class CoordinatesTest {
         assertNotEquals(a, new Object());
     }
 
+    @Test
+    public void testInterning() {
+        final Coordinates a = Coordinates.parse("sfdc.core:platform-encryption");
+        final Coordinates b = Coordinates.of(" sfdc.core", "platform-encryption ");
+        final Coordinates c = Coordinates.of("sfdc.core", "platform-encryption", "1.0");
+        assertSame(a, b);
+        assertSame(b, c);
+        assertSame(a.getCanonicalString(), a.getCanonicalString());
+        // instances created outside of the factories are still equal to the pooled ones
+        final Coordinates d = new Coordinates("sfdc.core", "platform-encryption") {};
+        assertEquals(a, d);
+        assertEquals(d, a);
+        assertEquals(a.hashCode(), d.hashCode());
+        assertEquals(0, d.compareTo(a));
+        assertNotEquals(a, new Coordinates("sfdc.core", "platform-encryption2") {});
+        assertNotEquals(a, new Coordinates("sfdc.core2", "platform-encryption") {});
+    }
+
+    @Test
+    public void testIds() {
+        final Coordinates a = Coordinates.parse("sfdc.core:platform-encryption");
+        final Coordinates b = Coordinates.parse("sfdc.core:platform-encryption2");
+        assertTrue(a.getId() >= 0);
+        assertEquals(a.getId(), a.getId());
+        assertEquals(a.getId(), Coordinates.of("sfdc.core", "platform-encryption", "1.0").getId());
+        assertNotEquals(a.getId(), b.getId());
+        // instances created outside of the factories get the id of the pooled one
+        assertEquals(a.getId(), new Coordinates("sfdc.core", "platform-encryption") {}.getId());
+    }
+
     @Test
     public void testComparisons() {
         final Coordinates a = Coordinates.parse("sfdc.core:platform-encryption");
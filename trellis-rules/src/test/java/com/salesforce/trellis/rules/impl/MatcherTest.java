@@ -8,12 +8,18 @@ package com.salesforce.trellis.rules.impl;
 
 import com.salesforce.trellis.common.OrderingTester;
 import com.salesforce.trellis.rules.Coordinates;
+import org.apache.commons.io.FilenameUtils;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -39,6 +45,71 @@ public class MatcherTest {
         }
     }
 
+    /**
+     * Make sure the compiled wildcard patterns agree with FilenameUtils.wildcardMatch, which is what we used to use.
+     */
+    @Test
+    public void testWildcardPatternShapes() {
+        final String[] expressions = {
+            "*", "**", "*:*", "sfdc.core:*", "*:foo-api", "sfdc.*:*", "*.core:*-api", "*core*:*", "sfdc.core:foo*api",
+            "sfdc*core:foo-api", "*:f?o-api", "sfdc.co?e:*", "s*c.c*e:f*-*", "*o*o*", "*-api", "sfdc*", "sfdc.core*api",
+            "*c?r*", "?*", "???*:*", "*::*", "*:", ":*", "a:b:*", "sfdc.core:foo-api*", "*sfdc.core:foo-api",
+            "*f*o*-*a*p*i*", "s?d?.*:?oo*-?pi", "*:*-api-*", "*.*.*:*"
+        };
+        final String[] coordinates = {
+            "sfdc.core:foo-api", "sfdc.ui:bar-api", "sfdc.core:foo-impl", "sfdc.core:foo-api-wut", "foo:bar", "s:f",
+            "sfdc.core:fooapi", "x.y.z:a-api-b", "sfdc.core:foo-api-api"
+        };
+        for (final String e : expressions) {
+            final WildcardMatcher m = new WildcardMatcher(e);
+            for (final String c : coordinates) {
+                assertEquals(FilenameUtils.wildcardMatch(c, e), m.matches(Coordinates.parse(c)), e + " vs " + c);
+            }
+        }
+        // FilenameUtils never matches a trailing '?' that follows a '*'; we do
+        assertTrue(new WildcardMatcher("*?").matches(Coordinates.parse("foo:bar")));
+        assertTrue(new WildcardMatcher("foo:*?").matches(Coordinates.parse("foo:bar")));
+        assertFalse(new WildcardMatcher("foo:*?").matches(Coordinates.parse("foo: ")));
+        assertTrue(WildcardPattern.compile("").matches(""));
+        assertFalse(WildcardPattern.compile("").matches("x"));
+    }
+
+    /**
+     * Make sure that the candidates returned by a MatcherIndex always include every matcher that actually matches.
+     */
+    @Test
+    public void testMatcherIndex() {
+        final Matcher foo = SimpleMatcher.get("sfdc.core:foo");
+        final Matcher core = new WildcardMatcher("sfdc.core:*");
+        final List<Matcher> matchers = Arrays.asList(
+            foo,
+            core,
+            new WildcardMatcher("sfdc.*"),
+            new WildcardMatcher("*:foo"),
+            new WildcardMatcher("?fdc.ui:*"),
+            OrMatcher.get(SimpleMatcher.get("sfdc.ui:bar"), new WildcardMatcher("org.apache.*:*")),
+            OrMatcher.get(SimpleMatcher.get("sfdc.ui:bar"), NotMatcher.get(foo)),
+            AndMatcher.get(NotMatcher.get(foo), core),
+            AndMatcher.get(NotMatcher.get(foo), NotMatcher.get(core)),
+            NotMatcher.get(core),
+            foo);
+        final MatcherIndex index = MatcherIndex.build(matchers);
+        final String[] coordinates = {
+            "sfdc.core:foo", "sfdc.core:bar", "sfdc.ui:bar", "sfdc.ui:foo", "org.apache.commons:io", "sfdc:core",
+            "x:y"
+        };
+        for (final String s : coordinates) {
+            final Coordinates c = Coordinates.parse(s);
+            final BitSet candidates = index.getCandidates(c);
+            for (int i = 0; i < matchers.size(); i++) {
+                if (matchers.get(i).matches(c)) assertTrue(candidates.get(i), matchers.get(i) + " vs " + s);
+            }
+        }
+        // make sure it's actually narrowing things down
+        final BitSet candidates = index.getCandidates(Coordinates.parse("x:y"));
+        assertEquals(5, candidates.cardinality());
+    }
+
     @Test
     public void testCoordinateMatcher() {
         final SimpleMatcher m = new SimpleMatcher(Coordinates.parse("sfdc.core:foo-api"));
@@ -164,5 +235,110 @@ public class MatcherTest {
         final Matcher c3 = OrMatcher.get(s1, s2);
         new OrderingTester().testOrdering(Arrays.asList(c1, c2, n1, n2, c3, s1, s2));
     }
-}
 
+    @Test
+    public void testMatcherOptimizer() {
+        final Matcher foo = SimpleMatcher.get("sfdc.core:foo");
+        final Matcher bar = SimpleMatcher.get("sfdc.core:bar");
+        final Matcher baz = SimpleMatcher.get("sfdc.ui:baz");
+        final Matcher core = new WildcardMatcher("sfdc.core:*");
+        final Matcher coreApi = new WildcardMatcher("sfdc.core:*-api");
+        final Matcher sfdc = new WildcardMatcher("sfdc*");
+        final Matcher custom = new Matcher() {
+            @Override
+            public boolean matches(final Coordinates c) {
+                return c.getArtifactId().length() == 3;
+            }
+
+            @Override
+            public int compareTo(final Matcher o) {
+                return MatcherOrdering.compareTypes(this, o);
+            }
+        };
+        final List<Matcher> matchers = Arrays.asList(
+            OrMatcher.get(OrMatcher.get(foo, bar), OrMatcher.get(baz, OrMatcher.get(foo, coreApi))),
+            OrMatcher.get(foo, core, coreApi, baz, sfdc, bar),
+            OrMatcher.get(foo, core, baz),
+            OrMatcher.get(coreApi, foo),
+            OrMatcher.get(custom, NotMatcher.get(NotMatcher.get(OrMatcher.get(foo, bar)))),
+            NotMatcher.get(NotMatcher.get(NotMatcher.get(foo))),
+            AndMatcher.get(AndMatcher.get(custom, core), NotMatcher.get(OrMatcher.get(foo, baz)), core),
+            AndMatcher.get(NotMatcher.get(coreApi), foo),
+            RuleSetBuilderImpl.mergeMatcherWithException(Arrays.asList(core, baz), Arrays.asList(foo, bar)),
+            NotMatcher.get(foo),
+            foo);
+        final String[] coordinates = {
+            "sfdc.core:foo", "sfdc.core:bar", "sfdc.core:x-api", "sfdc.ui:baz", "sfdc.ui:foo", "sfdcx:y", "x:foo"
+        };
+        final MatcherOptimizer optimizer = new MatcherOptimizer();
+        for (final Matcher m : matchers) {
+            final Matcher o = optimizer.optimize(m);
+            assertSame(o, optimizer.optimize(m));
+            for (final String s : coordinates) {
+                final Coordinates c = Coordinates.parse(s);
+                assertEquals(m.matches(c), o.matches(c), m + " vs " + o + " on " + s);
+            }
+        }
+        // nested ORs of simple matchers become a single set
+        final Matcher flattened = optimizer.optimize(matchers.get(0));
+        assertEquals(OrMatcher.class, flattened.getClass());
+        assertEquals(2, ((OrMatcher) flattened).getMatchers().size());
+        assertEquals(new CoordinatesSetMatcher(Arrays.asList(Coordinates.parse("sfdc.core:foo"),
+            Coordinates.parse("sfdc.core:bar"), Coordinates.parse("sfdc.ui:baz"))),
+            ((OrMatcher) flattened).getMatchers().get(0));
+        // everything is covered by 'sfdc*'
+        assertEquals(sfdc, optimizer.optimize(matchers.get(1)));
+        // foo is covered by 'sfdc.core:*', cheapest first
+        assertEquals(OrMatcher.get(baz, core), optimizer.optimize(matchers.get(2)));
+        assertEquals(OrMatcher.get(foo, coreApi), optimizer.optimize(matchers.get(3)));
+        // double negation goes away
+        assertEquals(NotMatcher.get(foo), optimizer.optimize(matchers.get(5)));
+        assertSame(matchers.get(9), optimizer.optimize(matchers.get(9)));
+        assertSame(foo, optimizer.optimize(foo));
+    }
+
+    @Test
+    public void testCoordinatesSetMatcher() {
+        try {
+            new CoordinatesSetMatcher(Collections.emptyList());
+            fail("didn't get expected exception on empty list");
+        } catch (IllegalArgumentException expected) {}
+        final Matcher m = new CoordinatesSetMatcher(
+            Arrays.asList(Coordinates.parse("sfdc.core:foo"), Coordinates.parse("sfdc.core:bar")));
+        assertTrue(m.matches(Coordinates.parse("sfdc.core:foo")));
+        assertTrue(m.matches(Coordinates.parse("sfdc.core:bar")));
+        assertFalse(m.matches(Coordinates.parse("sfdc.core:baz")));
+        final Matcher same = new CoordinatesSetMatcher(
+            Arrays.asList(Coordinates.parse("sfdc.core:bar"), Coordinates.parse("sfdc.core:foo")));
+        assertEquals(m, same);
+        assertEquals(m.hashCode(), same.hashCode());
+        assertNotEquals(m, SimpleMatcher.get("sfdc.core:foo"));
+        assertEquals("[sfdc.core:foo, sfdc.core:bar]", m.toString());
+        final Matcher single = new CoordinatesSetMatcher(Arrays.asList(Coordinates.parse("sfdc.core:foo")));
+        new OrderingTester().testOrdering(Arrays.asList(m, single, NotMatcher.get(m), SimpleMatcher.get("a:b")));
+    }
+
+    @Test
+    public void testIntHashSet() {
+        final int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) values[i] = i * 3;
+        final IntHashSet set = new IntHashSet(values);
+        assertEquals(values.length, set.size());
+        assertTrue(set.capacity() >= values.length * 2);
+        final BitSet slots = new BitSet();
+        for (final int value : values) {
+            final int slot = set.indexOf(value);
+            assertTrue(slot >= 0 && slot < set.capacity());
+            assertFalse(slots.get(slot));
+            slots.set(slot);
+            assertFalse(set.contains(value + 1));
+        }
+        assertFalse(set.contains(-1));
+        assertEquals(1, new IntHashSet(new int[]{7, 7}).size());
+        assertFalse(new IntHashSet(new int[0]).contains(0));
+        try {
+            new IntHashSet(new int[]{-1});
+            fail("didn't get expected exception on negative value");
+        } catch (IllegalArgumentException expected) {}
+    }
+}
@@ -16,11 +16,15 @@ import com.salesforce.trellis.rules.Permissibility;
 import com.salesforce.trellis.rules.builder.RuleAction;
 import com.salesforce.trellis.rules.builder.RuleDistance;
 import com.salesforce.trellis.rules.builder.RuleOptionality;
+import org.apache.commons.lang3.builder.CompareToBuilder;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import static com.salesforce.trellis.rules.builder.RuleAction.ALLOW;
@@ -30,6 +34,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -81,6 +86,31 @@ public class RuleTest {
         new OrderingTester().testOrdering(builder.build());
     }
 
+    /**
+     * Ensure that ordering by scope is the same as ordering sorted arrays of the scopes.
+     */
+    @Test
+    public void testScopeMaskOrdering() {
+        final DependencyScopeFactory.MavenDependencyScope[] all = DependencyScopeFactory.MavenDependencyScope.values();
+        final List<Set<DependencyScopeFactory.MavenDependencyScope>> subsets = new ArrayList<>();
+        for (int mask = 1; mask < 1 << all.length; mask++) {
+            final Set<DependencyScopeFactory.MavenDependencyScope> subset =
+                EnumSet.noneOf(DependencyScopeFactory.MavenDependencyScope.class);
+            for (int i = 0; i < all.length; i++) {
+                if ((mask & 1 << i) != 0) subset.add(all[i]);
+            }
+            subsets.add(subset);
+        }
+        for (final Set<DependencyScopeFactory.MavenDependencyScope> s1 : subsets) {
+            for (final Set<DependencyScopeFactory.MavenDependencyScope> s2 : subsets) {
+                final int expected = new CompareToBuilder().append(s1.toArray(), s2.toArray()).toComparison();
+                final int actual = createRule("foo:foo-impl", "bar:bar-impl", DENY, s1)
+                    .compareTo(createRule("foo:foo-impl", "bar:bar-impl", DENY, s2));
+                assertEquals(Integer.signum(expected), Integer.signum(actual), s1 + " vs " + s2);
+            }
+        }
+    }
+
     @Test
     public void testEquality() throws Exception {
         final Rule r1a = createRule("foo:foo-impl", "foo:foo-api", ALLOW, "alpha good");
@@ -124,6 +154,97 @@ public class RuleTest {
         }
     }
 
+    /**
+     * Make sure compiling the rules into a DecisionTable doesn't change any results.
+     */
+    @Test
+    public void testDecisionTable() throws Exception {
+        final Random random = new Random(8675309);
+        final String[] tos = {"foo:*", "foo:foo-api", "foo:bar-*", "*:*-api", "*:*", "bar:bar-impl", "b?r:*"};
+        final RuleAction[] actions = RuleAction.values();
+        final DependencyScopeFactory.MavenDependencyScope[] scopes =
+            DependencyScopeFactory.MavenDependencyScope.values();
+        final ImmutableList.Builder<Rule> builder = ImmutableList.builder();
+        for (int i = 0; i < 200; i++) {
+            final Set<DependencyScopeFactory.MavenDependencyScope> ruleScopes =
+                EnumSet.noneOf(DependencyScopeFactory.MavenDependencyScope.class);
+            ruleScopes.add(scopes[random.nextInt(scopes.length)]);
+            if (random.nextBoolean()) ruleScopes.add(scopes[random.nextInt(scopes.length)]);
+            final Matcher to = random.nextInt(4) == 0 ?
+                NotMatcher.get(new WildcardMatcher(tos[random.nextInt(tos.length)])) :
+                new WildcardMatcher(tos[random.nextInt(tos.length)]);
+            builder.add(new Rule(new WildcardMatcher("*:*"), to,
+                PermissibilityImpl.create(actions[random.nextInt(actions.length)], "reason " + random.nextInt(5)),
+                random.nextInt(3) == 0 ? DependencyScopeFactory.MavenDependencyScope.ANY : ruleScopes,
+                RuleDistance.values()[random.nextInt(RuleDistance.values().length)],
+                RuleOptionality.values()[random.nextInt(RuleOptionality.values().length)]));
+        }
+        final List<Rule> rules = builder.build();
+        final PerModuleRulesImpl linear = new PerModuleRulesImpl(rules, LoggerFactory.getLogger(this.getClass()));
+        final PerModuleRulesImpl compiled =
+            new PerModuleRulesImpl(rules, LoggerFactory.getLogger(this.getClass()), true);
+        final List<Rule> sortedRules = new ArrayList<>(rules);
+        Collections.sort(sortedRules);
+        final String[] targets = {"foo:foo-api", "foo:bar-impl", "bar:bar-impl", "baz:baz-api", "zzz:zzz"};
+        for (int repeat = 0; repeat < 2; repeat++) {
+            for (final String target : targets) {
+                for (final DependencyScope scope : scopes) {
+                    for (final boolean isDirect : new boolean[] {true, false}) {
+                        for (final boolean isOptional : new boolean[] {true, false}) {
+                            final OutboundDependency dep = dep(Coordinates.parse(target), scope, isDirect, isOptional);
+                            final Permissibility expected = PerModuleRulesImpl.checkDependency(sortedRules, dep);
+                            assertSame(expected, linear.checkDependency(dep));
+                            assertSame(expected, compiled.checkDependency(dep));
+                        }
+                    }
+                }
+            }
+        }
+        // no rule can apply to a scope we don't know about
+        final OutboundDependency unknown = dep(Coordinates.parse("foo:foo-api"), new DependencyScope() {}, true, true);
+        assertSame(PermissibilityImpl.getDefault(), linear.checkDependency(unknown));
+        assertSame(PermissibilityImpl.getDefault(), compiled.checkDependency(unknown));
+    }
+
+    /**
+     * Check the bits in the ApplicabilityMask against a straightforward reading of scope, distance and optionality.
+     */
+    @Test
+    public void testApplicabilityMask() throws Exception {
+        final DependencyScopeFactory.MavenDependencyScope[] scopes =
+            DependencyScopeFactory.MavenDependencyScope.values();
+        final Set<DependencyScopeFactory.MavenDependencyScope> ruleScopes =
+            EnumSet.of(DependencyScopeFactory.MavenDependencyScope.compile,
+                DependencyScopeFactory.MavenDependencyScope.test);
+        for (final RuleDistance distance : RuleDistance.values()) {
+            for (final RuleOptionality optionality : RuleOptionality.values()) {
+                final Rule rule = new Rule(new WildcardMatcher("*:*"), new WildcardMatcher("*:*"),
+                    PermissibilityImpl.create(RuleAction.DENY, null), ruleScopes, distance, optionality);
+                int seen = 0;
+                for (final DependencyScopeFactory.MavenDependencyScope scope : scopes) {
+                    for (final boolean isDirect : new boolean[] {true, false}) {
+                        for (final boolean isOptional : new boolean[] {true, false}) {
+                            final OutboundDependency dep =
+                                dep(Coordinates.parse("foo:bar"), scope, isDirect, isOptional);
+                            final int bit = ApplicabilityMask.forDependency(dep);
+                            assertEquals(1, Integer.bitCount(bit));
+                            assertEquals(0, seen & bit);
+                            seen |= bit;
+                            final boolean expected = ruleScopes.contains(scope) &&
+                                (distance != RuleDistance.DIRECT_ONLY || isDirect) &&
+                                (distance != RuleDistance.TRANSITIVE_ONLY || !isDirect) &&
+                                (optionality != RuleOptionality.OPTIONAL_ONLY || isOptional) &&
+                                (optionality != RuleOptionality.NON_OPTIONAL_ONLY || !isOptional);
+                            assertEquals(expected, (rule.getApplicabilityMask() & bit) != 0);
+                            assertEquals(expected, rule.getPermissibility(dep) != null);
+                        }
+                    }
+                }
+                assertEquals(ApplicabilityMask.SIZE, Integer.bitCount(seen));
+            }
+        }
+    }
+
     // ===================================================================
     // Private methods
 
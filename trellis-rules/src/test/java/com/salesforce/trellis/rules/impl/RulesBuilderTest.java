@@ -13,6 +13,7 @@ import com.salesforce.trellis.rules.DependencyScope;
 import com.salesforce.trellis.rules.OutboundDependency;
 import com.salesforce.trellis.rules.Permissibility;
 import com.salesforce.trellis.rules.RuleSet;
+import com.salesforce.trellis.rules.RuleSetSerializer;
 import com.salesforce.trellis.rules.builder.GroupBuilder;
 import com.salesforce.trellis.rules.builder.GroupSetBuilder;
 import com.salesforce.trellis.rules.builder.RuleAction;
@@ -24,16 +25,24 @@ import com.salesforce.trellis.rules.builder.RuleBuildingException;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static com.salesforce.trellis.rules.builder.RuleAction.ALLOW;
 import static com.salesforce.trellis.rules.builder.RuleAction.DENY;
 import static com.salesforce.trellis.rules.builder.RuleAction.WARN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -60,6 +69,7 @@ public class RulesBuilderTest {
         final RuleSet rules = b.build();
         final RuleSet.PerModuleRules m = rules.getRulesFor(Coordinates.parse("sfdc.core:foo-impl"));
         assertNotNull(m, "null PerModuleRules");
+        assertEquals(m, rules.getRulesFor(Coordinates.parse("sfdc.core:bar-impl")));
         {
             final Permissibility p =
                 m.checkDependency(dep(Coordinates.parse("sfdc.core:foo-api"), compileScope, true, false));
@@ -135,6 +145,103 @@ public class RulesBuilderTest {
         new GoldFileValidator(TEST_RESOURCES.resolve("testGroupWithException.goldfile")).validate(toString(rules));
     }
 
+    /**
+     * Groups made of lots of exact coordinates, the way pomDependencies groups are, should be built as a single
+     * CoordinatesSetMatcher plus whatever wildcards were mixed in.
+     */
+    @Test
+    public void testCoordinatesGroup() throws Exception {
+        final GroupSetBuilder g = GroupSetBuilder.create();
+        final GroupBuilder deps = g.group().name("DEPS");
+        for (int i = 0; i < 400; i++) deps.include("sfdc.lib:lib" + i);
+        deps.build();
+        g.group().name("MIXED").include("DEPS").include("sfdc.core:*").include("sfdc.other:thing")
+            .except("sfdc.lib:lib7").except("sfdc.lib:lib8").build();
+        g.group().name("ONE").include("sfdc.lib:lib1").include("sfdc.ui:*").build();
+        final GroupSetImpl groups = (GroupSetImpl) g.build();
+        final Matcher depsMatcher = groups.getGroupMatchers().get("DEPS");
+        assertEquals(CoordinatesSetMatcher.class, depsMatcher.getClass());
+        assertEquals(400, ((CoordinatesSetMatcher) depsMatcher).getCoordinates().size());
+        final AndMatcher mixed = (AndMatcher) groups.getGroupMatchers().get("MIXED");
+        final OrMatcher mixedIncludes = (OrMatcher) mixed.getMatchers().get(0);
+        assertEquals(2, mixedIncludes.getMatchers().size());
+        assertEquals(401, ((CoordinatesSetMatcher) mixedIncludes.getMatchers().get(0)).getCoordinates().size());
+        assertEquals(new WildcardMatcher("sfdc.core:*"), mixedIncludes.getMatchers().get(1));
+        assertEquals(OrMatcher.get(SimpleMatcher.get("sfdc.lib:lib1"), new WildcardMatcher("sfdc.ui:*")),
+            groups.getGroupMatchers().get("ONE"));
+        final RuleSetBuilder b = RuleSetBuilder.create().groups(groups);
+        b.rule().action(DENY).from("*:*").to("MIXED").reason("MIXED").build();
+        final RuleSet.PerModuleRules m = b.build().getRulesFor(Coordinates.parse("x:y"));
+        assertFalse(m.checkDependency(dep(Coordinates.parse("sfdc.lib:lib42"), compileScope, true, false))
+            .isPermissible());
+        assertFalse(m.checkDependency(dep(Coordinates.parse("sfdc.core:foo"), compileScope, true, false))
+            .isPermissible());
+        assertFalse(m.checkDependency(dep(Coordinates.parse("sfdc.other:thing"), compileScope, true, false))
+            .isPermissible());
+        assertTrue(m.checkDependency(dep(Coordinates.parse("sfdc.lib:lib7"), compileScope, true, false))
+            .isPermissible());
+        assertTrue(m.checkDependency(dep(Coordinates.parse("sfdc.lib:lib400"), compileScope, true, false))
+            .isPermissible());
+    }
+
+    /**
+     * Ensure that a RuleSet survives a trip through RuleSetSerializer unchanged.
+     */
+    @Test
+    public void testSerializer() throws Exception {
+        final GroupSetBuilder g = GroupSetBuilder.create();
+        final GroupBuilder libs = g.group().name("LIBS");
+        for (int i = 0; i < 10; i++) libs.include("sfdc.lib:lib" + i);
+        libs.include("sfdc.core:*").except("sfdc.lib:lib3").build();
+        final RuleSetBuilder b = RuleSetBuilder.create().groups(g.build());
+        b.rule().action(WARN).from("sfdc.ui:*").to("LIBS").reason("discouraged").build();
+        b.rule().action(DENY).from("LIBS").to("LIBS").reason("no cycles").scope(testScope).scope(compileScope)
+            .distance(RuleDistance.DIRECT_ONLY).build();
+        b.rule().action(DENY).exceptFrom("sfdc.lib:lib1").to("*:*").optionality(RuleOptionality.OPTIONAL_ONLY)
+            .build();
+        b.rule().action(ALLOW).from("*").to("*").build();
+        final RuleSet original = b.build();
+        final RuleSetSerializer serializer = RuleSetSerializer.create();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.write(original, out);
+        final RuleSet copy = serializer.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(((RuleSetImpl) original).getRules(), ((RuleSetImpl) copy).getRules());
+        assertEquals(toString(original), toString(copy));
+        final Coordinates[] modules = {
+            Coordinates.parse("sfdc.ui:foo"), Coordinates.parse("sfdc.lib:lib1"), Coordinates.parse("sfdc.lib:lib3"),
+            Coordinates.parse("sfdc.core:bar")
+        };
+        for (final Coordinates from : modules) {
+            final RuleSet.PerModuleRules expected = original.getRulesFor(from);
+            final RuleSet.PerModuleRules actual = copy.getRulesFor(from);
+            for (final Coordinates to : modules) {
+                for (final OutboundDependency d : new OutboundDependency[]{
+                    dep(to, compileScope, true, false), dep(to, testScope, false, true)}) {
+                    assertEquals(expected.checkDependency(d), actual.checkDependency(d));
+                }
+            }
+        }
+        try {
+            serializer.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+            fail("didn't create expected exception on bad input");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testUnsupportedScope() throws Exception {
+        final RuleSetBuilder b = RuleSetBuilder.create();
+        final RuleBuilder rb = b.rule().action(DENY).from("foo:*").to("bar:*");
+        try {
+            rb.scope(new DependencyScope() {
+            });
+            fail("did not create expected exception on unsupported scope");
+        } catch (RuleBuildingException expected) {
+        }
+        rb.build();
+        assertEquals(1, ((RuleSetImpl) b.build()).getRules().size());
+    }
+
     @Test
     public void testNoSuchGroup() throws Exception {
         final GroupSetBuilder g = GroupSetBuilder.create();
@@ -249,6 +356,42 @@ public class RulesBuilderTest {
         new GoldFileValidator(TEST_RESOURCES.resolve("testAddRules.goldfile")).validate(toString(composite));
     }
 
+    /**
+     * Ensure that rebuilding a RuleSet with different settings reuses its optimized rules rather than optimizing and
+     * indexing them all over again.
+     */
+    @Test
+    public void testAddRulesReusesOptimizedRules() throws Exception {
+        final RuleSet r1;
+        {
+            final RuleSetBuilder b = RuleSetBuilder.create();
+            b.rule().action(ALLOW).from("foo:*").to("bar:api").build();
+            b.rule().action(DENY).from("foo:*").to("bar:*").build();
+            r1 = b.build();
+        }
+        final RuleSet r2;
+        {
+            final RuleSetBuilder b = RuleSetBuilder.create();
+            b.rule().action(DENY).from("baz:*").to("bar:*").build();
+            r2 = b.build();
+        }
+        final RuleSet rebuilt =
+            RuleSetBuilder.create().addRules(r1).decisionTables(true).permissibilityCache(10).build();
+        assertSame(((RuleSetImpl) r1).getRules(), ((RuleSetImpl) rebuilt).getRules());
+        assertNull(r1.getCacheStatistics());
+        assertNotNull(rebuilt.getCacheStatistics());
+        final RuleSet.PerModuleRules m = rebuilt.getRulesFor(Coordinates.of("foo", "app"));
+        assertTrue(m.checkDependency(dep(Coordinates.of("bar", "api"), compileScope, true, false)).isPermissible());
+        assertFalse(m.checkDependency(dep(Coordinates.of("bar", "impl"), compileScope, true, false)).isPermissible());
+        // combining rule sets still has to index them, but their rules have already been optimized
+        final RuleSet composite = RuleSetBuilder.create().addRules(r1).addRules(r2).build();
+        final List<?> compositeRules = ((RuleSetImpl) composite).getRules();
+        assertEquals(3, compositeRules.size());
+        assertSame(((RuleSetImpl) r1).getRules().get(0), compositeRules.get(0));
+        assertSame(((RuleSetImpl) r2).getRules().get(0), compositeRules.get(2));
+        assertNull(composite.getRulesFor(Coordinates.of("other", "app")));
+    }
+
     @Test
     public void testOptionality() throws Exception {
         final RuleSetBuilder b = RuleSetBuilder.create();
@@ -459,6 +602,92 @@ public class RulesBuilderTest {
         }
     }
 
+    @Test
+    public void testPermissibilityCache() throws Exception {
+        final RuleSetBuilder b = RuleSetBuilder.create();
+        b.logger(LoggerFactory.getLogger(this.getClass()));
+        b.permissibilityCache(100);
+        b.rule().action(ALLOW).from("sfdc.core:*-impl").to("sfdc.core:*-api").build();
+        b.rule().action(WARN).from("sfdc.core:*").to("sfdc.ui:*").reason("ui is discouraged").build();
+        b.rule().action(DENY).from("*").to("*").build();
+        b.rule().action(ALLOW).from("sfdc.core:special-impl").to("*:*").build();
+        final RuleSet rules = b.build();
+        assertNotNull(rules.getCacheStatistics());
+        assertNull(RuleSetBuilder.create().build().getCacheStatistics());
+        final RuleSet.PerModuleRules foo = rules.getRulesFor(Coordinates.parse("sfdc.core:foo-impl"));
+        final RuleSet.PerModuleRules bar = rules.getRulesFor(Coordinates.parse("sfdc.core:bar-impl"));
+        final RuleSet.PerModuleRules special = rules.getRulesFor(Coordinates.parse("sfdc.core:special-impl"));
+        final OutboundDependency api = dep(Coordinates.parse("sfdc.core:baz-api"), compileScope, true, false);
+        final OutboundDependency ui = dep(Coordinates.parse("sfdc.ui:widgets"), compileScope, true, false);
+        final OutboundDependency other = dep(Coordinates.parse("org.other:thing"), testScope, false, false);
+        assertTrue(foo.checkDependency(api).isPermissible());
+        assertTrue(foo.checkDependency(ui).isDiscouraged());
+        assertFalse(foo.checkDependency(other).isPermissible());
+        assertEquals(0, rules.getCacheStatistics().getHitCount());
+        assertEquals(3, rules.getCacheStatistics().getMissCount());
+        // bar has the same rules as foo, so it should get everything from the cache
+        assertTrue(bar.checkDependency(api).isPermissible());
+        assertEquals("ui is discouraged", bar.checkDependency(ui).getReason());
+        assertFalse(bar.checkDependency(dep(Coordinates.parse("org.other:thing"), testScope, false, false))
+            .isPermissible());
+        assertEquals(3, rules.getCacheStatistics().getHitCount());
+        assertEquals(3, rules.getCacheStatistics().getMissCount());
+        // but special has different rules
+        assertTrue(special.checkDependency(other).isPermissible());
+        assertFalse(foo.checkDependency(dep(Coordinates.parse("org.other:thing"), compileScope, false, false))
+            .isPermissible());
+        assertEquals(3, rules.getCacheStatistics().getHitCount());
+        assertEquals(5, rules.getCacheStatistics().getMissCount());
+        assertEquals(5, rules.getCacheStatistics().getSize());
+        assertNotNull(rules.getCacheStatistics().toString());
+        // modules with the same rules get equal PerModuleRules
+        assertEquals(foo, bar);
+        assertEquals(foo.hashCode(), bar.hashCode());
+        assertNotEquals(foo, special);
+        try {
+            RuleSetBuilder.create().permissibilityCache(-1);
+            fail("did not get expected exception");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * Check a batch big enough to be split into parallel chunks and make sure we get the same answers as checking
+     * them one at a time.
+     */
+    @Test
+    public void testCheckDependencies() throws Exception {
+        final RuleSetBuilder b = RuleSetBuilder.create();
+        b.logger(LoggerFactory.getLogger(this.getClass()));
+        b.rule().action(ALLOW).from("sfdc.core:*").to("sfdc.core:*-api").build();
+        b.rule().action(WARN).from("sfdc.core:*").to("sfdc.ui:*").reason("ui is discouraged").build();
+        b.rule().action(DENY).from("sfdc.core:*").to("sfdc.core:*-impl").reason("no impls").build();
+        final RuleSet.PerModuleRules m = b.build().getRulesFor(Coordinates.parse("sfdc.core:foo"));
+        final List<OutboundDependency> deps = new ArrayList<>();
+        final String[] suffixes = {"-api", "-impl", "-other"};
+        for (int i = 0; i < DependencyCheckResultsImpl.CHUNK_SIZE * 3 + 7; i++) {
+            final String group = i % 5 == 0 ? "sfdc.ui" : "sfdc.core";
+            deps.add(dep(Coordinates.parse(group + ":mod" + i + suffixes[i % 3]), compileScope, true, false));
+        }
+        final RuleSet.DependencyCheckResults results = m.checkDependencies(deps);
+        final List<OutboundDependency> expectedDisallowed = new ArrayList<>();
+        final List<OutboundDependency> expectedDiscouraged = new ArrayList<>();
+        for (final OutboundDependency dep : deps) {
+            final Permissibility p = m.checkDependency(dep);
+            if (!p.isPermissible()) {
+                expectedDisallowed.add(dep);
+                assertEquals(p, results.getDisallowed().get(dep));
+            }
+            if (p.isDiscouraged()) expectedDiscouraged.add(dep);
+        }
+        assertFalse(expectedDisallowed.isEmpty());
+        assertFalse(expectedDiscouraged.isEmpty());
+        assertEquals(expectedDisallowed, new ArrayList<>(results.getDisallowed().keySet()));
+        assertEquals(expectedDiscouraged, new ArrayList<>(results.getDiscouraged().keySet()));
+        assertEquals("no impls", results.getDisallowed().values().iterator().next().getReason());
+        assertTrue(m.checkDependencies(Collections.emptyList()).getDisallowed().isEmpty());
+    }
+
     private String toString(Object o) throws Exception {
         return GoldFileSerializer.create(RulesGoldFileConfig.get()).toString(o);
     }
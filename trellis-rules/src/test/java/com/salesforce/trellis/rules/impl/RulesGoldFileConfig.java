@@ -53,6 +53,7 @@ public class RulesGoldFileConfig implements GoldFileSerializerConfig {
         module.setMixInAnnotation(Rule.class, RuleMixin.class);
         module.setMixInAnnotation(RuleSetImpl.class, RulesImplMixin.class);
         module.setMixInAnnotation(Matcher.class, MatcherMixin.class);
+        module.setMixInAnnotation(WildcardMatcher.class, WildcardMatcherMixin.class);
         module.setMixInAnnotation(PerModuleRulesImpl.class, PerModuleRulesImplSerializerMixin.class);
         module.setMixInAnnotation(PermissibilityImpl.class, PermissibilityMixin.class);
         return module;
@@ -64,6 +65,12 @@ public class RulesGoldFileConfig implements GoldFileSerializerConfig {
     private static abstract class PerModuleRulesImplSerializerMixin {
         @JsonIgnore
         private Logger logger;
+
+        @JsonIgnore
+        private DecisionTable decisionTable;
+
+        @JsonIgnore
+        private Object groups;
     }
 
 
@@ -76,6 +83,15 @@ public class RulesGoldFileConfig implements GoldFileSerializerConfig {
     private static abstract class RulesImplMixin {
         @JsonIgnore
         private Logger logger;
+
+        @JsonIgnore
+        private MatcherIndex fromIndex;
+
+        @JsonIgnore
+        private boolean useDecisionTables;
+
+        @JsonIgnore
+        private PermissibilityCache cacheOrNull;
     }
 
 
@@ -83,6 +99,18 @@ public class RulesGoldFileConfig implements GoldFileSerializerConfig {
     private static abstract class MatcherMixin {}
 
 
+    private static abstract class WildcardMatcherMixin {
+        @JsonIgnore
+        private WildcardPattern groupIdPattern;
+
+        @JsonIgnore
+        private WildcardPattern artifactIdPattern;
+
+        @JsonIgnore
+        private WildcardPattern canonicalPattern;
+    }
+
+
     private static abstract class PermissibilityMixin {
 
         @JsonIgnore